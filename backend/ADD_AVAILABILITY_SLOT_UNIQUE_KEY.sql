@@ -0,0 +1,29 @@
+-- Unique key on availability (drone, date, slot)
+-- Run these queries in your MySQL database before deploying the rule-based availability booking.
+-- Booking a slot of a rule-based drone inserts its booked row and relies on this key to reject a
+-- second booking of the same slot, so the key must exist; ddl-auto=update cannot add it while
+-- duplicate rows are present.
+
+-- Step 1: List duplicate slots (same drone, date and time range)
+SELECT drone_id, available_date, start_time, end_time, COUNT(*) AS row_count,
+       SUM(is_booked) AS booked_rows
+FROM availability
+GROUP BY drone_id, available_date, start_time, end_time
+HAVING COUNT(*) > 1;
+
+-- Step 2: Remove duplicates, keeping a booked row if there is one, otherwise the oldest row
+DELETE a FROM availability a
+JOIN availability b
+  ON b.drone_id = a.drone_id
+ AND b.available_date = a.available_date
+ AND b.start_time = a.start_time
+ AND b.end_time = a.end_time
+ AND (b.is_booked > a.is_booked OR (b.is_booked = a.is_booked AND b.id < a.id));
+
+-- Step 3: Add the unique key
+ALTER TABLE availability
+  ADD CONSTRAINT uk_availability_drone_date_slot
+  UNIQUE (drone_id, available_date, start_time, end_time);
+
+-- Step 4: Verify
+SHOW INDEX FROM availability WHERE Key_name = 'uk_availability_drone_date_slot';
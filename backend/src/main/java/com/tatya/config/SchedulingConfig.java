@@ -0,0 +1,12 @@
+package com.tatya.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on the @Scheduled jobs in {@link com.tatya.service.SchedulerService}.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,17 +2,24 @@ package com.tatya.controller;
 
 import com.tatya.dto.*;
 import com.tatya.entity.Vendor;
+import com.tatya.model.ExportJob;
 import com.tatya.service.AdminService;
 import com.tatya.service.ExcelExportService;
+import com.tatya.service.ExportJobService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -23,6 +30,7 @@ public class AdminController {
 
     private final AdminService adminService;
     private final ExcelExportService excelExportService;
+    private final ExportJobService exportJobService;
 
     /**
      * Admin login endpoint
@@ -88,6 +96,31 @@ public class AdminController {
         }
     }
 
+    /**
+     * Get one keyset page of vendors.
+     * Pass the returned nextCursor as cursor to get the following page.
+     */
+    @GetMapping("/vendors/page")
+    public ResponseEntity<ApiResponse<CursorPage<AdminVendorResponse>>> getVendorsPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String approval,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String q) {
+        try {
+            CursorPage<AdminVendorResponse> page = adminService.getVendorsPage(cursor, limit, approval, status, q);
+            return ResponseEntity.ok(ApiResponse.success("Vendors retrieved successfully", page));
+        } catch (RuntimeException e) {
+            log.error("Invalid vendor page request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error fetching vendors page", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to fetch vendors"));
+        }
+    }
+
     /**
      * Get vendor details by ID
      */
@@ -209,6 +242,31 @@ public class AdminController {
         }
     }
 
+    /**
+     * Get one keyset page of users (admins excluded).
+     * Pass the returned nextCursor as cursor to get the following page.
+     */
+    @GetMapping("/users/page")
+    public ResponseEntity<ApiResponse<CursorPage<AdminUserResponse>>> getUsersPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String q) {
+        try {
+            CursorPage<AdminUserResponse> page = adminService.getUsersPage(cursor, limit, role, status, q);
+            return ResponseEntity.ok(ApiResponse.success("Users retrieved successfully", page));
+        } catch (RuntimeException e) {
+            log.error("Invalid user page request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error fetching users page", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to fetch users"));
+        }
+    }
+
     /**
      * Get user details by ID
      */
@@ -266,47 +324,124 @@ public class AdminController {
     }
 
     /**
-     * Export vendors and drones to Excel
+     * Export vendors and drones to Excel.
+     * The workbook is written straight to the response while it is generated.
      */
     @GetMapping("/vendors/export/excel")
-    public ResponseEntity<byte[]> exportVendorsAndDrones() {
-        try {
-            log.info("Exporting vendors and drones to Excel");
-            byte[] excelData = excelExportService.exportVendorsAndDrones();
+    public ResponseEntity<StreamingResponseBody> exportVendorsAndDrones() {
+        log.info("Exporting vendors and drones to Excel");
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", "vendors_and_drones.xlsx");
+        StreamingResponseBody body = out -> {
+            try {
+                excelExportService.exportVendorsAndDrones(out);
+            } catch (IOException | RuntimeException e) {
+                log.error("Error exporting vendors and drones", e);
+                throw e;
+            }
+        };
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelData);
-        } catch (Exception e) {
-            log.error("Error exporting vendors and drones", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", "vendors_and_drones.xlsx");
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
     }
 
     /**
-     * Export users to Excel
+     * Export users to Excel.
+     * The workbook is written straight to the response while it is generated.
      */
     @GetMapping("/users/export/excel")
-    public ResponseEntity<byte[]> exportUsers() {
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        log.info("Exporting users to Excel");
+
+        StreamingResponseBody body = out -> {
+            try {
+                excelExportService.exportUsers(out);
+            } catch (IOException | RuntimeException e) {
+                log.error("Error exporting users", e);
+                throw e;
+            }
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", "users.xlsx");
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
+    /**
+     * Start a background export.
+     * POST /api/admin/exports?type=VENDORS|USERS&format=XLSX|CSV
+     */
+    @PostMapping("/exports")
+    public ResponseEntity<ApiResponse<ExportJobResponse>> startExport(
+            @RequestParam String type,
+            @RequestParam(defaultValue = "XLSX") String format) {
         try {
-            log.info("Exporting users to Excel");
-            List<AdminUserResponse> users = adminService.getAllUsers();
-            byte[] excelData = excelExportService.exportUsers(users);
+            ExportJob.Type jobType;
+            ExportJob.Format jobFormat;
+            try {
+                jobType = ExportJob.Type.valueOf(type.trim().toUpperCase());
+                jobFormat = ExportJob.Format.valueOf(format.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error("Unsupported export type or format"));
+            }
+            ExportJob job = exportJobService.startExport(jobType, jobFormat);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Export started", ExportJobResponse.fromJob(job)));
+        } catch (RuntimeException e) {
+            log.warn("Export could not be started: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", "users.xlsx");
+    /**
+     * Poll a background export.
+     * GET /api/admin/exports/{jobId}
+     */
+    @GetMapping("/exports/{jobId}")
+    public ResponseEntity<ApiResponse<ExportJobResponse>> getExport(@PathVariable String jobId) {
+        try {
+            ExportJob job = exportJobService.getJob(jobId);
+            return ResponseEntity.ok(ApiResponse.success("Export status retrieved", ExportJobResponse.fromJob(job)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelData);
-        } catch (Exception e) {
-            log.error("Error exporting users", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    /**
+     * Download the file of a completed export.
+     * GET /api/admin/exports/{jobId}/download
+     */
+    @GetMapping("/exports/{jobId}/download")
+    public ResponseEntity<Resource> downloadExport(@PathVariable String jobId) {
+        ExportJob job;
+        try {
+            job = exportJobService.getJob(jobId);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
+        if (job.getStatus() != ExportJob.Status.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(job.getFormat() == ExportJob.Format.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", job.getFileName());
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(new FileSystemResource(job.getFile()));
     }
 }
@@ -2,6 +2,9 @@ package com.tatya.controller;
 
 import com.tatya.dto.ApiResponse;
 import com.tatya.dto.BookingRequest;
+import com.tatya.dto.BookingResponse;
+import com.tatya.dto.BookingSummaryResponse;
+import com.tatya.dto.CursorPage;
 import com.tatya.dto.UpdateBookingRequest;
 import com.tatya.entity.Booking;
 import com.tatya.exception.VendorKycPendingException;
@@ -10,9 +13,11 @@ import com.tatya.service.BookingService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -25,10 +30,10 @@ public class BookingController {
     private final BookingService bookingService;
     
     @PostMapping
-    public ResponseEntity<ApiResponse<Booking>> createBooking(@Valid @RequestBody BookingRequest request) {
+    public ResponseEntity<ApiResponse<BookingResponse>> createBooking(@Valid @RequestBody BookingRequest request) {
         try {
             log.info("Received booking request: {}", request);
-            Booking booking = bookingService.createBooking(request);
+            BookingResponse booking = bookingService.createBooking(request);
             return ResponseEntity.ok(ApiResponse.success("Booking created successfully", booking));
         } catch (RuntimeException e) {
             log.error("Error creating booking", e);
@@ -68,6 +73,61 @@ public class BookingController {
         }
     }
     
+    /**
+     * One page of a customer's booking history, newest first.
+     * Pass the returned nextCursor as cursor to get the following page.
+     */
+    @GetMapping("/customer/{customerId}/page")
+    public ResponseEntity<ApiResponse<CursorPage<BookingSummaryResponse>>> getCustomerBookingPage(
+            @PathVariable Long customerId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            CursorPage<BookingSummaryResponse> page =
+                    bookingService.getCustomerBookingPage(customerId, cursor, limit, status, from, to);
+            return ResponseEntity.ok(ApiResponse.success("Bookings retrieved successfully", page));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(400)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error fetching booking page for customer {}", customerId, e);
+            return ResponseEntity.status(500)
+                .body(ApiResponse.error("Failed to fetch bookings: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * One page of a vendor's booking history, newest first.
+     * Pass the returned nextCursor as cursor to get the following page.
+     */
+    @GetMapping("/vendor/{vendorId}/page")
+    public ResponseEntity<ApiResponse<CursorPage<BookingSummaryResponse>>> getVendorBookingPage(
+            @PathVariable Long vendorId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            CursorPage<BookingSummaryResponse> page =
+                    bookingService.getVendorBookingPage(vendorId, cursor, limit, status, from, to);
+            return ResponseEntity.ok(ApiResponse.success("Bookings retrieved successfully", page));
+        } catch (VendorKycPendingException | VendorRejectedException e) {
+            return ResponseEntity.status(403)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(400)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error fetching booking page for vendor {}", vendorId, e);
+            return ResponseEntity.status(500)
+                .body(ApiResponse.error("Failed to fetch bookings: " + e.getMessage()));
+        }
+    }
+    
     /**
      * Cash on Delivery: confirm booking and email customer (same SMTP as vendor mail).
      */
@@ -106,12 +166,12 @@ public class BookingController {
     }
     
     @PutMapping("/{bookingId}")
-    public ResponseEntity<ApiResponse<Booking>> updateBooking(
+    public ResponseEntity<ApiResponse<BookingResponse>> updateBooking(
             @PathVariable Long bookingId,
             @Valid @RequestBody UpdateBookingRequest request) {
         try {
             log.info("Received update booking request for booking {}: {}", bookingId, request);
-            Booking booking = bookingService.updateBooking(bookingId, request);
+            BookingResponse booking = bookingService.updateBooking(bookingId, request);
             return ResponseEntity.ok(ApiResponse.success("Booking updated successfully", booking));
         } catch (RuntimeException e) {
             log.error("Error updating booking {}", bookingId, e);
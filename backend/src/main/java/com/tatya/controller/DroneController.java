@@ -1,6 +1,7 @@
 package com.tatya.controller;
 
 import com.tatya.dto.ApiResponse;
+import com.tatya.dto.DroneSearchResult;
 import com.tatya.entity.Drone;
 import com.tatya.exception.VendorKycPendingException;
 import com.tatya.exception.VendorRejectedException;
@@ -70,6 +71,23 @@ public class DroneController {
         }
     }
     
+    /**
+     * Customer drone search: listing-card results only, nearest first when lat/lng are given.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<DroneSearchResult>>> searchAvailableDrones(
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng) {
+        try {
+            List<DroneSearchResult> drones = droneService.searchAvailableDrones(lat, lng);
+            return ResponseEntity.ok(ApiResponse.success("Available drones retrieved successfully", drones));
+        } catch (Exception e) {
+            log.error("Error searching available drones", e);
+            return ResponseEntity.status(500)
+                .body(ApiResponse.error("Failed to fetch drones: " + e.getMessage()));
+        }
+    }
+    
     @GetMapping("/{droneId}")
     public ResponseEntity<ApiResponse<Drone>> getDroneById(@PathVariable Long droneId) {
         try {
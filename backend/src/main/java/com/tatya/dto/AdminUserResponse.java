@@ -21,6 +21,21 @@ public class AdminUserResponse {
     private String email;
     private String fullName;
     private String role;
+
+    /**
+     * Projection constructor for the admin user listing queries; otp and location are left null.
+     */
+    public AdminUserResponse(Long id, String phone, String email, String fullName,
+                             User.UserStatus status, User.UserRole role, LocalDateTime createdAt) {
+        this.id = id;
+        this.phone = phone;
+        this.email = email;
+        this.fullName = fullName;
+        this.status = status.name();
+        this.role = role.name();
+        this.createdDate = createdAt.toLocalDate().atStartOfDay();
+        this.createdTime = createdAt.toLocalTime().toString();
+    }
     
     public static AdminUserResponse fromUser(User user) {
         AdminUserResponse response = new AdminUserResponse();
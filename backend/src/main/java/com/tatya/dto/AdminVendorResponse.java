@@ -1,5 +1,6 @@
 package com.tatya.dto;
 
+import com.tatya.entity.User;
 import com.tatya.entity.Vendor;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -24,6 +25,27 @@ public class AdminVendorResponse {
     private LocalDateTime createdAt;
     private Long totalDrones;
     private Long totalBookings;
+
+    /**
+     * Projection constructor for the admin vendor listing queries, which select these columns
+     * (counts as subqueries) instead of loading vendor entities.
+     */
+    public AdminVendorResponse(Long vendorId, String fullName, String email, String phone,
+                               User.UserStatus userStatus, Vendor.VerifiedStatus verifiedStatus,
+                               BigDecimal ratingAvg, LocalDateTime createdAt, Long totalDrones, Long totalBookings) {
+        this.vendorId = vendorId;
+        this.name = fullName;
+        this.business = fullName + " Services";
+        this.email = email;
+        this.phone = phone;
+        this.contact = phone;
+        this.status = userStatus != null ? userStatus.name() : "UNKNOWN";
+        this.approval = verifiedStatus != null ? verifiedStatus.name() : "UNKNOWN";
+        this.ratingAvg = ratingAvg;
+        this.createdAt = createdAt;
+        this.totalDrones = totalDrones != null ? totalDrones : 0L;
+        this.totalBookings = totalBookings != null ? totalBookings : 0L;
+    }
     
     public static AdminVendorResponse fromVendor(Vendor vendor, Long totalDrones, Long totalBookings) {
         if (vendor == null || vendor.getUser() == null) {
@@ -0,0 +1,74 @@
+package com.tatya.dto;
+
+import com.tatya.entity.Booking;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Booking as returned by the create/update endpoints. Built from the entities the write
+ * already holds (customer, drone, specification), so no extra load is needed after save.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingResponse {
+    private Long bookingId;
+    private Long customerId;
+    private String customerName;
+    private Long vendorId;
+    private Long droneId;
+    private String droneModel;
+    private String droneName;
+    private Long specificationId;
+    private Integer optionSet;
+    private LocalDate bookingDate;
+    private LocalDate serviceDate;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private BigDecimal locationLat;
+    private BigDecimal locationLong;
+    private BigDecimal farmAreaAcres;
+    private String serviceType;
+    private String status;
+    private BigDecimal totalCost;
+    private LocalDateTime createdAt;
+
+    public static BookingResponse fromBooking(Booking booking) {
+        BookingResponse response = new BookingResponse();
+        response.setBookingId(booking.getBookingId());
+        if (booking.getCustomer() != null) {
+            response.setCustomerId(booking.getCustomer().getId());
+            response.setCustomerName(booking.getCustomer().getFullName());
+        }
+        if (booking.getVendor() != null) {
+            response.setVendorId(booking.getVendor().getVendorId());
+        }
+        if (booking.getDrone() != null) {
+            response.setDroneId(booking.getDrone().getDroneId());
+            response.setDroneModel(booking.getDrone().getDroneModel());
+            response.setDroneName(booking.getDrone().getDroneName());
+        }
+        if (booking.getSpecification() != null) {
+            response.setSpecificationId(booking.getSpecification().getSpecId());
+            response.setOptionSet(booking.getSpecification().getOptionSet());
+        }
+        response.setBookingDate(booking.getBookingDate());
+        response.setServiceDate(booking.getServiceDate());
+        response.setStartTime(booking.getStartTime());
+        response.setEndTime(booking.getEndTime());
+        response.setLocationLat(booking.getLocationLat());
+        response.setLocationLong(booking.getLocationLong());
+        response.setFarmAreaAcres(booking.getFarmAreaAcres());
+        response.setServiceType(booking.getServiceType() != null ? booking.getServiceType().name() : null);
+        response.setStatus(booking.getStatus() != null ? booking.getStatus().name() : null);
+        response.setTotalCost(booking.getTotalCost());
+        response.setCreatedAt(booking.getCreatedAt());
+        return response;
+    }
+}
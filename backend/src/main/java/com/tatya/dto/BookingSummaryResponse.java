@@ -0,0 +1,68 @@
+package com.tatya.dto;
+
+import com.tatya.entity.Booking;
+import com.tatya.entity.Payment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * One line of a customer's or vendor's booking history. Selected directly by the paged history
+ * queries, so none of the booking's drone/vendor/user/specification graph is loaded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSummaryResponse {
+    private Long bookingId;
+    private Long customerId;
+    private String customerName;
+    private Long vendorId;
+    private String vendorName;
+    private Long droneId;
+    private String droneModel;
+    private String droneName;
+    private LocalDate serviceDate;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private BigDecimal locationLat;
+    private BigDecimal locationLong;
+    private BigDecimal farmAreaAcres;
+    private String serviceType;
+    private String status;
+    private BigDecimal totalCost;
+    private String paymentStatus;
+    private LocalDateTime createdAt;
+
+    public BookingSummaryResponse(Long bookingId, Long customerId, String customerName, Long vendorId,
+                                  String vendorName, Long droneId, String droneModel, String droneName,
+                                  LocalDate serviceDate, LocalTime startTime, LocalTime endTime,
+                                  BigDecimal locationLat, BigDecimal locationLong, BigDecimal farmAreaAcres,
+                                  Booking.ServiceType serviceType, Booking.BookingStatus status, BigDecimal totalCost,
+                                  Payment.PaymentStatus paymentStatus, LocalDateTime createdAt) {
+        this.bookingId = bookingId;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.vendorId = vendorId;
+        this.vendorName = vendorName;
+        this.droneId = droneId;
+        this.droneModel = droneModel;
+        this.droneName = droneName;
+        this.serviceDate = serviceDate;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.locationLat = locationLat;
+        this.locationLong = locationLong;
+        this.farmAreaAcres = farmAreaAcres;
+        this.serviceType = serviceType != null ? serviceType.name() : null;
+        this.status = status != null ? status.name() : null;
+        this.totalCost = totalCost;
+        this.paymentStatus = paymentStatus != null ? paymentStatus.name() : null;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,33 @@
+package com.tatya.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One keyset page of a listing. Pass nextCursor back as the cursor parameter to get the page
+ * after this one; it is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private Long nextCursor;
+    private boolean hasMore;
+
+    /**
+     * Builds a page from a query that fetched up to {@code size + 1} rows; the extra row only
+     * signals that another page exists and is dropped.
+     */
+    public static <T> CursorPage<T> fromRows(List<T> rows, int size, Function<T, Long> idOf) {
+        boolean hasMore = rows.size() > size;
+        List<T> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        Long nextCursor = hasMore ? idOf.apply(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+}
@@ -0,0 +1,61 @@
+package com.tatya.dto;
+
+import com.tatya.model.DroneSearchCandidate;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One card of the customer drone search: only what the listing shows, with the distance to the
+ * customer already computed (null when the search had no location).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DroneSearchResult {
+    private Long droneId;
+    private String droneModel;
+    private String droneName;
+    private Long vendorId;
+    private String pilotName;
+    private BigDecimal rating;
+    private BigDecimal pricePerAcre;
+    private BigDecimal pricePerHour;
+    private Double capacityLiters;
+    private Integer flightTimeMinutes;
+    private Double distanceKm;
+    private List<SpecOption> specOptions;
+
+    /** An available specification of the drone, as offered when booking. */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SpecOption {
+        private Long specId;
+        private Integer optionSet;
+        private Double tankSizeLiters;
+        private Double sprayWidthMeters;
+        private String timePerAcreMinutes;
+    }
+
+    public static DroneSearchResult fromCandidate(DroneSearchCandidate candidate, Double distanceKm,
+                                                  List<SpecOption> specOptions) {
+        DroneSearchResult result = new DroneSearchResult();
+        result.setDroneId(candidate.getDroneId());
+        result.setDroneModel(candidate.getDroneModel());
+        result.setDroneName(candidate.getDroneName());
+        result.setVendorId(candidate.getVendorId());
+        result.setPilotName(candidate.getPilotName());
+        result.setRating(candidate.getRatingAvg());
+        result.setPricePerAcre(candidate.getPricePerAcre());
+        result.setPricePerHour(candidate.getPricePerHour());
+        result.setCapacityLiters(candidate.getCapacityLiters());
+        result.setFlightTimeMinutes(candidate.getFlightTimeMinutes());
+        result.setDistanceKm(distanceKm);
+        result.setSpecOptions(specOptions);
+        return result;
+    }
+}
@@ -0,0 +1,37 @@
+package com.tatya.dto;
+
+import com.tatya.model.ExportJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobResponse {
+    private String jobId;
+    private String type;
+    private String format;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    private String errorMessage;
+    private String downloadUrl; // set once the file is ready
+
+    public static ExportJobResponse fromJob(ExportJob job) {
+        ExportJobResponse response = new ExportJobResponse();
+        response.setJobId(job.getJobId());
+        response.setType(job.getType().name());
+        response.setFormat(job.getFormat().name());
+        response.setStatus(job.getStatus().name());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setCompletedAt(job.getCompletedAt());
+        response.setErrorMessage(job.getErrorMessage());
+        if (job.getStatus() == ExportJob.Status.COMPLETED) {
+            response.setDownloadUrl("/api/admin/exports/" + job.getJobId() + "/download");
+        }
+        return response;
+    }
+}
@@ -10,7 +10,13 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "availability")
+@Table(name = "availability", uniqueConstraints = {
+        // One row per drone, day and slot; makes booking a rule-based slot an atomic insert
+        @UniqueConstraint(name = "uk_availability_drone_date_slot", columnNames = {"drone_id", "available_date", "start_time", "end_time"})
+}, indexes = {
+        // Slot lookups by drone and date (date picker, slot list, booking reservation)
+        @Index(name = "idx_availability_drone_date_booked_time", columnList = "drone_id, available_date, is_booked, start_time")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -42,4 +48,8 @@ public class Availability {
 
     @Column(name = "is_booked", nullable = false)
     private Boolean isBooked = false;
+
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
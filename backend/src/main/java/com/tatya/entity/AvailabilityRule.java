@@ -0,0 +1,54 @@
+package com.tatya.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Recurring availability of a drone: every operational day in [startDate, endDate] offers the
+ * same time slots. Free slots are computed from the rule on read; only booked slots are stored
+ * as Availability rows.
+ */
+@Entity
+@Table(name = "availability_rules")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @OneToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "drone_id", nullable = false, unique = true)
+    private Drone drone;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    @Column(name = "days_mask", nullable = false)
+    private Integer daysMask; // bit (DayOfWeek 1-7) - 1; 0 = every day
+
+    @Column(name = "months_mask", nullable = false)
+    private Integer monthsMask; // bit (Month 1-12) - 1; 0 = every month
+
+    @Column(name = "time_slots", nullable = false, columnDefinition = "TEXT")
+    private String timeSlots; // e.g. "06:00-11:00,17:00-20:00"
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -12,7 +12,17 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        // Vendor dashboard: bookings of a vendor per day / date range, filtered by status
+        @Index(name = "idx_bookings_vendor_date_status", columnList = "vendor_id, service_date, status"),
+        // Vendor dashboard chart and job counts: one status of a vendor over a date range
+        @Index(name = "idx_bookings_vendor_status_date", columnList = "vendor_id, status, service_date"),
+        // Booking history pages: newest bookings of a customer / vendor
+        @Index(name = "idx_bookings_customer_booking", columnList = "customer_id, booking_id"),
+        @Index(name = "idx_bookings_vendor_booking", columnList = "vendor_id, booking_id"),
+        // Clustering and admin listings by status
+        @Index(name = "idx_bookings_status", columnList = "status")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -76,6 +86,12 @@ public class Booking {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
+    @Column(name = "accepted_at")
+    private LocalDateTime acceptedAt; // set when the booking moves to ACCEPTED; drives incremental clustering
+    
+    @Column(name = "cluster_id")
+    private Long clusterId; // cluster this booking was grouped into, null until clustered
+    
     @OneToOne(mappedBy = "booking", cascade = CascadeType.ALL)
     private Payment payment;
     
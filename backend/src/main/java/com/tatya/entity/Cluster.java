@@ -47,6 +47,12 @@ public class Cluster {
     @Column(name = "center_long", precision = 11, scale = 8)
     private java.math.BigDecimal centerLongitude;
 
+    @Column(name = "total_acres", precision = 10, scale = 2)
+    private java.math.BigDecimal totalAcres;
+
+    @Column(name = "booking_count")
+    private Integer bookingCount;
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "cluster_farms", joinColumns = @JoinColumn(name = "cluster_id"), inverseJoinColumns = @JoinColumn(name = "farm_id"))
     private Set<Farm> farms = new HashSet<>();
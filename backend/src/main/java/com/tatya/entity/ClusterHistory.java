@@ -9,7 +9,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cluster_history")
+@Table(name = "cluster_history", indexes = {
+        // Lets the archiving job skip clusters that already have a history row
+        @Index(name = "idx_cluster_history_original_cluster", columnList = "original_cluster_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
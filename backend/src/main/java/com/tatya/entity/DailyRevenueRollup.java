@@ -0,0 +1,54 @@
+package com.tatya.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Payment totals per day, vendor, payment status and method. Kept up to date as payments change
+ * and rebuilt nightly from the payments table, so earnings figures read a few rows here instead
+ * of scanning payment history.
+ */
+@Entity
+@Table(name = "daily_revenue_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_revenue_rollup_key",
+                columnNames = { "revenue_date", "vendor_id", "payment_status", "payment_method" }),
+        indexes = @Index(name = "idx_daily_revenue_rollup_vendor_status_date",
+                columnList = "vendor_id, payment_status, revenue_date"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyRevenueRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "revenue_date", nullable = false)
+    private LocalDate revenueDate; // date part of Payment.timestamp
+
+    @Column(name = "vendor_id", nullable = false)
+    private Long vendorId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", nullable = false, length = 20)
+    private Payment.PaymentStatus paymentStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", nullable = false, length = 20)
+    private Payment.PaymentMethod paymentMethod;
+
+    @Column(name = "payment_count", nullable = false)
+    private Long paymentCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
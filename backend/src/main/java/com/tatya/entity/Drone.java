@@ -12,7 +12,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "drones")
+@Table(name = "drones", indexes = {
+        // Drone search bounding box on the service base
+        @Index(name = "idx_drones_base_lat_lng", columnList = "base_lat, base_lng"),
+        // Largest service radius, which sizes the search bounding box
+        @Index(name = "idx_drones_service_radius", columnList = "service_radius_km")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -123,6 +128,13 @@ public class Drone {
     @Column(name = "coordinates")
     private String coordinates; // lat/lng
 
+    // Service base as numbers: vendor lat/lng, else parsed coordinates; null when neither is usable
+    @Column(name = "base_lat")
+    private Double baseLat;
+
+    @Column(name = "base_lng")
+    private Double baseLng;
+
     @Column(name = "service_areas")
     private String serviceAreas;
 
@@ -0,0 +1,35 @@
+package com.tatya.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * High-water mark of a scheduled job, so a run only has to look at rows changed since the last one.
+ */
+@Entity
+@Table(name = "job_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobCheckpoint {
+
+    @Id
+    @Column(name = "job_name", length = 64)
+    private String jobName;
+
+    @Column(name = "high_water_mark")
+    private LocalDateTime highWaterMark;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -8,7 +8,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "otps")
+@Table(name = "otps", indexes = {
+        // Latest unused OTP of a phone number
+        @Index(name = "idx_otps_phone_used_created", columnList = "phone_number, is_used, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,61 @@
+package com.tatya.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * One booking's place in the planned spray route of an assigned cluster: its visiting order and
+ * the day and time window the vendor is expected to spend on it. Written by the allocation job.
+ */
+@Entity
+@Table(name = "route_stops", indexes = {
+        @Index(name = "idx_route_stops_cluster_sequence", columnList = "cluster_id, sequence"),
+        @Index(name = "idx_route_stops_vendor_date", columnList = "vendor_id, service_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteStop {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cluster_id", nullable = false)
+    private Long clusterId;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(name = "vendor_id", nullable = false)
+    private Long vendorId;
+
+    @Column(nullable = false)
+    private Integer sequence; // 1-based visiting order within the cluster
+
+    @Column(name = "service_date", nullable = false)
+    private LocalDate serviceDate;
+
+    @Column(name = "planned_start", nullable = false)
+    private LocalTime plannedStart;
+
+    @Column(name = "planned_end", nullable = false)
+    private LocalTime plannedEnd;
+
+    @Column(name = "travel_km")
+    private Double travelKm; // from the previous stop (or the vendor base for the first one)
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
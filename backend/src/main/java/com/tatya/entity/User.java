@@ -8,7 +8,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // Admin user listing: keyset pages of one role
+        @Index(name = "idx_users_role_id", columnList = "role, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -9,7 +9,10 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "vendors")
+@Table(name = "vendors", indexes = {
+        // Admin vendor listing: keyset pages of one approval status
+        @Index(name = "idx_vendors_verified_status_id", columnList = "verified_status, vendor_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
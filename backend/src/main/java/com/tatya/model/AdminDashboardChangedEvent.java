@@ -0,0 +1,8 @@
+package com.tatya.model;
+
+/**
+ * Published when an admin action changes the counts on the admin dashboard (vendor approval,
+ * account status, user deletion), so the cached statistics are dropped once it commits.
+ */
+public class AdminDashboardChangedEvent {
+}
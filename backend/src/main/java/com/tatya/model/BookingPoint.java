@@ -0,0 +1,35 @@
+package com.tatya.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Location and area of a booking, projected straight from the bookings table for clustering
+ * so no Booking entity graph (drone, specification, vendor) gets loaded.
+ */
+@Data
+@NoArgsConstructor
+public class BookingPoint {
+    private long bookingId;
+    private double lat;
+    private double lon;
+    private int acresCenti; // farm area in hundredths of an acre (farm_area_acres has scale 2)
+
+    public BookingPoint(Long bookingId, BigDecimal lat, BigDecimal lon, BigDecimal farmAreaAcres) {
+        this.bookingId = bookingId;
+        this.lat = lat.doubleValue();
+        this.lon = lon.doubleValue();
+        this.acresCenti = toCenti(farmAreaAcres);
+    }
+
+    public static int toCenti(BigDecimal acres) {
+        if (acres == null) {
+            return 0;
+        }
+        long centi = acres.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, centi));
+    }
+}
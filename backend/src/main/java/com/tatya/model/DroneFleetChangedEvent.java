@@ -0,0 +1,15 @@
+package com.tatya.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published when a drone, its vendor or the vendor's user changes in a way that can affect which
+ * drones the customer search offers (status, approval, service base or radius, listing fields).
+ * A null vendorId means the vendor is not known.
+ */
+@Data
+@AllArgsConstructor
+public class DroneFleetChangedEvent {
+    private Long vendorId;
+}
@@ -0,0 +1,30 @@
+package com.tatya.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * The columns of an available drone that the customer drone search needs: the listing card
+ * fields plus the service base and radius used for the distance filter.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DroneSearchCandidate {
+    private Long droneId;
+    private String droneModel;
+    private String droneName;
+    private Long vendorId;
+    private String pilotName;
+    private BigDecimal ratingAvg;
+    private BigDecimal pricePerAcre;
+    private BigDecimal pricePerHour;
+    private Double capacityLiters;
+    private Integer flightTimeMinutes;
+    private Double serviceRadiusKm;
+    private Double baseLat;
+    private Double baseLng;
+}
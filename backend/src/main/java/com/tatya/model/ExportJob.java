@@ -0,0 +1,41 @@
+package com.tatya.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * A background admin export. Held in memory by ExportJobService; the finished file lives under
+ * the upload directory until the job expires.
+ */
+@Data
+@NoArgsConstructor
+public class ExportJob {
+    private String jobId;
+    private Type type;
+    private Format format;
+    private volatile Status status = Status.QUEUED;
+    private LocalDateTime createdAt;
+    private volatile LocalDateTime completedAt;
+    private volatile String errorMessage;
+    private Path file;
+
+    public enum Type {
+        VENDORS, USERS
+    }
+
+    public enum Format {
+        XLSX, CSV
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    public String getFileName() {
+        String base = type == Type.VENDORS ? "vendors_and_drones" : "users";
+        return base + "." + format.name().toLowerCase();
+    }
+}
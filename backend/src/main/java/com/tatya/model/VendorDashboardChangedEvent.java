@@ -0,0 +1,14 @@
+package com.tatya.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published when bookings or payments of a vendor change, so cached vendor dashboard data is
+ * dropped. A null vendorId means every vendor may be affected.
+ */
+@Data
+@AllArgsConstructor
+public class VendorDashboardChangedEvent {
+    private Long vendorId;
+}
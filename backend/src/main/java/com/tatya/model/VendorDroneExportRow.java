@@ -0,0 +1,54 @@
+package com.tatya.model;
+
+import com.tatya.entity.Drone;
+import com.tatya.entity.User;
+import com.tatya.entity.Vendor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of the vendors & drones export: a vendor with one of its drones (drone columns null
+ * for a vendor without drones), projected in a single query so no entity graphs are loaded.
+ */
+@Data
+@NoArgsConstructor
+public class VendorDroneExportRow {
+    private Long vendorId;
+    private String fullName;
+    private String email;
+    private String phone;
+    private String userStatus;
+    private String verifiedStatus;
+    private BigDecimal ratingAvg;
+    private Long droneId;
+    private String droneModel;
+    private String droneName;
+    private String brand;
+    private String equipmentType;
+    private String droneStatus;
+    private BigDecimal pricePerHour;
+    private BigDecimal pricePerAcre;
+
+    public VendorDroneExportRow(Long vendorId, String fullName, String email, String phone,
+                                User.UserStatus userStatus, Vendor.VerifiedStatus verifiedStatus, BigDecimal ratingAvg,
+                                Long droneId, String droneModel, String droneName, String brand, String equipmentType,
+                                Drone.DroneStatus droneStatus, BigDecimal pricePerHour, BigDecimal pricePerAcre) {
+        this.vendorId = vendorId;
+        this.fullName = fullName;
+        this.email = email;
+        this.phone = phone;
+        this.userStatus = userStatus != null ? userStatus.name() : null;
+        this.verifiedStatus = verifiedStatus != null ? verifiedStatus.name() : null;
+        this.ratingAvg = ratingAvg;
+        this.droneId = droneId;
+        this.droneModel = droneModel;
+        this.droneName = droneName;
+        this.brand = brand;
+        this.equipmentType = equipmentType;
+        this.droneStatus = droneStatus != null ? droneStatus.name() : null;
+        this.pricePerHour = pricePerHour;
+        this.pricePerAcre = pricePerAcre;
+    }
+}
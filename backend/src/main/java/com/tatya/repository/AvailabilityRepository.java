@@ -2,18 +2,63 @@ package com.tatya.repository;
 
 import com.tatya.entity.Availability;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AvailabilityRepository extends JpaRepository<Availability, Long> {
 
     List<Availability> findByDrone_DroneId(Long droneId);
 
+    Optional<Availability> findFirstByDrone_DroneIdOrderByIdAsc(Long droneId);
+
+    Optional<Availability> findFirstByDrone_DroneIdAndAvailableDateAndStartTimeAndEndTimeAndIsBookedTrue(
+            Long droneId, LocalDate availableDate, LocalTime startTime, LocalTime endTime);
+
+    List<Availability> findByDrone_DroneIdAndIsBookedTrueAndAvailableDateBetween(
+            Long droneId, LocalDate from, LocalDate to);
+
+    /**
+     * Books a stored free slot in one statement; returns 1 if this call booked it, 0 if there is
+     * no such free row (missing, outside its date window, or already booked by someone else).
+     */
+    @Modifying
+    @Query("UPDATE Availability a SET a.isBooked = true, a.version = a.version + 1 " +
+            "WHERE a.drone.droneId = :droneId " +
+            "AND a.availableDate = :date " +
+            "AND a.startTime = :startTime " +
+            "AND a.endTime = :endTime " +
+            "AND a.isBooked = false " +
+            "AND (a.startDate IS NULL OR :date >= a.startDate) " +
+            "AND (a.endDate IS NULL OR :date <= a.endDate)")
+    int reserveFreeSlot(
+            @Param("droneId") Long droneId,
+            @Param("date") LocalDate date,
+            @Param("startTime") LocalTime startTime,
+            @Param("endTime") LocalTime endTime);
+
+    /** Drops unbooked rows of a materialised calendar once the drone has an availability rule. */
+    @Modifying
+    @Query("DELETE FROM Availability a WHERE a.drone.droneId = :droneId AND a.isBooked = false")
+    int deleteFreeSlotsByDroneId(@Param("droneId") Long droneId);
+
+    /** Sets the availability window on all of a drone's rows; a null date leaves that bound unchanged. */
+    @Modifying
+    @Query("UPDATE Availability a SET a.startDate = COALESCE(:startDate, a.startDate), " +
+            "a.endDate = COALESCE(:endDate, a.endDate) " +
+            "WHERE a.drone.droneId = :droneId")
+    int updateWindowByDroneId(
+            @Param("droneId") Long droneId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
     List<Availability> findByDrone_DroneIdAndIsBookedFalse(Long droneId);
 
     List<Availability> findByDrone_DroneIdAndAvailableDateGreaterThanEqualAndIsBookedFalse(
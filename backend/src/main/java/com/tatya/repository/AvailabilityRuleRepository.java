@@ -0,0 +1,13 @@
+package com.tatya.repository;
+
+import com.tatya.entity.AvailabilityRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AvailabilityRuleRepository extends JpaRepository<AvailabilityRule, Long> {
+
+    Optional<AvailabilityRule> findByDrone_DroneId(Long droneId);
+}
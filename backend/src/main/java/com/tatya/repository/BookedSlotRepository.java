@@ -0,0 +1,32 @@
+package com.tatya.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Booked-slot insert for rule-based drones. It goes through JdbcTemplate rather than a JPA
+ * query so that losing the race for a slot surfaces as a DuplicateKeyException and leaves the
+ * caller's transaction usable. Runs in the caller's transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookedSlotRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Stores a booked slot. The unique key on (drone, date, slot) makes this the reservation:
+     * throws DuplicateKeyException when the slot already has a row.
+     */
+    public void insertBookedSlot(Long droneId, LocalDate date, LocalDate startDate, LocalDate endDate,
+                                 LocalTime startTime, LocalTime endTime) {
+        jdbcTemplate.update("INSERT INTO availability "
+                        + "(drone_id, available_date, start_date, end_date, start_time, end_time, is_booked, version) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, true, 0)",
+                droneId, date, startDate, endDate, startTime, endTime);
+    }
+}
@@ -1,18 +1,64 @@
 package com.tatya.repository;
 
+import com.tatya.dto.BookingSummaryResponse;
 import com.tatya.entity.Booking;
+import com.tatya.model.BookingPoint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
+    String SUMMARY_SELECT = "SELECT new com.tatya.dto.BookingSummaryResponse(b.bookingId, c.id, c.fullName, " +
+            "v.vendorId, vu.fullName, d.droneId, d.droneModel, d.droneName, b.serviceDate, b.startTime, b.endTime, " +
+            "b.locationLat, b.locationLong, b.farmAreaAcres, b.serviceType, b.status, b.totalCost, " +
+            "p.paymentStatus, b.createdAt) " +
+            "FROM Booking b JOIN b.customer c JOIN b.vendor v JOIN v.user vu JOIN b.drone d LEFT JOIN b.payment p ";
+
+    String SUMMARY_FILTERS = "AND b.bookingId < :beforeId " +
+            "AND (:status IS NULL OR b.status = :status) " +
+            "AND (:fromDate IS NULL OR b.serviceDate >= :fromDate) " +
+            "AND (:toDate IS NULL OR b.serviceDate <= :toDate) " +
+            "ORDER BY b.bookingId DESC";
+
     List<Booking> findByCustomer_Id(Long customerId);
 
+    /**
+     * Booking history of a customer, newest first, with booking id below beforeId. Null filters
+     * are ignored; the date range is on the service date (inclusive).
+     */
+    @Query(SUMMARY_SELECT + "WHERE c.id = :customerId " + SUMMARY_FILTERS)
+    List<BookingSummaryResponse> findCustomerSummariesBefore(
+            @Param("customerId") Long customerId,
+            @Param("beforeId") Long beforeId,
+            @Param("status") Booking.BookingStatus status,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate,
+            Pageable page);
+
+    /**
+     * Booking history of a vendor, newest first, with booking id below beforeId. Same filters as
+     * {@link #findCustomerSummariesBefore}.
+     */
+    @Query(SUMMARY_SELECT + "WHERE v.vendorId = :vendorId " + SUMMARY_FILTERS)
+    List<BookingSummaryResponse> findVendorSummariesBefore(
+            @Param("vendorId") Long vendorId,
+            @Param("beforeId") Long beforeId,
+            @Param("status") Booking.BookingStatus status,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate,
+            Pageable page);
+
     List<Booking> findByVendor_VendorId(Long vendorId);
 
     List<Booking> findByVendor_VendorIdAndServiceDateBetween(Long vendorId, LocalDate start, LocalDate end);
@@ -23,10 +69,67 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     long countByVendor_VendorIdAndStatus(Long vendorId, Booking.BookingStatus status);
 
+    // Vendor chart: one row per service date with the summed farm area (rows only for dates that have bookings)
+    @Query("SELECT b.serviceDate, COALESCE(SUM(b.farmAreaAcres), 0) FROM Booking b " +
+           "WHERE b.vendor.vendorId = :vendorId AND b.status = :status AND b.serviceDate BETWEEN :start AND :end " +
+           "GROUP BY b.serviceDate")
+    List<Object[]> sumAcresByDay(
+            @Param("vendorId") Long vendorId,
+            @Param("status") Booking.BookingStatus status,
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end);
+
+    // Vendor chart: one row per (year, month) with the summed farm area
+    @Query("SELECT YEAR(b.serviceDate), MONTH(b.serviceDate), COALESCE(SUM(b.farmAreaAcres), 0) FROM Booking b " +
+           "WHERE b.vendor.vendorId = :vendorId AND b.status = :status AND b.serviceDate BETWEEN :start AND :end " +
+           "GROUP BY YEAR(b.serviceDate), MONTH(b.serviceDate)")
+    List<Object[]> sumAcresByMonth(
+            @Param("vendorId") Long vendorId,
+            @Param("status") Booking.BookingStatus status,
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end);
+
     List<Booking> findByDrone_DroneId(Long droneId);
 
     List<Booking> findByStatus(Booking.BookingStatus status);
 
+    @Query("SELECT new com.tatya.model.BookingPoint(b.bookingId, b.locationLat, b.locationLong, b.farmAreaAcres) " +
+           "FROM Booking b WHERE b.status = :status ORDER BY b.bookingId")
+    List<BookingPoint> findPointsByStatus(@Param("status") Booking.BookingStatus status);
+
+    @Query("SELECT new com.tatya.model.BookingPoint(b.bookingId, b.locationLat, b.locationLong, b.farmAreaAcres) " +
+           "FROM Booking b WHERE b.status = :status AND b.clusterId IS NULL ORDER BY b.bookingId")
+    List<BookingPoint> findUnclusteredPointsByStatus(@Param("status") Booking.BookingStatus status);
+
+    @Query("SELECT new com.tatya.model.BookingPoint(b.bookingId, b.locationLat, b.locationLong, b.farmAreaAcres) " +
+           "FROM Booking b WHERE b.status = :status AND b.clusterId IS NULL AND b.acceptedAt > :since " +
+           "ORDER BY b.bookingId")
+    List<BookingPoint> findUnclusteredPointsAcceptedAfter(
+            @Param("status") Booking.BookingStatus status,
+            @Param("since") LocalDateTime since);
+
+    // Route planning: (cluster id, booking id, lat, lng, farm acres, service date) of the bookings in the given clusters
+    @Query("SELECT b.clusterId, b.bookingId, b.locationLat, b.locationLong, b.farmAreaAcres, b.serviceDate FROM Booking b " +
+           "WHERE b.clusterId IN :clusterIds AND b.status = :status ORDER BY b.clusterId, b.bookingId")
+    List<Object[]> findRoutePointsByClusterIdIn(
+            @Param("clusterIds") Collection<Long> clusterIds,
+            @Param("status") Booking.BookingStatus status);
+
+    @Query("SELECT new com.tatya.model.BookingPoint(b.bookingId, b.locationLat, b.locationLong, b.farmAreaAcres) " +
+           "FROM Booking b WHERE b.status = :status AND b.clusterId IS NULL " +
+           "AND b.locationLat BETWEEN :minLat AND :maxLat AND b.locationLong BETWEEN :minLng AND :maxLng " +
+           "ORDER BY b.bookingId")
+    List<BookingPoint> findUnclusteredPointsInBox(
+            @Param("status") Booking.BookingStatus status,
+            @Param("minLat") BigDecimal minLat,
+            @Param("maxLat") BigDecimal maxLat,
+            @Param("minLng") BigDecimal minLng,
+            @Param("maxLng") BigDecimal maxLng);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.clusterId = :clusterId WHERE b.bookingId IN :bookingIds")
+    int assignCluster(@Param("clusterId") Long clusterId, @Param("bookingIds") Collection<Long> bookingIds);
+
     @Query("SELECT b FROM Booking b WHERE b.serviceDate = :serviceDate AND b.drone.droneId = :droneId")
     List<Booking> findByServiceDateAndDroneId(LocalDate serviceDate, Long droneId);
 }
@@ -0,0 +1,239 @@
+package com.tatya.repository;
+
+import com.tatya.entity.Assignment;
+import com.tatya.entity.Cluster;
+import com.tatya.entity.ClusterHistory;
+import com.tatya.entity.RouteStop;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC batch writes for the high-volume write paths (generated clusters, assignments, cluster
+ * activation, route stops and cluster history).
+ *
+ * These entities use IDENTITY ids, which makes Hibernate insert one row per statement. Going
+ * through JdbcTemplate.batchUpdate sends each list as one JDBC batch, and with
+ * rewriteBatchedStatements=true on the MySQL URL the driver collapses it into multi-row
+ * INSERTs. Runs in the caller's transaction. Entity callbacks (@PrePersist) are not invoked,
+ * so timestamps are set here; the passed objects are not attached to the persistence context.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BulkInsertRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts new clusters and writes the generated ids back onto them. The farms join table
+     * is not touched, so only clusters without farms may be passed in.
+     */
+    public void insertClusters(List<Cluster> clusters) {
+        if (clusters.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String sql = "INSERT INTO clusters (name, vendor_id, start_date, end_date, status, priority, center_lat, center_long, "
+                + "total_acres, booking_count, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Cluster c = clusters.get(i);
+                        c.setCreatedAt(now);
+                        c.setUpdatedAt(now);
+                        ps.setString(1, c.getName());
+                        setLong(ps, 2, c.getVendor() != null ? c.getVendor().getVendorId() : null);
+                        setDate(ps, 3, c.getStartDate());
+                        setDate(ps, 4, c.getEndDate());
+                        ps.setString(5, c.getStatus().name());
+                        setInt(ps, 6, c.getPriority());
+                        ps.setBigDecimal(7, c.getCenterLatitude());
+                        ps.setBigDecimal(8, c.getCenterLongitude());
+                        ps.setBigDecimal(9, c.getTotalAcres());
+                        setInt(ps, 10, c.getBookingCount());
+                        ps.setTimestamp(11, Timestamp.valueOf(now));
+                        ps.setTimestamp(12, Timestamp.valueOf(now));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return clusters.size();
+                    }
+                }, keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        if (generated.size() != clusters.size()) {
+            throw new RuntimeException("Expected " + clusters.size() + " generated cluster ids, got " + generated.size());
+        }
+        for (int i = 0; i < clusters.size(); i++) {
+            Number id = (Number) generated.get(i).values().iterator().next();
+            clusters.get(i).setId(id.longValue());
+        }
+    }
+
+    public int insertAssignments(List<Assignment> assignments) {
+        if (assignments.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String sql = "INSERT INTO assignments (cluster_id, vendor_id, assigned_at, scheduled_time_slot) VALUES (?, ?, ?, ?)";
+        return sum(jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Assignment a = assignments.get(i);
+                a.setAssignedAt(now);
+                ps.setLong(1, a.getCluster().getId());
+                ps.setLong(2, a.getVendor().getVendorId());
+                ps.setTimestamp(3, Timestamp.valueOf(now));
+                ps.setString(4, a.getScheduledTimeSlot());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return assignments.size();
+            }
+        }));
+    }
+
+    /**
+     * Marks each assignment's cluster ACTIVE under its vendor, with the dates it was planned for.
+     *
+     * @return number of clusters updated
+     */
+    public int activateAssignedClusters(List<Assignment> assignments) {
+        if (assignments.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String sql = "UPDATE clusters SET vendor_id = ?, status = ?, start_date = ?, end_date = ?, updated_at = ? WHERE id = ?";
+        return sum(jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Assignment a = assignments.get(i);
+                ps.setLong(1, a.getVendor().getVendorId());
+                ps.setString(2, Cluster.ClusterStatus.ACTIVE.name());
+                setDate(ps, 3, a.getCluster().getStartDate());
+                setDate(ps, 4, a.getCluster().getEndDate());
+                ps.setTimestamp(5, Timestamp.valueOf(now));
+                ps.setLong(6, a.getCluster().getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return assignments.size();
+            }
+        }));
+    }
+
+    public int insertRouteStops(List<RouteStop> stops) {
+        if (stops.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String sql = "INSERT INTO route_stops (cluster_id, booking_id, vendor_id, sequence, service_date, planned_start, "
+                + "planned_end, travel_km, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        return sum(jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                RouteStop s = stops.get(i);
+                s.setCreatedAt(now);
+                ps.setLong(1, s.getClusterId());
+                ps.setLong(2, s.getBookingId());
+                ps.setLong(3, s.getVendorId());
+                ps.setInt(4, s.getSequence());
+                setDate(ps, 5, s.getServiceDate());
+                ps.setTime(6, Time.valueOf(s.getPlannedStart()));
+                ps.setTime(7, Time.valueOf(s.getPlannedEnd()));
+                if (s.getTravelKm() == null) {
+                    ps.setNull(8, Types.DOUBLE);
+                } else {
+                    ps.setDouble(8, s.getTravelKm());
+                }
+                ps.setTimestamp(9, Timestamp.valueOf(now));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return stops.size();
+            }
+        }));
+    }
+
+    public int insertClusterHistory(List<ClusterHistory> history) {
+        if (history.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String sql = "INSERT INTO cluster_history (original_cluster_id, name, vendor_id, start_date, end_date, completion_date, archived_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        return sum(jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ClusterHistory h = history.get(i);
+                h.setArchivedAt(now);
+                setLong(ps, 1, h.getOriginalClusterId());
+                ps.setString(2, h.getName());
+                setLong(ps, 3, h.getVendorId());
+                setDate(ps, 4, h.getStartDate());
+                setDate(ps, 5, h.getEndDate());
+                setDate(ps, 6, h.getCompletionDate());
+                ps.setTimestamp(7, Timestamp.valueOf(now));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return history.size();
+            }
+        }));
+    }
+
+    private static void setDate(PreparedStatement ps, int index, LocalDate value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DATE);
+        } else {
+            ps.setDate(index, Date.valueOf(value));
+        }
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+
+    private static void setInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    // Rewritten MySQL batches report SUCCESS_NO_INFO (-2) per row; count those as one row each
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int c : counts) {
+            total += c == Statement.SUCCESS_NO_INFO ? 1 : c;
+        }
+        return total;
+    }
+}
@@ -2,8 +2,11 @@ package com.tatya.repository;
 
 import com.tatya.entity.Cluster;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
@@ -11,4 +14,25 @@ public interface ClusterRepository extends JpaRepository<Cluster, Long> {
     List<Cluster> findByStatus(Cluster.ClusterStatus status);
 
     List<Cluster> findByVendorVendorId(Long vendorId);
+
+    // Archiving: clusters in the given status that have no history row yet
+    @Query("SELECT c FROM Cluster c WHERE c.status = :status " +
+           "AND NOT EXISTS (SELECT h.id FROM ClusterHistory h WHERE h.originalClusterId = c.id)")
+    List<Cluster> findUnarchivedByStatus(@Param("status") Cluster.ClusterStatus status);
+
+    // Vendor allocation: (id, center lat, center lng, total acres, start date, end date, priority)
+    @Query("SELECT c.id, c.centerLatitude, c.centerLongitude, c.totalAcres, c.startDate, c.endDate, c.priority " +
+           "FROM Cluster c WHERE c.status = :status")
+    List<Object[]> findAllocationRowsByStatus(@Param("status") Cluster.ClusterStatus status);
+
+    // Farm locations of clusters without a stored center, used as a stand-in center: (cluster id, lat, lng)
+    @Query("SELECT c.id, f.latitude, f.longitude FROM Cluster c JOIN c.farms f " +
+           "WHERE c.status = :status AND (c.centerLatitude IS NULL OR c.centerLongitude IS NULL) " +
+           "ORDER BY c.id, f.id")
+    List<Object[]> findFarmLocationsOfUncenteredClusters(@Param("status") Cluster.ClusterStatus status);
+
+    // Work already booked on vendors: (vendor id, total acres, start date, end date) of clusters ending on or after :from
+    @Query("SELECT c.vendor.vendorId, c.totalAcres, c.startDate, c.endDate FROM Cluster c " +
+           "WHERE c.status = :status AND c.vendor IS NOT NULL AND c.endDate >= :from")
+    List<Object[]> findVendorLoadRows(@Param("status") Cluster.ClusterStatus status, @Param("from") LocalDate from);
 }
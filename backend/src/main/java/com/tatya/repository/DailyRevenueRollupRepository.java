@@ -0,0 +1,63 @@
+package com.tatya.repository;
+
+import com.tatya.entity.DailyRevenueRollup;
+import com.tatya.entity.Payment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailyRevenueRollupRepository extends JpaRepository<DailyRevenueRollup, Long> {
+
+    // Adds a (possibly negative) delta to one rollup row, creating the row if it does not exist yet
+    @Modifying
+    @Query(value = "INSERT INTO daily_revenue_rollup " +
+            "(revenue_date, vendor_id, payment_status, payment_method, payment_count, total_amount, updated_at) " +
+            "VALUES (:date, :vendorId, :status, :method, :countDelta, :amountDelta, :now) " +
+            "ON DUPLICATE KEY UPDATE payment_count = payment_count + :countDelta, " +
+            "total_amount = total_amount + :amountDelta, updated_at = :now", nativeQuery = true)
+    int addDelta(
+            @Param("date") LocalDate date,
+            @Param("vendorId") Long vendorId,
+            @Param("status") String status,
+            @Param("method") String method,
+            @Param("countDelta") long countDelta,
+            @Param("amountDelta") BigDecimal amountDelta,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_revenue_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    // Recomputes every rollup row from the payments table
+    @Modifying
+    @Query(value = "INSERT INTO daily_revenue_rollup " +
+            "(revenue_date, vendor_id, payment_status, payment_method, payment_count, total_amount, updated_at) " +
+            "SELECT CAST(p.timestamp AS DATE), b.vendor_id, p.payment_status, p.payment_method, COUNT(*), SUM(p.amount), :now " +
+            "FROM payments p JOIN bookings b ON b.booking_id = p.booking_id " +
+            "GROUP BY CAST(p.timestamp AS DATE), b.vendor_id, p.payment_status, p.payment_method", nativeQuery = true)
+    int insertFromPayments(@Param("now") LocalDateTime now);
+
+    @Query("SELECT COALESCE(SUM(r.totalAmount), 0) FROM DailyRevenueRollup r WHERE r.vendorId = :vendorId " +
+            "AND r.paymentStatus = :status AND r.revenueDate >= :from AND r.revenueDate < :to")
+    BigDecimal sumAmountByVendorAndStatusAndDateBetween(
+            @Param("vendorId") Long vendorId,
+            @Param("status") Payment.PaymentStatus status,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    // Single row: total amount for the status, and the part of it dated :day
+    @Query("SELECT COALESCE(SUM(r.totalAmount), 0), " +
+            "COALESCE(SUM(CASE WHEN r.revenueDate = :day THEN r.totalAmount ELSE 0 END), 0) " +
+            "FROM DailyRevenueRollup r WHERE r.paymentStatus = :status")
+    List<Object[]> sumAmountAndDayAmountByStatus(
+            @Param("status") Payment.PaymentStatus status,
+            @Param("day") LocalDate day);
+}
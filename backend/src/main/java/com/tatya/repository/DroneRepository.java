@@ -3,11 +3,14 @@ package com.tatya.repository;
 import com.tatya.entity.Drone;
 import com.tatya.entity.User;
 import com.tatya.entity.Vendor;
+import com.tatya.model.DroneSearchCandidate;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +37,130 @@ public interface DroneRepository extends JpaRepository<Drone, Long> {
         @Param("verifiedStatus") Vendor.VerifiedStatus verifiedStatus
     );
     
+    @Query("SELECT d FROM Drone d LEFT JOIN FETCH d.specifications " +
+           "JOIN FETCH d.vendor v JOIN FETCH v.user u " +
+           "WHERE d.droneId IN :droneIds " +
+           "AND d.status = :status " +
+           "AND u.status = :userStatus " +
+           "AND v.verifiedStatus = :verifiedStatus")
+    List<Drone> findByIdsAndStatusWithSpecifications(
+        @Param("droneIds") Collection<Long> droneIds,
+        @Param("status") Drone.DroneStatus status,
+        @Param("userStatus") User.UserStatus userStatus,
+        @Param("verifiedStatus") Vendor.VerifiedStatus verifiedStatus
+    );
+
+    // Customer drone search: listing columns and service base of drones with an active, verified vendor
+    @Query("SELECT new com.tatya.model.DroneSearchCandidate(d.droneId, d.droneModel, d.droneName, v.vendorId, " +
+           "u.fullName, v.ratingAvg, d.pricePerAcre, d.pricePerHour, d.capacityLiters, d.flightTimeMinutes, " +
+           "d.serviceRadiusKm, d.baseLat, d.baseLng) " +
+           "FROM Drone d JOIN d.vendor v JOIN v.user u " +
+           "WHERE d.status = :status AND u.status = :userStatus AND v.verifiedStatus = :verifiedStatus " +
+           "ORDER BY d.droneId")
+    List<DroneSearchCandidate> findSearchCandidates(
+        @Param("status") Drone.DroneStatus status,
+        @Param("userStatus") User.UserStatus userStatus,
+        @Param("verifiedStatus") Vendor.VerifiedStatus verifiedStatus
+    );
+
+    /**
+     * Search candidates whose service base lies in the bounding box and within the drone's service
+     * radius (defaultRadiusKm when unset) of (lat, lng). The box uses the base index; the
+     * great-circle check then runs on the rows inside it.
+     */
+    @Query("SELECT new com.tatya.model.DroneSearchCandidate(d.droneId, d.droneModel, d.droneName, v.vendorId, " +
+           "u.fullName, v.ratingAvg, d.pricePerAcre, d.pricePerHour, d.capacityLiters, d.flightTimeMinutes, " +
+           "d.serviceRadiusKm, d.baseLat, d.baseLng) " +
+           "FROM Drone d JOIN d.vendor v JOIN v.user u " +
+           "WHERE d.status = :status AND u.status = :userStatus AND v.verifiedStatus = :verifiedStatus " +
+           "AND d.baseLat BETWEEN :minLat AND :maxLat AND d.baseLng BETWEEN :minLng AND :maxLng " +
+           "AND 6371.0 * acos(least(1.0, cos(radians(:lat)) * cos(radians(d.baseLat)) * " +
+           "cos(radians(d.baseLng) - radians(:lng)) + sin(radians(:lat)) * sin(radians(d.baseLat)))) " +
+           "<= CASE WHEN d.serviceRadiusKm > 0 THEN d.serviceRadiusKm ELSE :defaultRadiusKm END")
+    List<DroneSearchCandidate> findSearchCandidatesServing(
+        @Param("status") Drone.DroneStatus status,
+        @Param("userStatus") User.UserStatus userStatus,
+        @Param("verifiedStatus") Vendor.VerifiedStatus verifiedStatus,
+        @Param("lat") double lat,
+        @Param("lng") double lng,
+        @Param("minLat") double minLat,
+        @Param("maxLat") double maxLat,
+        @Param("minLng") double minLng,
+        @Param("maxLng") double maxLng,
+        @Param("defaultRadiusKm") double defaultRadiusKm
+    );
+
+    /**
+     * MySQL spatial variant of {@link #findSearchCandidatesServing}: (drone id, distance in km) of
+     * the serving drones, measured with ST_Distance_Sphere on the mean Earth radius.
+     */
+    @Query(value = "SELECT d.drone_id, ST_Distance_Sphere(POINT(d.base_lng, d.base_lat), POINT(:lng, :lat), 6371000) / 1000 " +
+           "FROM drones d JOIN vendors v ON v.vendor_id = d.vendor_id JOIN users u ON u.id = v.vendor_id " +
+           "WHERE d.status = :status AND u.status = :userStatus AND v.verified_status = :verifiedStatus " +
+           "AND d.base_lat BETWEEN :minLat AND :maxLat AND d.base_lng BETWEEN :minLng AND :maxLng " +
+           "AND ST_Distance_Sphere(POINT(d.base_lng, d.base_lat), POINT(:lng, :lat), 6371000) <= " +
+           "1000 * (CASE WHEN d.service_radius_km > 0 THEN d.service_radius_km ELSE :defaultRadiusKm END)",
+           nativeQuery = true)
+    List<Object[]> findServingDroneIdsSpatial(
+        @Param("status") String status,
+        @Param("userStatus") String userStatus,
+        @Param("verifiedStatus") String verifiedStatus,
+        @Param("lat") double lat,
+        @Param("lng") double lng,
+        @Param("minLat") double minLat,
+        @Param("maxLat") double maxLat,
+        @Param("minLng") double minLng,
+        @Param("maxLng") double maxLng,
+        @Param("defaultRadiusKm") double defaultRadiusKm
+    );
+
+    @Query("SELECT new com.tatya.model.DroneSearchCandidate(d.droneId, d.droneModel, d.droneName, v.vendorId, " +
+           "u.fullName, v.ratingAvg, d.pricePerAcre, d.pricePerHour, d.capacityLiters, d.flightTimeMinutes, " +
+           "d.serviceRadiusKm, d.baseLat, d.baseLng) " +
+           "FROM Drone d JOIN d.vendor v JOIN v.user u WHERE d.droneId IN :droneIds")
+    List<DroneSearchCandidate> findSearchCandidatesByIds(@Param("droneIds") Collection<Long> droneIds);
+
+    @Query("SELECT MAX(d.serviceRadiusKm) FROM Drone d")
+    Double findMaxServiceRadiusKm();
+
+    // Backfill: (drone id, vendor lat, vendor lng, coordinates) of drones without a numeric service base
+    @Query("SELECT d.droneId, v.latitude, v.longitude, d.coordinates FROM Drone d JOIN d.vendor v WHERE d.baseLat IS NULL")
+    List<Object[]> findServiceBaseSourcesWithoutBase();
+
+    @Modifying
+    @Query("UPDATE Drone d SET d.baseLat = :baseLat, d.baseLng = :baseLng WHERE d.droneId = :droneId")
+    int updateServiceBase(@Param("droneId") Long droneId, @Param("baseLat") Double baseLat, @Param("baseLng") Double baseLng);
+
+    // The vendor's coordinates take precedence over each drone's own, so a vendor move re-bases its whole fleet
+    @Modifying
+    @Query("UPDATE Drone d SET d.baseLat = :baseLat, d.baseLng = :baseLng WHERE d.vendor.vendorId = :vendorId")
+    int updateServiceBaseByVendorId(@Param("vendorId") Long vendorId, @Param("baseLat") Double baseLat, @Param("baseLng") Double baseLng);
+
+    // Vendor allocation: (vendor id, lat, lng, declared acres/day of its drones, drones without a declared
+    // figure, shortest lead time in days) per located vendor with drones in the given status
+    @Query("SELECT v.vendorId, v.latitude, v.longitude, " +
+           "SUM(COALESCE(d.maxAcresPerDay, d.acreTargetPerDay, 0)), " +
+           "SUM(CASE WHEN d.maxAcresPerDay IS NULL AND d.acreTargetPerDay IS NULL THEN 1 ELSE 0 END), " +
+           "MIN(COALESCE(d.leadTimeDays, 0)) " +
+           "FROM Drone d JOIN d.vendor v JOIN v.user u " +
+           "WHERE d.status = :status AND u.status = :userStatus AND v.verifiedStatus = :verifiedStatus " +
+           "AND v.latitude IS NOT NULL AND v.longitude IS NOT NULL " +
+           "GROUP BY v.vendorId, v.latitude, v.longitude")
+    List<Object[]> findAllocationCapacityRows(
+        @Param("status") Drone.DroneStatus status,
+        @Param("userStatus") User.UserStatus userStatus,
+        @Param("verifiedStatus") Vendor.VerifiedStatus verifiedStatus
+    );
+
+    // Route planning: (vendor id, drone id, max acres/day, acre target/day, flight minutes, battery swap minutes)
+    @Query("SELECT d.vendor.vendorId, d.droneId, d.maxAcresPerDay, d.acreTargetPerDay, d.flightTimeMinutes, " +
+           "d.batterySwapTimeMinutes FROM Drone d WHERE d.vendor.vendorId IN :vendorIds AND d.status = :status " +
+           "ORDER BY d.vendor.vendorId, d.droneId")
+    List<Object[]> findRoutePlanningRowsByVendorIdIn(
+        @Param("vendorIds") Collection<Long> vendorIds,
+        @Param("status") Drone.DroneStatus status
+    );
+
     @Query("SELECT d FROM Drone d LEFT JOIN FETCH d.specifications")
     List<Drone> findAllWithSpecifications();
     
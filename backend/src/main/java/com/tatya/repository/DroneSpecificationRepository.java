@@ -2,8 +2,11 @@ package com.tatya.repository;
 
 import com.tatya.entity.DroneSpecification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +20,12 @@ public interface DroneSpecificationRepository extends JpaRepository<DroneSpecifi
     Optional<DroneSpecification> findByDrone_DroneIdAndOptionSet(Long droneId, Integer optionSet);
     
     List<DroneSpecification> findByDrone_DroneIdAndIsAvailableTrue(Long droneId);
+
+    // Drone search: (drone id, spec id, option set, tank size, spray width, time per acre) of the available specs
+    @Query("SELECT s.drone.droneId, s.specId, s.optionSet, s.tankSizeLiters, s.sprayWidthMeters, s.timePerAcreMinutes " +
+           "FROM DroneSpecification s WHERE s.drone.droneId IN :droneIds AND s.isAvailable = true " +
+           "ORDER BY s.drone.droneId, s.optionSet")
+    List<Object[]> findAvailableSpecSummariesByDroneIds(@Param("droneIds") Collection<Long> droneIds);
 }
 
 
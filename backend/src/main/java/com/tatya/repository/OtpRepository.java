@@ -8,6 +8,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,6 +18,11 @@ public interface OtpRepository extends JpaRepository<Otp, Long> {
     Optional<Otp> findByPhoneNumberAndOtpCodeAndIsUsedFalse(String phoneNumber, String otpCode);
     
     Optional<Otp> findTopByPhoneNumberOrderByCreatedAtDesc(String phoneNumber);
+
+    // (phone number, code) of the latest OTP of each given phone number
+    @Query("SELECT o.phoneNumber, o.otpCode FROM Otp o WHERE o.phoneNumber IN :phoneNumbers " +
+           "AND o.createdAt = (SELECT MAX(o2.createdAt) FROM Otp o2 WHERE o2.phoneNumber = o.phoneNumber)")
+    List<Object[]> findLatestCodesByPhoneNumberIn(@Param("phoneNumbers") Collection<String> phoneNumbers);
     
     @Modifying
     @Query("UPDATE Otp o SET o.isUsed = true WHERE o.phoneNumber = :phoneNumber AND o.isUsed = false")
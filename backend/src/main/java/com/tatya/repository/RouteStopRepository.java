@@ -0,0 +1,16 @@
+package com.tatya.repository;
+
+import com.tatya.entity.RouteStop;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RouteStopRepository extends JpaRepository<RouteStop, Long> {
+
+    List<RouteStop> findByClusterIdOrderBySequenceAsc(Long clusterId);
+
+    List<RouteStop> findByVendorIdAndServiceDateOrderByPlannedStartAsc(Long vendorId, LocalDate serviceDate);
+}
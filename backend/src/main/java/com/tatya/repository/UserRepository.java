@@ -1,6 +1,8 @@
 package com.tatya.repository;
 
+import com.tatya.dto.AdminUserResponse;
 import com.tatya.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -36,10 +38,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Count all users excluding admins
     @Query("SELECT COUNT(u) FROM User u WHERE u.role != 'ADMIN'")
     long countAllNonAdminUsers();
-}
-
-
-
-
-
 
+    // One row per (role, status) with its user count
+    @Query("SELECT u.role, u.status, COUNT(u) FROM User u GROUP BY u.role, u.status")
+    List<Object[]> countByRoleAndStatus();
+
+    /**
+     * Admin user listing rows (admins excluded) with id greater than afterId, ordered by id.
+     * Null filters are ignored; search is a lower-case LIKE pattern (escape character !).
+     */
+    @Query("SELECT new com.tatya.dto.AdminUserResponse(u.id, u.phone, u.email, u.fullName, u.status, u.role, u.createdAt) " +
+           "FROM User u " +
+           "WHERE u.id > :afterId AND u.role != 'ADMIN' " +
+           "AND (:role IS NULL OR u.role = :role) " +
+           "AND (:status IS NULL OR u.status = :status) " +
+           "AND (:search IS NULL OR LOWER(u.fullName) LIKE :search ESCAPE '!' OR u.phone LIKE :search ESCAPE '!') " +
+           "ORDER BY u.id")
+    List<AdminUserResponse> findAdminRowsAfter(
+            @Param("afterId") Long afterId,
+            @Param("role") User.UserRole role,
+            @Param("status") User.UserStatus status,
+            @Param("search") String search,
+            Pageable page);
+}
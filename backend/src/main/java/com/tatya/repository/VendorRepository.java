@@ -1,7 +1,13 @@
 package com.tatya.repository;
 
+import com.tatya.dto.AdminVendorResponse;
+import com.tatya.entity.User;
 import com.tatya.entity.Vendor;
+import com.tatya.model.VendorDroneExportRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -15,11 +21,50 @@ public interface VendorRepository extends JpaRepository<Vendor, Long> {
 
     Optional<Vendor> findByUser_Id(Long userId);
 
+    @Query("SELECT v.verifiedStatus FROM Vendor v WHERE v.vendorId = :vendorId")
+    Optional<Vendor.VerifiedStatus> findVerifiedStatusByVendorId(@Param("vendorId") Long vendorId);
+
     boolean existsByUser_Phone(String phone);
 
     boolean existsByUser_Email(String email);
 
-    List<Vendor> findByLatitudeBetweenAndLongitudeBetween(
-            java.math.BigDecimal minLat, java.math.BigDecimal maxLat,
-            java.math.BigDecimal minLon, java.math.BigDecimal maxLon);
+    // One row per (verified status, user status) with its vendor count; user status is null for vendors without a user
+    @Query("SELECT v.verifiedStatus, u.status, COUNT(v) FROM Vendor v LEFT JOIN v.user u GROUP BY v.verifiedStatus, u.status")
+    List<Object[]> countByVerifiedStatusAndUserStatus();
+
+    /**
+     * Export rows after the keyset (afterVendorId, afterDroneId), ordered by vendor then drone.
+     * A vendor without drones yields one row with null drone columns; pass Long.MAX_VALUE as
+     * afterDroneId when the previous page ended on such a row (or to start after a whole vendor).
+     */
+    @Query("SELECT new com.tatya.model.VendorDroneExportRow(v.vendorId, u.fullName, u.email, u.phone, u.status, " +
+           "v.verifiedStatus, v.ratingAvg, d.droneId, d.droneModel, d.droneName, d.brand, d.equipmentType, d.status, " +
+           "d.pricePerHour, d.pricePerAcre) " +
+           "FROM Vendor v JOIN v.user u LEFT JOIN Drone d ON d.vendor = v " +
+           "WHERE v.vendorId > :afterVendorId OR (v.vendorId = :afterVendorId AND d.droneId > :afterDroneId) " +
+           "ORDER BY v.vendorId, d.droneId")
+    List<VendorDroneExportRow> findExportRowsAfter(
+            @Param("afterVendorId") Long afterVendorId,
+            @Param("afterDroneId") Long afterDroneId,
+            Pageable page);
+
+    /**
+     * Admin vendor listing rows with id greater than afterId, ordered by id. Null filters are
+     * ignored; search is a lower-case LIKE pattern (escape character !) matched against name and phone.
+     */
+    @Query("SELECT new com.tatya.dto.AdminVendorResponse(v.vendorId, u.fullName, u.email, u.phone, u.status, " +
+           "v.verifiedStatus, v.ratingAvg, u.createdAt, " +
+           "(SELECT COUNT(d) FROM Drone d WHERE d.vendor = v), (SELECT COUNT(b) FROM Booking b WHERE b.vendor = v)) " +
+           "FROM Vendor v JOIN v.user u " +
+           "WHERE v.vendorId > :afterId " +
+           "AND (:verifiedStatus IS NULL OR v.verifiedStatus = :verifiedStatus) " +
+           "AND (:userStatus IS NULL OR u.status = :userStatus) " +
+           "AND (:search IS NULL OR LOWER(u.fullName) LIKE :search ESCAPE '!' OR u.phone LIKE :search ESCAPE '!') " +
+           "ORDER BY v.vendorId")
+    List<AdminVendorResponse> findAdminRowsAfter(
+            @Param("afterId") Long afterId,
+            @Param("verifiedStatus") Vendor.VerifiedStatus verifiedStatus,
+            @Param("userStatus") User.UserStatus userStatus,
+            @Param("search") String search,
+            Pageable page);
 }
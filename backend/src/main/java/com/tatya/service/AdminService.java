@@ -2,20 +2,33 @@ package com.tatya.service;
 
 import com.tatya.dto.*;
 import com.tatya.entity.*;
+import com.tatya.model.AdminDashboardChangedEvent;
+import com.tatya.model.DroneFleetChangedEvent;
 import com.tatya.repository.*;
+import com.tatya.util.ListingParams;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,14 +45,31 @@ public class AdminService {
     @Value("${app.vendor.password-setup-token-valid-hours:168}")
     private long passwordSetupTokenValidHours;
 
+    @Value("${app.admin.dashboard-stats-ttl-seconds:30}")
+    private long dashboardStatsTtlSeconds;
+
+    @Value("${app.admin.list.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.admin.list.max-page-size:200}")
+    private int maxPageSize;
+
+    private static final int OTP_LOOKUP_CHUNK = 500;
+
+    private volatile DashboardStatsSnapshot dashboardStatsCache;
+
+    // Bumped on every eviction; a snapshot computed across an eviction is not stored
+    private final AtomicLong dashboardStatsGeneration = new AtomicLong();
+
     private final UserRepository userRepository;
     private final VendorRepository vendorRepository;
     private final BookingRepository bookingRepository;
-    private final PaymentRepository paymentRepository;
     private final DroneRepository droneRepository;
     private final OtpRepository otpRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final RevenueRollupService revenueRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     private String generateTemporaryPassword() {
         // Generate a 4-digit numeric password (1000-9999) to be emailed to the vendor
@@ -113,108 +143,145 @@ public class AdminService {
     }
 
     /**
-     * Get dashboard statistics
+     * Get dashboard statistics. Computed from one grouped aggregate per table and served
+     * from a short-lived snapshot, so repeated dashboard refreshes do not hit the database.
      */
     public AdminDashboardStats getDashboardStats() {
+        AdminDashboardStats cached = cachedDashboardStats();
+        AdminDashboardStats stats = new AdminDashboardStats();
+        stats.setTotalOrders(cached.getTotalOrders());
+        stats.setActiveVendors(cached.getActiveVendors());
+        stats.setTotalVendors(cached.getTotalVendors());
+        stats.setActiveUsers(cached.getActiveUsers());
+        stats.setTotalUsers(cached.getTotalUsers());
+        stats.setFinanceToday(cached.getFinanceToday());
+        stats.setTotalCollection(cached.getTotalCollection());
+        return stats;
+    }
+
+    /**
+     * Drops the cached dashboard snapshot once the change that caused the event has committed,
+     * so the next read sees it.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAdminDashboardChanged(AdminDashboardChangedEvent event) {
+        synchronized (dashboardStatsGeneration) {
+            dashboardStatsGeneration.incrementAndGet();
+            dashboardStatsCache = null;
+        }
+    }
+
+    private AdminDashboardStats cachedDashboardStats() {
+        DashboardStatsSnapshot snapshot = dashboardStatsCache;
+        long now = System.currentTimeMillis();
+        if (snapshot != null && now < snapshot.expiresAtMillis) {
+            return snapshot.stats;
+        }
+        long generation = dashboardStatsGeneration.get();
+        AdminDashboardStats stats = computeDashboardStats();
+        synchronized (dashboardStatsGeneration) {
+            if (dashboardStatsGeneration.get() == generation) {
+                dashboardStatsCache = new DashboardStatsSnapshot(stats, now + dashboardStatsTtlSeconds * 1000);
+            }
+        }
+        return stats;
+    }
+
+    private AdminDashboardStats computeDashboardStats() {
         log.info("Fetching admin dashboard statistics");
-        
+
         // Total orders (bookings)
         Long totalOrders = bookingRepository.count();
-        
-        // Total vendors (all vendors in the database)
-        Long totalVendorsCount = vendorRepository.count();
-        
-        // Active vendors (verified and active users) - with null safety
-        Long activeVendors = vendorRepository.findAll().stream()
-                .filter(v -> v != null 
-                        && v.getUser() != null 
-                        && v.getVerifiedStatus() == Vendor.VerifiedStatus.VERIFIED 
-                        && v.getUser().getStatus() == User.UserStatus.ACTIVE)
-                .count();
-        
-        // Debug logging for vendors
-        long verifiedVendors = vendorRepository.findAll().stream()
-                .filter(v -> v != null && v.getVerifiedStatus() == Vendor.VerifiedStatus.VERIFIED)
-                .count();
-        long pendingVendors = vendorRepository.findAll().stream()
-                .filter(v -> v != null && v.getVerifiedStatus() == Vendor.VerifiedStatus.PENDING)
-                .count();
-        long rejectedVendors = vendorRepository.findAll().stream()
-                .filter(v -> v != null && v.getVerifiedStatus() == Vendor.VerifiedStatus.REJECTED)
-                .count();
-        long vendorsWithNullUser = vendorRepository.findAll().stream()
-                .filter(v -> v != null && v.getUser() == null)
-                .count();
-        
+
+        // Vendors grouped by verified status and user status
+        long totalVendorsCount = 0;
+        long activeVendors = 0;
+        long verifiedVendors = 0;
+        long pendingVendors = 0;
+        long rejectedVendors = 0;
+        long vendorsWithNullUser = 0;
+        for (Object[] row : vendorRepository.countByVerifiedStatusAndUserStatus()) {
+            Vendor.VerifiedStatus verifiedStatus = (Vendor.VerifiedStatus) row[0];
+            User.UserStatus userStatus = (User.UserStatus) row[1];
+            long count = ((Number) row[2]).longValue();
+            totalVendorsCount += count;
+            if (verifiedStatus == Vendor.VerifiedStatus.VERIFIED) {
+                verifiedVendors += count;
+                if (userStatus == User.UserStatus.ACTIVE) {
+                    activeVendors += count;
+                }
+            } else if (verifiedStatus == Vendor.VerifiedStatus.PENDING) {
+                pendingVendors += count;
+            } else if (verifiedStatus == Vendor.VerifiedStatus.REJECTED) {
+                rejectedVendors += count;
+            }
+            if (userStatus == null) {
+                vendorsWithNullUser += count;
+            }
+        }
+
         log.info("Vendor counts - Total: {}, Verified: {}, Pending: {}, Rejected: {}, Active (Verified+Active): {}, With Null User: {}", 
                 totalVendorsCount, verifiedVendors, pendingVendors, rejectedVendors, activeVendors, vendorsWithNullUser);
-        
-        // Active users (customers)
-        Long activeUsers = (long) userRepository.findByRoleAndStatus(
-                User.UserRole.CUSTOMER, User.UserStatus.ACTIVE).size();
-        
-        // Total users (all customers regardless of status)
-        // Count all users including admins, vendors, and customers
-        Long totalUsers = userRepository.count();
-        
-        // Debug logging
-        long totalCustomers = userRepository.countByRole(User.UserRole.CUSTOMER);
-        long totalVendorUsers = userRepository.countByRole(User.UserRole.VENDOR);
-        long totalAdmins = userRepository.countByRole(User.UserRole.ADMIN);
-        long totalNonAdminUsers = userRepository.countAllNonAdminUsers();
-        long totalAllUsers = userRepository.count();
-        
+
+        // Users grouped by role and status
+        long totalAllUsers = 0;
+        long activeUsers = 0;
+        long totalCustomers = 0;
+        long totalVendorUsers = 0;
+        long totalAdmins = 0;
+        for (Object[] row : userRepository.countByRoleAndStatus()) {
+            User.UserRole role = (User.UserRole) row[0];
+            User.UserStatus status = (User.UserStatus) row[1];
+            long count = ((Number) row[2]).longValue();
+            totalAllUsers += count;
+            if (role == User.UserRole.CUSTOMER) {
+                totalCustomers += count;
+                if (status == User.UserStatus.ACTIVE) {
+                    activeUsers += count;
+                }
+            } else if (role == User.UserRole.VENDOR) {
+                totalVendorUsers += count;
+            } else if (role == User.UserRole.ADMIN) {
+                totalAdmins += count;
+            }
+        }
+
         log.info("User counts - Customers: {}, Vendor Users: {}, Admins: {}, Non-Admin: {}, Total (All Users): {}", 
-                totalCustomers, totalVendorUsers, totalAdmins, totalNonAdminUsers, totalAllUsers);
-        
-        // Finance today
-        LocalDate today = LocalDate.now();
-        BigDecimal financeToday = paymentRepository.findAll().stream()
-                .filter(p -> p.getTimestamp().toLocalDate().equals(today) 
-                        && p.getPaymentStatus() == Payment.PaymentStatus.PAID)
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        // Total collection
-        BigDecimal totalCollection = paymentRepository.findAll().stream()
-                .filter(p -> p.getPaymentStatus() == Payment.PaymentStatus.PAID)
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
+                totalCustomers, totalVendorUsers, totalAdmins, totalAllUsers - totalAdmins, totalAllUsers);
+
+        // Paid amounts: all time and today, from the daily revenue rollup
+        BigDecimal[] paid = revenueRollupService.paidTotalAndDay(LocalDate.now());
+        BigDecimal totalCollection = paid[0];
+        BigDecimal financeToday = paid[1];
+
         AdminDashboardStats stats = new AdminDashboardStats();
         stats.setTotalOrders(totalOrders);
         stats.setActiveVendors(activeVendors);
         stats.setTotalVendors(totalVendorsCount);
         stats.setActiveUsers(activeUsers);
-        stats.setTotalUsers(totalUsers);
+        stats.setTotalUsers(totalAllUsers);
         stats.setFinanceToday(financeToday != null ? financeToday : BigDecimal.ZERO);
         stats.setTotalCollection(totalCollection != null ? totalCollection : BigDecimal.ZERO);
-        
+
         return stats;
     }
 
+    private static final class DashboardStatsSnapshot {
+        private final AdminDashboardStats stats;
+        private final long expiresAtMillis;
+
+        DashboardStatsSnapshot(AdminDashboardStats stats, long expiresAtMillis) {
+            this.stats = stats;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
     /**
      * Get all vendors with details
      */
     public List<AdminVendorResponse> getAllVendors() {
         log.info("Fetching all vendors for admin");
-        
-        List<Vendor> vendors = vendorRepository.findAll();
-        
-        return vendors.stream()
-                .filter(vendor -> vendor != null && vendor.getUser() != null)
-                .map(vendor -> {
-                    try {
-                        Long totalDrones = droneRepository.countByVendor_VendorId(vendor.getVendorId());
-                        Long totalBookings = (long) bookingRepository.findByVendor_VendorId(vendor.getVendorId()).size();
-                        return AdminVendorResponse.fromVendor(vendor, totalDrones, totalBookings);
-                    } catch (Exception e) {
-                        log.error("Error processing vendor {}: {}", vendor.getVendorId(), e.getMessage());
-                        return null;
-                    }
-                })
-                .filter(response -> response != null)
-                .collect(Collectors.toList());
+        return vendorRepository.findAdminRowsAfter(0L, null, null, null, Pageable.unpaged());
     }
 
     /**
@@ -223,24 +290,23 @@ public class AdminService {
      */
     public List<AdminVendorResponse> getPendingVendors() {
         log.info("Fetching all vendors for approval/rejection page");
-        
-        // Return all vendors (not just pending) so admins can see all statuses
-        List<Vendor> allVendors = vendorRepository.findAll();
-        
-        return allVendors.stream()
-                .filter(v -> v != null && v.getUser() != null)
-                .map(vendor -> {
-                    try {
-                        Long totalDrones = droneRepository.countByVendor_VendorId(vendor.getVendorId());
-                        Long totalBookings = (long) bookingRepository.findByVendor_VendorId(vendor.getVendorId()).size();
-                        return AdminVendorResponse.fromVendor(vendor, totalDrones, totalBookings);
-                    } catch (Exception e) {
-                        log.error("Error processing vendor {}: {}", vendor.getVendorId(), e.getMessage());
-                        return null;
-                    }
-                })
-                .filter(response -> response != null)
-                .collect(Collectors.toList());
+        return vendorRepository.findAdminRowsAfter(0L, null, null, null, Pageable.unpaged());
+    }
+
+    /**
+     * One keyset page of vendors after {@code cursor}, optionally filtered by approval status,
+     * user status and a name/phone search (matched as a literal substring).
+     */
+    public CursorPage<AdminVendorResponse> getVendorsPage(Long cursor, Integer limit, String approval,
+                                                          String status, String search) {
+        int size = ListingParams.pageSize(limit, defaultPageSize, maxPageSize);
+        List<AdminVendorResponse> rows = vendorRepository.findAdminRowsAfter(
+                cursor != null ? cursor : 0L,
+                ListingParams.parseEnum(Vendor.VerifiedStatus.class, approval, "approval"),
+                ListingParams.parseEnum(User.UserStatus.class, status, "status"),
+                searchPattern(search),
+                PageRequest.of(0, size + 1));
+        return CursorPage.fromRows(rows, size, AdminVendorResponse::getVendorId);
     }
 
     /**
@@ -261,6 +327,8 @@ public class AdminService {
         log.info("Vendor current status: {}, requested action: {}", previousStatus, request.getAction());
         
         vendor.setVerifiedStatus(request.getAction());
+        eventPublisher.publishEvent(new AdminDashboardChangedEvent());
+        eventPublisher.publishEvent(new DroneFleetChangedEvent(request.getVendorId()));
         
         // If approved, ensure user is active
         if (request.getAction() == Vendor.VerifiedStatus.VERIFIED) {
@@ -347,6 +415,8 @@ public class AdminService {
         Vendor vendor = vendorOpt.get();
         vendor.getUser().setStatus(User.UserStatus.INACTIVE);
         vendorRepository.save(vendor);
+        eventPublisher.publishEvent(new AdminDashboardChangedEvent());
+        eventPublisher.publishEvent(new DroneFleetChangedEvent(vendorId));
         
         log.info("Vendor {} deactivated successfully", vendorId);
     }
@@ -367,6 +437,8 @@ public class AdminService {
         Vendor vendor = vendorOpt.get();
         vendor.getUser().setStatus(User.UserStatus.ACTIVE);
         vendorRepository.save(vendor);
+        eventPublisher.publishEvent(new AdminDashboardChangedEvent());
+        eventPublisher.publishEvent(new DroneFleetChangedEvent(vendorId));
         
         log.info("Vendor {} reactivated successfully", vendorId);
     }
@@ -395,40 +467,9 @@ public class AdminService {
      */
     public List<AdminUserResponse> getAllUsers() {
         log.info("Fetching all users for admin");
-        
-        // Get all users except admins
-        List<User> allUsers = userRepository.findAll();
-        
-        List<AdminUserResponse> users = allUsers.stream()
-                .filter(user -> user != null && user.getRole() != User.UserRole.ADMIN)
-                .map(user -> {
-                    AdminUserResponse response = AdminUserResponse.fromUser(user);
-                    
-                    // Fetch latest OTP for this user's phone number
-                    try {
-                        Optional<Otp> latestOtp = otpRepository.findTopByPhoneNumberOrderByCreatedAtDesc(user.getPhone());
-                        if (latestOtp.isPresent()) {
-                            response.setOtp(latestOtp.get().getOtpCode());
-                        } else {
-                            response.setOtp(null);
-                        }
-                    } catch (Exception e) {
-                        log.debug("Could not fetch OTP for user {}: {}", user.getId(), e.getMessage());
-                        response.setOtp(null);
-                    }
-                    
-                    // Location is not directly stored in User entity, set to null
-                    response.setLocation(null);
-                    
-                    return response;
-                })
-                .collect(Collectors.toList());
-        
-        log.info("Fetched {} users (excluding {} admins) out of {} total users", 
-                users.size(), 
-                allUsers.stream().filter(u -> u.getRole() == User.UserRole.ADMIN).count(),
-                allUsers.size());
-        
+        List<AdminUserResponse> users = userRepository.findAdminRowsAfter(0L, null, null, null, Pageable.unpaged());
+        fillLatestOtps(users);
+        log.info("Fetched {} users (excluding admins)", users.size());
         return users;
     }
 
@@ -437,27 +478,55 @@ public class AdminService {
      */
     public List<AdminUserResponse> getAllCustomers() {
         log.info("Fetching all customers for admin");
+        List<AdminUserResponse> customers = userRepository.findAdminRowsAfter(
+                0L, User.UserRole.CUSTOMER, null, null, Pageable.unpaged());
+        fillLatestOtps(customers);
+        return customers;
+    }
 
-        List<User> customers = userRepository.findByRole(User.UserRole.CUSTOMER);
-
-        return customers.stream()
-                .filter(user -> user != null)
-                .map(user -> {
-                    AdminUserResponse response = AdminUserResponse.fromUser(user);
-
-                    // Fetch latest OTP for this customer's phone number
-                    try {
-                        Optional<Otp> latestOtp = otpRepository.findTopByPhoneNumberOrderByCreatedAtDesc(user.getPhone());
-                        response.setOtp(latestOtp.map(Otp::getOtpCode).orElse(null));
-                    } catch (Exception e) {
-                        log.debug("Could not fetch OTP for user {}: {}", user.getId(), e.getMessage());
-                        response.setOtp(null);
-                    }
-
-                    response.setLocation(null);
-                    return response;
-                })
-                .collect(Collectors.toList());
+    /**
+     * One keyset page of users (admins excluded) after {@code cursor}, optionally filtered by
+     * role, status and a name/phone search.
+     */
+    public CursorPage<AdminUserResponse> getUsersPage(Long cursor, Integer limit, String role,
+                                                      String status, String search) {
+        int size = ListingParams.pageSize(limit, defaultPageSize, maxPageSize);
+        List<AdminUserResponse> rows = userRepository.findAdminRowsAfter(
+                cursor != null ? cursor : 0L,
+                ListingParams.parseEnum(User.UserRole.class, role, "role"),
+                ListingParams.parseEnum(User.UserStatus.class, status, "status"),
+                searchPattern(search),
+                PageRequest.of(0, size + 1));
+        CursorPage<AdminUserResponse> page = CursorPage.fromRows(rows, size, AdminUserResponse::getId);
+        fillLatestOtps(page.getItems());
+        return page;
+    }
+
+    /** Sets each user's latest OTP with one query for the whole list. */
+    private void fillLatestOtps(List<AdminUserResponse> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Set<String> phones = users.stream().map(AdminUserResponse::getPhone).collect(Collectors.toSet());
+        Map<String, String> latestCodes = new HashMap<>();
+        // Chunked so the IN list stays a reasonable size for the unpaged listings
+        List<String> phoneList = new ArrayList<>(phones);
+        for (int from = 0; from < phoneList.size(); from += OTP_LOOKUP_CHUNK) {
+            List<String> chunk = phoneList.subList(from, Math.min(from + OTP_LOOKUP_CHUNK, phoneList.size()));
+            for (Object[] row : otpRepository.findLatestCodesByPhoneNumberIn(chunk)) {
+                latestCodes.put((String) row[0], (String) row[1]);
+            }
+        }
+        users.forEach(user -> user.setOtp(latestCodes.get(user.getPhone())));
+    }
+
+    private static String searchPattern(String search) {
+        if (search == null || search.isBlank()) {
+            return null;
+        }
+        String escaped = search.trim().toLowerCase()
+                .replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return "%" + escaped + "%";
     }
 
     /**
@@ -481,6 +550,10 @@ public class AdminService {
         }
         
         userRepository.delete(user);
+        eventPublisher.publishEvent(new AdminDashboardChangedEvent());
+        // A vendor shares its user's id; other users own no drones
+        Long vendorId = user.getRole() == User.UserRole.VENDOR ? userId : null;
+        eventPublisher.publishEvent(new DroneFleetChangedEvent(vendorId));
         log.info("User {} deleted successfully", userId);
     }
 
@@ -504,18 +577,12 @@ public class AdminService {
      */
     public AdminDashboardStats getFinanceStats() {
         log.info("Fetching finance statistics");
-        
-        Long totalOrders = bookingRepository.count();
-        
-        BigDecimal totalCollection = paymentRepository.findAll().stream()
-                .filter(p -> p.getPaymentStatus() == Payment.PaymentStatus.PAID)
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
+
+        AdminDashboardStats cached = cachedDashboardStats();
         AdminDashboardStats stats = new AdminDashboardStats();
-        stats.setTotalOrders(totalOrders);
-        stats.setTotalCollection(totalCollection != null ? totalCollection : BigDecimal.ZERO);
-        
+        stats.setTotalOrders(cached.getTotalOrders());
+        stats.setTotalCollection(cached.getTotalCollection());
+
         return stats;
     }
 }
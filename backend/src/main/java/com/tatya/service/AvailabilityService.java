@@ -1,41 +1,419 @@
 package com.tatya.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tatya.entity.Availability;
+import com.tatya.entity.AvailabilityRule;
+import com.tatya.entity.Drone;
 import com.tatya.repository.AvailabilityRepository;
+import com.tatya.repository.AvailabilityRuleRepository;
+import com.tatya.repository.BookedSlotRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
+/**
+ * Drone availability.
+ *
+ * Drones with an AvailabilityRule get their free slots computed from the rule minus booked
+ * Availability rows; nothing is stored for a free slot. Drones onboarded before rules existed
+ * still have one materialised row per day and slot and are read the old way until their
+ * step 5 is saved again, which converts them.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AvailabilityService {
-    
+
+    private static final int DEFAULT_WINDOW_DAYS = 365;
+
     private final AvailabilityRepository availabilityRepository;
-    
+    private final AvailabilityRuleRepository availabilityRuleRepository;
+    private final BookedSlotRepository bookedSlotRepository;
+    private final ObjectMapper objectMapper;
+
     public List<Availability> getAvailabilitiesByDroneId(Long droneId) {
         return availabilityRepository.findByDrone_DroneId(droneId);
     }
-    
+
     public List<Availability> getAvailableSlotsByDroneId(Long droneId) {
-        return availabilityRepository.findByDrone_DroneIdAndIsBookedFalse(droneId);
+        Optional<AvailabilityRule> rule = availabilityRuleRepository.findByDrone_DroneId(droneId);
+        if (rule.isEmpty()) {
+            return availabilityRepository.findByDrone_DroneIdAndIsBookedFalse(droneId);
+        }
+        return freeSlots(rule.get(), LocalDate.now(), rule.get().getEndDate());
     }
-    
+
     public List<LocalDate> getAvailableDatesByDroneId(Long droneId) {
         LocalDate today = LocalDate.now();
-        return availabilityRepository.findAvailableDatesByDroneId(droneId, today);
+        Optional<AvailabilityRule> rule = availabilityRuleRepository.findByDrone_DroneId(droneId);
+        if (rule.isEmpty()) {
+            return availabilityRepository.findAvailableDatesByDroneId(droneId, today);
+        }
+        return freeSlots(rule.get(), today, rule.get().getEndDate()).stream()
+                .map(Availability::getAvailableDate)
+                .distinct()
+                .collect(Collectors.toList());
     }
-    
+
     public List<Availability> getAvailableSlotsByDroneIdAndDate(Long droneId, LocalDate date) {
-        return availabilityRepository.findAvailableSlotsByDroneIdAndDate(droneId, date);
+        Optional<AvailabilityRule> rule = availabilityRuleRepository.findByDrone_DroneId(droneId);
+        if (rule.isEmpty()) {
+            return availabilityRepository.findAvailableSlotsByDroneIdAndDate(droneId, date);
+        }
+        return freeSlots(rule.get(), date, date);
     }
-}
 
+    public enum SlotReservation {
+        RESERVED,        // the slot is now booked by this call
+        ALREADY_BOOKED,  // the slot exists in the drone's schedule but someone else holds it
+        NOT_OFFERED      // the drone's schedule has no such slot on that date
+    }
+
+    /**
+     * Books a slot with conditional writes whose row count decides the outcome, so two
+     * concurrent bookings can never both get the same slot. A stored free row is flipped with
+     * an UPDATE ... WHERE is_booked = false; a rule slot is claimed by inserting its booked row
+     * against the unique (drone, date, slot) key.
+     */
+    @Transactional
+    public SlotReservation reserveSlot(Long droneId, LocalDate date, LocalTime startTime, LocalTime endTime) {
+        if (availabilityRepository.reserveFreeSlot(droneId, date, startTime, endTime) == 1) {
+            return SlotReservation.RESERVED;
+        }
+
+        Optional<AvailabilityRule> rule = availabilityRuleRepository.findByDrone_DroneId(droneId);
+        if (rule.isPresent() && offers(rule.get(), date, startTime, endTime)) {
+            AvailabilityRule r = rule.get();
+            try {
+                bookedSlotRepository.insertBookedSlot(droneId, date, r.getStartDate(), r.getEndDate(),
+                        startTime, endTime);
+                return SlotReservation.RESERVED;
+            } catch (DuplicateKeyException e) {
+                // Another booking holds the slot
+                return SlotReservation.ALREADY_BOOKED;
+            }
+        }
+
+        return availabilityRepository
+                .findFirstByDrone_DroneIdAndAvailableDateAndStartTimeAndEndTimeAndIsBookedTrue(droneId, date, startTime, endTime)
+                .isPresent() ? SlotReservation.ALREADY_BOOKED : SlotReservation.NOT_OFFERED;
+    }
+
+    /**
+     * Frees a booked slot. For rule-based drones the booked row is only an exception to the
+     * rule, so it is deleted; legacy rows are flipped back to free.
+     */
+    @Transactional
+    public void releaseSlot(Long droneId, LocalDate date, LocalTime startTime, LocalTime endTime) {
+        availabilityRepository
+                .findFirstByDrone_DroneIdAndAvailableDateAndStartTimeAndEndTimeAndIsBookedTrue(droneId, date, startTime, endTime)
+                .ifPresent(slot -> {
+                    if (availabilityRuleRepository.findByDrone_DroneId(droneId).isPresent()) {
+                        availabilityRepository.delete(slot);
+                    } else {
+                        slot.setIsBooked(false);
+                        availabilityRepository.save(slot);
+                    }
+                });
+    }
+
+    /**
+     * At most one Availability carrying the drone's availability start and end date, which is
+     * all the onboarding and profile responses read from the availability list.
+     */
+    public List<Availability> getAvailabilityWindow(Long droneId) {
+        Optional<AvailabilityRule> rule = availabilityRuleRepository.findByDrone_DroneId(droneId);
+        if (rule.isPresent()) {
+            AvailabilityRule r = rule.get();
+            TimeSlot first = parseSlots(r.getTimeSlots()).get(0);
+            return List.of(new Availability(null, r.getDrone(), r.getStartDate(), r.getStartDate(), r.getEndDate(),
+                    first.startTime, first.endTime, false, null));
+        }
+        return availabilityRepository.findFirstByDrone_DroneIdOrderByIdAsc(droneId)
+                .map(List::of)
+                .orElse(Collections.emptyList());
+    }
+
+    /**
+     * Creates or moves the drone's availability rule to start at {@code startDate}, taking
+     * operational days, months and time batches from the drone. The end date is kept unless it
+     * is missing or before the new start, in which case the window becomes one year. Free rows
+     * left from the materialised calendar are dropped; booked rows stay as exceptions.
+     */
+    @Transactional
+    public AvailabilityRule saveRule(Drone drone, LocalDate startDate) {
+        AvailabilityRule rule = availabilityRuleRepository.findByDrone_DroneId(drone.getDroneId())
+                .orElseGet(AvailabilityRule::new);
+
+        LocalDate endDate = rule.getEndDate();
+        if (endDate == null) {
+            // Converting a drone with a materialised calendar: carry its end date over
+            endDate = availabilityRepository.findFirstByDrone_DroneIdOrderByIdAsc(drone.getDroneId())
+                    .map(Availability::getEndDate)
+                    .orElse(null);
+        }
+        if (endDate == null || endDate.isBefore(startDate)) {
+            endDate = startDate.plusDays(DEFAULT_WINDOW_DAYS);
+        }
+
+        rule.setDrone(drone);
+        rule.setStartDate(startDate);
+        rule.setEndDate(endDate);
+        applyDroneSchedule(rule, drone);
+        AvailabilityRule saved = availabilityRuleRepository.save(rule);
+
+        int dropped = availabilityRepository.deleteFreeSlotsByDroneId(drone.getDroneId());
+        log.info("Availability rule for drone {}: {} to {}, slots {} ({} materialised free slots dropped)",
+                drone.getDroneId(), startDate, endDate, saved.getTimeSlots(), dropped);
+        return saved;
+    }
+
+    /**
+     * Re-reads the drone's operational days, months and time batches into its rule and applies
+     * a new start and/or end date when given. Drones without a rule get the dates written onto
+     * their materialised rows instead.
+     */
+    @Transactional
+    public void refreshRule(Drone drone, LocalDate startDate, LocalDate endDate) {
+        Optional<AvailabilityRule> existing = availabilityRuleRepository.findByDrone_DroneId(drone.getDroneId());
+        if (existing.isEmpty()) {
+            if (startDate != null || endDate != null) {
+                availabilityRepository.updateWindowByDroneId(drone.getDroneId(), startDate, endDate);
+            }
+            return;
+        }
+        AvailabilityRule rule = existing.get();
+        if (startDate != null) {
+            rule.setStartDate(startDate);
+        }
+        if (endDate != null) {
+            rule.setEndDate(endDate);
+        }
+        applyDroneSchedule(rule, drone);
+        availabilityRuleRepository.save(rule);
+    }
+
+    private List<Availability> freeSlots(AvailabilityRule rule, LocalDate from, LocalDate to) {
+        LocalDate start = from.isBefore(rule.getStartDate()) ? rule.getStartDate() : from;
+        LocalDate end = to.isAfter(rule.getEndDate()) ? rule.getEndDate() : to;
+        if (start.isAfter(end)) {
+            return Collections.emptyList();
+        }
+
+        List<TimeSlot> slots = parseSlots(rule.getTimeSlots());
+        Map<LocalDate, List<Availability>> bookedByDate = new HashMap<>();
+        for (Availability booked : availabilityRepository.findByDrone_DroneIdAndIsBookedTrueAndAvailableDateBetween(
+                rule.getDrone().getDroneId(), start, end)) {
+            bookedByDate.computeIfAbsent(booked.getAvailableDate(), d -> new ArrayList<>()).add(booked);
+        }
+
+        List<Availability> free = new ArrayList<>();
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            if (!operatesOn(rule, date)) {
+                continue;
+            }
+            List<Availability> booked = bookedByDate.getOrDefault(date, Collections.emptyList());
+            for (TimeSlot slot : slots) {
+                boolean taken = booked.stream().anyMatch(b ->
+                        b.getStartTime().equals(slot.startTime) && b.getEndTime().equals(slot.endTime));
+                if (!taken) {
+                    free.add(new Availability(null, rule.getDrone(), date, rule.getStartDate(), rule.getEndDate(),
+                            slot.startTime, slot.endTime, false, null));
+                }
+            }
+        }
+        return free;
+    }
+
+    private static boolean offers(AvailabilityRule rule, LocalDate date, LocalTime startTime, LocalTime endTime) {
+        if (date.isBefore(rule.getStartDate()) || date.isAfter(rule.getEndDate()) || !operatesOn(rule, date)) {
+            return false;
+        }
+        return parseSlots(rule.getTimeSlots()).stream()
+                .anyMatch(s -> s.startTime.equals(startTime) && s.endTime.equals(endTime));
+    }
+
+    private static boolean operatesOn(AvailabilityRule rule, LocalDate date) {
+        int days = rule.getDaysMask();
+        int months = rule.getMonthsMask();
+        return (days == 0 || (days & (1 << (date.getDayOfWeek().getValue() - 1))) != 0)
+                && (months == 0 || (months & (1 << (date.getMonthValue() - 1))) != 0);
+    }
+
+    private void applyDroneSchedule(AvailabilityRule rule, Drone drone) {
+        int days = 0;
+        for (String name : readList(drone.getOperationalDays())) {
+            for (DayOfWeek d : DayOfWeek.values()) {
+                if (matchesName(d.name(), name)) {
+                    days |= 1 << (d.getValue() - 1);
+                }
+            }
+        }
+        int months = 0;
+        for (String name : readList(drone.getOperationalMonths())) {
+            for (Month m : Month.values()) {
+                if (matchesName(m.name(), name)) {
+                    months |= 1 << (m.getValue() - 1);
+                }
+            }
+        }
+        rule.setDaysMask(days);
+        rule.setMonthsMask(months);
+        rule.setTimeSlots(parseTimeBatches(readList(drone.getTimeBatches())).stream()
+                .map(s -> s.startTime + "-" + s.endTime)
+                .collect(Collectors.joining(",")));
+    }
+
+    // "Monday", "monday" and "Mon" all match MONDAY
+    private static boolean matchesName(String enumName, String value) {
+        String v = value.trim().toUpperCase();
+        return v.length() >= 3 && enumName.startsWith(v);
+    }
+
+    /**
+     * Drone list fields are stored as a JSON array, or comma-separated when serialisation
+     * failed or the value came straight from the profile form.
+     */
+    private List<String> readList(String stored) {
+        if (stored == null || stored.isBlank()) {
+            return Collections.emptyList();
+        }
+        try {
+            return objectMapper.readValue(stored, new TypeReference<List<String>>() {});
+        } catch (Exception e) {
+            List<String> values = new ArrayList<>();
+            for (String part : stored.split(",")) {
+                if (!part.isBlank()) {
+                    values.add(part.trim());
+                }
+            }
+            return values;
+        }
+    }
+
+    private static List<TimeSlot> parseSlots(String stored) {
+        List<TimeSlot> slots = new ArrayList<>();
+        for (String part : stored.split(",")) {
+            String[] times = part.split("-");
+            slots.add(new TimeSlot(LocalTime.parse(times[0]), LocalTime.parse(times[1])));
+        }
+        return slots;
+    }
 
+    /**
+     * Parse time batches into time slots
+     * Supports formats like "morning", "afternoon", "evening" or "06:00-10:00"
+     */
+    private List<TimeSlot> parseTimeBatches(List<String> timeBatches) {
+        List<TimeSlot> slots = new ArrayList<>();
 
+        if (timeBatches == null || timeBatches.isEmpty()) {
+            // Default time slots if none provided
+            slots.add(new TimeSlot(LocalTime.of(6, 0), LocalTime.of(10, 0)));
+            slots.add(new TimeSlot(LocalTime.of(10, 0), LocalTime.of(14, 0)));
+            slots.add(new TimeSlot(LocalTime.of(14, 0), LocalTime.of(18, 0)));
+            return slots;
+        }
 
+        for (String batch : timeBatches) {
+            if (batch == null || batch.trim().isEmpty()) {
+                continue;
+            }
 
+            String lowerBatch = batch.toLowerCase().trim();
 
+            // Handle named batches
+            if (lowerBatch.contains("morning")) {
+                slots.add(new TimeSlot(LocalTime.of(6, 0), LocalTime.of(11, 0)));
+            } else if (lowerBatch.contains("afternoon")) {
+                slots.add(new TimeSlot(LocalTime.of(11, 0), LocalTime.of(17, 0)));
+            } else if (lowerBatch.contains("evening")) {
+                slots.add(new TimeSlot(LocalTime.of(17, 0), LocalTime.of(20, 0)));
+            } else if (lowerBatch.contains("night")) {
+                slots.add(new TimeSlot(LocalTime.of(20, 0), LocalTime.of(22, 0)));
+            } else if (batch.contains("-") || batch.contains("to")) {
+                // Parse time range like "06:00-10:00" or "06:00 to 10:00"
+                try {
+                    String[] parts = batch.split("[-to]");
+                    if (parts.length == 2) {
+                        LocalTime start = parseTime(parts[0].trim());
+                        LocalTime end = parseTime(parts[1].trim());
+                        if (start != null && end != null) {
+                            slots.add(new TimeSlot(start, end));
+                        }
+                    }
+                } catch (Exception e) {
+                    log.warn("Could not parse time batch: {}", batch, e);
+                }
+            }
+        }
+
+        // If no valid slots were parsed, use defaults
+        if (slots.isEmpty()) {
+            slots.add(new TimeSlot(LocalTime.of(6, 0), LocalTime.of(10, 0)));
+            slots.add(new TimeSlot(LocalTime.of(10, 0), LocalTime.of(14, 0)));
+            slots.add(new TimeSlot(LocalTime.of(14, 0), LocalTime.of(18, 0)));
+        }
+
+        return slots;
+    }
+
+    /**
+     * Parse time string to LocalTime
+     * Supports formats like "06:00", "6:00 AM", "18:00"
+     */
+    private LocalTime parseTime(String timeStr) {
+        try {
+            timeStr = timeStr.trim().toUpperCase();
+
+            // Remove AM/PM and handle 12-hour format
+            boolean isPM = timeStr.contains("PM");
+            timeStr = timeStr.replaceAll("(AM|PM)", "").trim();
+
+            String[] parts = timeStr.split(":");
+            if (parts.length >= 2) {
+                int hour = Integer.parseInt(parts[0]);
+                int minute = Integer.parseInt(parts[1]);
+
+                if (isPM && hour != 12) {
+                    hour += 12;
+                } else if (!isPM && hour == 12) {
+                    hour = 0;
+                }
+
+                return LocalTime.of(hour, minute);
+            }
+        } catch (Exception e) {
+            log.warn("Could not parse time: {}", timeStr, e);
+        }
+        return null;
+    }
+
+    /**
+     * Helper class for time slots
+     */
+    private static class TimeSlot {
+        LocalTime startTime;
+        LocalTime endTime;
+
+        TimeSlot(LocalTime startTime, LocalTime endTime) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package com.tatya.service;
 
 import com.tatya.dto.BookingRequest;
+import com.tatya.dto.BookingResponse;
+import com.tatya.dto.BookingSummaryResponse;
+import com.tatya.dto.CursorPage;
 import com.tatya.entity.*;
 import com.tatya.exception.VendorKycPendingException;
 import com.tatya.exception.VendorRejectedException;
+import com.tatya.model.VendorDashboardChangedEvent;
 import com.tatya.repository.BookingRepository;
 import com.tatya.repository.DroneRepository;
 import com.tatya.repository.UserRepository;
-import com.tatya.repository.AvailabilityRepository;
 import com.tatya.repository.DroneSpecificationRepository;
 import com.tatya.repository.VendorRepository;
 import com.tatya.repository.PaymentRepository;
+import com.tatya.util.ListingParams;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,17 +34,25 @@ import java.math.BigDecimal;
 @Slf4j
 public class BookingService {
 
+    @Value("${app.bookings.history.default-page-size:20}")
+    private int historyDefaultPageSize;
+
+    @Value("${app.bookings.history.max-page-size:100}")
+    private int historyMaxPageSize;
+
     private final BookingRepository bookingRepository;
     private final DroneRepository droneRepository;
     private final UserRepository userRepository;
-    private final AvailabilityRepository availabilityRepository;
     private final DroneSpecificationRepository droneSpecificationRepository;
     private final VendorRepository vendorRepository;
     private final PaymentRepository paymentRepository;
     private final EmailService emailService;
+    private final AvailabilityService availabilityService;
+    private final RevenueRollupService revenueRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
-    public Booking createBooking(BookingRequest request) {
+    public BookingResponse createBooking(BookingRequest request) {
         log.info("Creating booking for customer {} and drone {}", request.getCustomerId(), request.getDroneId());
 
         // Fetch customer
@@ -69,28 +84,18 @@ public class BookingService {
             }
         }
 
-        // Check if availability slot exists and is available
-        List<Availability> availableSlots = availabilityRepository
-                .findAvailableSlotsByDroneIdAndDate(request.getDroneId(), request.getServiceDate());
-
-        boolean slotFound = false;
-        for (Availability slot : availableSlots) {
-            if (!slot.getIsBooked() &&
-                    slot.getStartTime().equals(request.getStartTime()) &&
-                    slot.getEndTime().equals(request.getEndTime())) {
-                slotFound = true;
-                // Mark slot as booked
-                slot.setIsBooked(true);
-                availabilityRepository.save(slot);
-                break;
-            }
+        // Reserve the slot atomically; a slot that is already taken or not in the drone's
+        // schedule fails the booking instead of double-booking the drone
+        AvailabilityService.SlotReservation reservation = availabilityService.reserveSlot(
+                request.getDroneId(), request.getServiceDate(), request.getStartTime(), request.getEndTime());
+        if (reservation == AvailabilityService.SlotReservation.ALREADY_BOOKED) {
+            throw new RuntimeException("Selected slot is already booked. Please choose another slot.");
         }
-
-        if (!slotFound) {
+        if (reservation == AvailabilityService.SlotReservation.NOT_OFFERED) {
             log.warn("No available slot found for drone {} on {} from {} to {}",
                     request.getDroneId(), request.getServiceDate(),
                     request.getStartTime(), request.getEndTime());
-            // Still create booking but log warning
+            throw new RuntimeException("Selected slot is not available for this drone. Please choose another slot.");
         }
 
         // Create booking
@@ -131,12 +136,10 @@ public class BookingService {
                 savedBooking.getDrone().getDroneModel(),
                 savedBooking.getSpecification() != null ? "Option Set " + savedBooking.getSpecification().getOptionSet()
                         : "None");
+        eventPublisher.publishEvent(new VendorDashboardChangedEvent(vendor.getVendorId()));
 
-        // Ensure drone and specification are loaded
-        savedBooking = bookingRepository.findById(savedBooking.getBookingId())
-                .orElse(savedBooking);
-
-        return savedBooking;
+        // Customer, drone and specification were loaded above and are still attached
+        return BookingResponse.fromBooking(savedBooking);
     }
 
     public List<Booking> getBookingsByCustomerId(Long customerId) {
@@ -144,15 +147,48 @@ public class BookingService {
     }
 
     public List<Booking> getBookingsByVendorId(Long vendorId) {
-        Vendor vendor = vendorRepository.findById(vendorId)
+        requireVerifiedVendor(vendorId);
+        return bookingRepository.findByVendor_VendorId(vendorId);
+    }
+
+    /**
+     * One page of a customer's booking history, newest first. {@code cursor} is the nextCursor
+     * of the previous page; status and the service date range are optional filters.
+     */
+    public CursorPage<BookingSummaryResponse> getCustomerBookingPage(Long customerId, Long cursor, Integer limit,
+                                                                     String status, LocalDate from, LocalDate to) {
+        int size = ListingParams.pageSize(limit, historyDefaultPageSize, historyMaxPageSize);
+        List<BookingSummaryResponse> rows = bookingRepository.findCustomerSummariesBefore(
+                customerId, cursor != null ? cursor : Long.MAX_VALUE,
+                ListingParams.parseEnum(Booking.BookingStatus.class, status, "status"), from, to,
+                PageRequest.of(0, size + 1));
+        return CursorPage.fromRows(rows, size, BookingSummaryResponse::getBookingId);
+    }
+
+    /**
+     * One page of a vendor's booking history, newest first; same parameters as
+     * {@link #getCustomerBookingPage}. The vendor must be KYC verified.
+     */
+    public CursorPage<BookingSummaryResponse> getVendorBookingPage(Long vendorId, Long cursor, Integer limit,
+                                                                   String status, LocalDate from, LocalDate to) {
+        requireVerifiedVendor(vendorId);
+        int size = ListingParams.pageSize(limit, historyDefaultPageSize, historyMaxPageSize);
+        List<BookingSummaryResponse> rows = bookingRepository.findVendorSummariesBefore(
+                vendorId, cursor != null ? cursor : Long.MAX_VALUE,
+                ListingParams.parseEnum(Booking.BookingStatus.class, status, "status"), from, to,
+                PageRequest.of(0, size + 1));
+        return CursorPage.fromRows(rows, size, BookingSummaryResponse::getBookingId);
+    }
+
+    private void requireVerifiedVendor(Long vendorId) {
+        Vendor.VerifiedStatus verifiedStatus = vendorRepository.findVerifiedStatusByVendorId(vendorId)
                 .orElseThrow(() -> new RuntimeException("Vendor not found with ID: " + vendorId));
-        if (vendor.getVerifiedStatus() == Vendor.VerifiedStatus.REJECTED) {
+        if (verifiedStatus == Vendor.VerifiedStatus.REJECTED) {
             throw new VendorRejectedException("Your KYC was rejected. Please contact support.");
         }
-        if (vendor.getVerifiedStatus() != Vendor.VerifiedStatus.VERIFIED) {
+        if (verifiedStatus != Vendor.VerifiedStatus.VERIFIED) {
             throw new VendorKycPendingException("KYC under processing. Please wait for admin approval.");
         }
-        return bookingRepository.findByVendor_VendorId(vendorId);
     }
 
     public List<Booking> getBookingsByDroneId(Long droneId) {
@@ -164,50 +200,30 @@ public class BookingService {
     }
 
     @Transactional
-    public Booking updateBooking(Long bookingId, com.tatya.dto.UpdateBookingRequest request) {
+    public BookingResponse updateBooking(Long bookingId, com.tatya.dto.UpdateBookingRequest request) {
         log.info("Updating booking {}", bookingId);
 
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found with ID: " + bookingId));
 
         // Free the old availability slot
-        List<Availability> oldSlots = availabilityRepository
-                .findAvailableSlotsByDroneIdAndDate(booking.getDrone().getDroneId(), booking.getServiceDate());
-
-        for (Availability slot : oldSlots) {
-            if (slot.getStartTime().equals(booking.getStartTime()) &&
-                    slot.getEndTime().equals(booking.getEndTime()) &&
-                    slot.getIsBooked()) {
-                slot.setIsBooked(false);
-                availabilityRepository.save(slot);
-                log.info("Freed old availability slot for booking {}", bookingId);
-                break;
-            }
+        availabilityService.releaseSlot(booking.getDrone().getDroneId(), booking.getServiceDate(),
+                booking.getStartTime(), booking.getEndTime());
+
+        // Reserve the new availability slot
+        AvailabilityService.SlotReservation reservation = availabilityService.reserveSlot(
+                booking.getDrone().getDroneId(), request.getServiceDate(), request.getStartTime(), request.getEndTime());
+        if (reservation == AvailabilityService.SlotReservation.ALREADY_BOOKED) {
+            throw new RuntimeException("Selected slot is already booked. Please choose another slot.");
         }
-
-        // Check and book new availability slot
-        List<Availability> newSlots = availabilityRepository
-                .findAvailableSlotsByDroneIdAndDate(booking.getDrone().getDroneId(), request.getServiceDate());
-
-        boolean slotFound = false;
-        for (Availability slot : newSlots) {
-            if (!slot.getIsBooked() &&
-                    slot.getStartTime().equals(request.getStartTime()) &&
-                    slot.getEndTime().equals(request.getEndTime())) {
-                slotFound = true;
-                slot.setIsBooked(true);
-                availabilityRepository.save(slot);
-                log.info("Booked new availability slot for booking {}", bookingId);
-                break;
-            }
-        }
-
-        if (!slotFound) {
+        if (reservation == AvailabilityService.SlotReservation.NOT_OFFERED) {
+            // Rolls back the release of the old slot together with the rest of the update
             log.warn("No available slot found for drone {} on {} from {} to {}",
                     booking.getDrone().getDroneId(), request.getServiceDate(),
                     request.getStartTime(), request.getEndTime());
-            // Still update booking but log warning
+            throw new RuntimeException("Selected slot is not available for this drone. Please choose another slot.");
         }
+        log.info("Booked new availability slot for booking {}", bookingId);
 
         // Update booking fields
         booking.setServiceDate(request.getServiceDate());
@@ -236,12 +252,9 @@ public class BookingService {
         Booking updatedBooking = bookingRepository.save(booking);
         log.info("Booking {} updated successfully for drone: {}",
                 bookingId, updatedBooking.getDrone().getDroneModel());
+        eventPublisher.publishEvent(new VendorDashboardChangedEvent(updatedBooking.getVendor().getVendorId()));
 
-        // Ensure drone is loaded with its name
-        updatedBooking = bookingRepository.findById(updatedBooking.getBookingId())
-                .orElse(updatedBooking);
-
-        return updatedBooking;
+        return BookingResponse.fromBooking(updatedBooking);
     }
 
     private static boolean isValidEmail(String email) {
@@ -284,6 +297,9 @@ public class BookingService {
         BigDecimal amount = booking.getTotalCost() != null ? booking.getTotalCost() : BigDecimal.ZERO;
 
         Payment payment;
+        RevenueRollupService.Contribution before = existingPay
+                .map(revenueRollupService::contributionOf)
+                .orElse(null);
         if (existingPay.isEmpty()) {
             payment = new Payment();
             payment.setBooking(booking);
@@ -298,9 +314,12 @@ public class BookingService {
             payment.setAmount(amount);
             paymentRepository.save(payment);
         }
+        revenueRollupService.recordChange(before, payment);
 
         booking.setStatus(Booking.BookingStatus.ACCEPTED);
+        booking.setAcceptedAt(LocalDateTime.now());
         bookingRepository.save(booking);
+        eventPublisher.publishEvent(new VendorDashboardChangedEvent(booking.getVendor().getVendorId()));
 
         User customer = booking.getCustomer();
         emailService.sendBookingConfirmationEmail(customer, booking, true, emailTrim);
@@ -0,0 +1,156 @@
+package com.tatya.service;
+
+import com.tatya.entity.Drone;
+import com.tatya.entity.User;
+import com.tatya.entity.Vendor;
+import com.tatya.model.DroneFleetChangedEvent;
+import com.tatya.model.DroneSearchCandidate;
+import com.tatya.repository.DroneRepository;
+import com.tatya.util.ServiceAreaIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory index of the drones the customer search can offer, keyed by service base.
+ *
+ * The index is rebuilt from one projection query when a {@link DroneFleetChangedEvent} has
+ * committed since the last build, or when it is older than drone.search-index.max-age-seconds
+ * (which also picks up changes made outside the application). Between rebuilds a location search
+ * reads only the grid cell of the customer instead of scanning the fleet.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DroneSearchIndexService {
+
+    /** Used when a drone has no service radius but has base coordinates. */
+    static final double DEFAULT_SERVICE_RADIUS_KM = 50.0;
+
+    @Value("${drone.search-index.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    private final DroneRepository droneRepository;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean stale = true;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDroneFleetChanged(DroneFleetChangedEvent event) {
+        stale = true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        current();
+    }
+
+    /** Every drone the search can offer, in drone id order. */
+    public List<DroneSearchCandidate> allCandidates() {
+        return current().all;
+    }
+
+    /** Drones whose service area contains the point, nearest base first. */
+    public List<Hit> serving(double lat, double lng) {
+        Snapshot s = current();
+        ServiceAreaIndex.Matches matches = s.index.containing(lat, lng);
+        List<Hit> hits = new ArrayList<>(matches.size());
+        for (int k = 0; k < matches.size(); k++) {
+            hits.add(new Hit(s.located[matches.index(k)], matches.distanceKm(k)));
+        }
+        return hits;
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s != null && !stale && System.currentTimeMillis() < s.builtAtMillis + maxAgeSeconds * 1000) {
+            return s;
+        }
+        synchronized (this) {
+            s = snapshot;
+            if (s != null && !stale && System.currentTimeMillis() < s.builtAtMillis + maxAgeSeconds * 1000) {
+                return s;
+            }
+            // Cleared before reading so a change committed during the build triggers another one
+            stale = false;
+            s = build();
+            snapshot = s;
+            return s;
+        }
+    }
+
+    private Snapshot build() {
+        long started = System.currentTimeMillis();
+        List<DroneSearchCandidate> all = droneRepository.findSearchCandidates(
+            Drone.DroneStatus.AVAILABLE,
+            User.UserStatus.ACTIVE,
+            Vendor.VerifiedStatus.VERIFIED
+        );
+
+        List<DroneSearchCandidate> located = new ArrayList<>(all.size());
+        double[] lat = new double[all.size()];
+        double[] lon = new double[all.size()];
+        double[] radius = new double[all.size()];
+        for (DroneSearchCandidate candidate : all) {
+            if (candidate.getBaseLat() == null || candidate.getBaseLng() == null) {
+                continue;
+            }
+            int i = located.size();
+            lat[i] = candidate.getBaseLat();
+            lon[i] = candidate.getBaseLng();
+            Double radiusKm = candidate.getServiceRadiusKm();
+            radius[i] = (radiusKm != null && radiusKm > 0) ? radiusKm : DEFAULT_SERVICE_RADIUS_KM;
+            located.add(candidate);
+        }
+        int n = located.size();
+        ServiceAreaIndex index = new ServiceAreaIndex(
+            Arrays.copyOf(lat, n), Arrays.copyOf(lon, n), Arrays.copyOf(radius, n));
+
+        log.info("Drone search index built: {} drones, {} with a service base, in {} ms",
+            all.size(), n, System.currentTimeMillis() - started);
+        return new Snapshot(List.copyOf(all), located.toArray(new DroneSearchCandidate[0]), index, started);
+    }
+
+    /** A drone serving the searched point and the distance from its base, in km. */
+    public static final class Hit {
+        private final DroneSearchCandidate candidate;
+        private final double distanceKm;
+
+        Hit(DroneSearchCandidate candidate, double distanceKm) {
+            this.candidate = candidate;
+            this.distanceKm = distanceKm;
+        }
+
+        public DroneSearchCandidate getCandidate() {
+            return candidate;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+
+    private static final class Snapshot {
+        private final List<DroneSearchCandidate> all;
+        private final DroneSearchCandidate[] located;
+        private final ServiceAreaIndex index;
+        private final long builtAtMillis;
+
+        Snapshot(List<DroneSearchCandidate> all, DroneSearchCandidate[] located, ServiceAreaIndex index,
+                 long builtAtMillis) {
+            this.all = all;
+            this.located = located;
+            this.index = index;
+            this.builtAtMillis = builtAtMillis;
+        }
+    }
+}
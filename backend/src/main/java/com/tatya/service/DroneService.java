@@ -1,18 +1,33 @@
 package com.tatya.service;
 
+import com.tatya.dto.DroneSearchResult;
 import com.tatya.entity.Drone;
 import com.tatya.entity.User;
 import com.tatya.entity.Vendor;
 import com.tatya.exception.VendorKycPendingException;
 import com.tatya.exception.VendorRejectedException;
+import com.tatya.model.DroneFleetChangedEvent;
+import com.tatya.model.DroneSearchCandidate;
 import com.tatya.repository.DroneRepository;
+import com.tatya.repository.DroneSpecificationRepository;
 import com.tatya.repository.VendorRepository;
 import com.tatya.util.GeoUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -21,11 +36,21 @@ import java.util.stream.Collectors;
 @Slf4j
 public class DroneService {
 
-    /** Used when {@link Drone#getServiceRadiusKm()} is missing but base coordinates exist. */
-    private static final double DEFAULT_SERVICE_RADIUS_KM = 50.0;
+    private static final int SPEC_LOOKUP_CHUNK = 1000;
+
+    /**
+     * Where location searches find serving drones: "index" (in-memory service-area index),
+     * "database" (bounding box plus great-circle check in SQL) or "mysql-spatial"
+     * (bounding box plus ST_Distance_Sphere, MySQL only).
+     */
+    @Value("${drone.search.mode:index}")
+    private String searchMode;
 
     private final DroneRepository droneRepository;
+    private final DroneSpecificationRepository droneSpecificationRepository;
+    private final DroneSearchIndexService droneSearchIndexService;
     private final VendorRepository vendorRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     public List<Drone> getAllDrones() {
         return droneRepository.findAll();
@@ -61,75 +86,159 @@ public class DroneService {
 
     /**
      * When customerLat/customerLng are set, only drones whose base point (vendor lat/lng, or else
-     * {@link Drone#getCoordinates()} as "lat,lng") is within {@link Drone#getServiceRadiusKm()} km are returned.
+     * {@link Drone#getCoordinates()} as "lat,lng") is within {@link Drone#getServiceRadiusKm()} km are
+     * returned, nearest first. The matching drones come from {@link DroneSearchIndexService}; only
+     * those are loaded.
      */
     public List<Drone> getAvailableDronesWithSpecifications(Double customerLat, Double customerLng) {
-        List<Drone> drones = droneRepository.findByStatusWithSpecifications(
+        if (customerLat == null || customerLng == null) {
+            List<Drone> drones = droneRepository.findByStatusWithSpecifications(
+                Drone.DroneStatus.AVAILABLE,
+                User.UserStatus.ACTIVE,
+                Vendor.VerifiedStatus.VERIFIED
+            );
+            log.info("Found {} available drones with verified and active pilots", drones.size());
+            return drones;
+        }
+
+        List<DroneSearchIndexService.Hit> hits = servingDrones(customerLat, customerLng);
+        if (hits.isEmpty()) {
+            log.info("Location filter: no drones within vendor service radius");
+            return new ArrayList<>();
+        }
+        Map<Long, Integer> rank = new HashMap<>();
+        for (DroneSearchIndexService.Hit hit : hits) {
+            rank.put(hit.getCandidate().getDroneId(), rank.size());
+        }
+        // Statuses are checked again so a drone changed since the last index build is never offered
+        List<Drone> drones = droneRepository.findByIdsAndStatusWithSpecifications(
+            rank.keySet(),
             Drone.DroneStatus.AVAILABLE,
             User.UserStatus.ACTIVE,
             Vendor.VerifiedStatus.VERIFIED
         );
+        drones.sort(Comparator.comparingInt(d -> rank.get(d.getDroneId())));
+        log.info("Location filter: {} drones within vendor service radius", drones.size());
+        return drones;
+    }
 
-        List<Drone> filteredDrones = drones.stream()
-            .filter(drone -> drone != null
-                && drone.getVendor() != null
-                && drone.getVendor().getUser() != null
-                && drone.getVendor().getUser().getStatus() == User.UserStatus.ACTIVE
-                && drone.getVendor().getVerifiedStatus() == Vendor.VerifiedStatus.VERIFIED)
-            .collect(Collectors.toList());
-
+    /**
+     * Customer drone search. Same drones as {@link #getAvailableDronesWithSpecifications(Double, Double)},
+     * as listing cards; with a location the results carry their distance and are ordered nearest first.
+     */
+    public List<DroneSearchResult> searchAvailableDrones(Double customerLat, Double customerLng) {
+        List<DroneSearchCandidate> matches = new ArrayList<>();
+        Map<Long, Double> distances = new HashMap<>();
         if (customerLat != null && customerLng != null) {
-            int before = filteredDrones.size();
-            filteredDrones = filteredDrones.stream()
-                .filter(d -> isWithinVendorServiceRadius(d, customerLat, customerLng))
-                .collect(Collectors.toList());
-            log.info("Location filter: {} drones within vendor service radius (from {} candidates)",
-                filteredDrones.size(), before);
+            for (DroneSearchIndexService.Hit hit : servingDrones(customerLat, customerLng)) {
+                matches.add(hit.getCandidate());
+                distances.put(hit.getCandidate().getDroneId(), hit.getDistanceKm());
+            }
+        } else {
+            matches.addAll(droneSearchIndexService.allCandidates());
         }
 
-        log.info("Found {} available drones with verified and active pilots (filtered from {} total)",
-            filteredDrones.size(), drones.size());
+        Map<Long, List<DroneSearchResult.SpecOption>> specOptions = loadSpecOptions(
+            matches.stream().map(DroneSearchCandidate::getDroneId).collect(Collectors.toList()));
+        List<DroneSearchResult> results = new ArrayList<>(matches.size());
+        for (DroneSearchCandidate candidate : matches) {
+            Double distKm = distances.get(candidate.getDroneId());
+            results.add(DroneSearchResult.fromCandidate(
+                candidate,
+                distKm != null ? Math.round(distKm * 10) / 10.0 : null,
+                specOptions.getOrDefault(candidate.getDroneId(), Collections.emptyList())));
+        }
 
-        return filteredDrones;
+        log.info("Drone search found {} drones", results.size());
+        return results;
     }
 
-    private static boolean isWithinVendorServiceRadius(Drone drone, double customerLat, double customerLng) {
-        Optional<double[]> base = resolveServiceBaseLatLng(drone);
-        if (base.isEmpty()) {
-            return false;
+    /** Drones serving the point, nearest first, from the source selected by drone.search.mode. */
+    private List<DroneSearchIndexService.Hit> servingDrones(double lat, double lng) {
+        switch (searchMode) {
+            case "index":
+                return droneSearchIndexService.serving(lat, lng);
+            case "database":
+            case "mysql-spatial":
+                return servingDronesFromDatabase(lat, lng, "mysql-spatial".equals(searchMode));
+            default:
+                throw new IllegalStateException("Unknown drone.search.mode: " + searchMode);
         }
-        double vendorLat = base.get()[0];
-        double vendorLng = base.get()[1];
-        Double radiusKm = drone.getServiceRadiusKm();
-        double effectiveRadius = (radiusKm != null && radiusKm > 0) ? radiusKm : DEFAULT_SERVICE_RADIUS_KM;
-        double distKm = haversineKm(customerLat, customerLng, vendorLat, vendorLng);
-        return distKm <= effectiveRadius + 1e-9;
+    }
+
+    private List<DroneSearchIndexService.Hit> servingDronesFromDatabase(double lat, double lng, boolean spatial) {
+        // The box must hold every base whose circle can reach the point, so it is sized by the largest radius
+        Double maxRadius = droneRepository.findMaxServiceRadiusKm();
+        double reachKm = Math.max(maxRadius != null ? maxRadius : 0.0, DroneSearchIndexService.DEFAULT_SERVICE_RADIUS_KM);
+        double[] box = GeoUtils.boundingBox(lat, lng, reachKm);
+        double minLat = box[0];
+        double maxLat = box[1];
+        double minLng = box[2];
+        double maxLng = box[3];
+        // A box crossing the antimeridian falls back to the full longitude range
+        if (minLng < -180.0 || maxLng > 180.0) {
+            minLng = -180.0;
+            maxLng = 180.0;
+        }
+
+        List<DroneSearchIndexService.Hit> hits = new ArrayList<>();
+        if (spatial) {
+            Map<Long, Double> distances = new HashMap<>();
+            for (Object[] row : droneRepository.findServingDroneIdsSpatial(
+                    Drone.DroneStatus.AVAILABLE.name(), User.UserStatus.ACTIVE.name(), Vendor.VerifiedStatus.VERIFIED.name(),
+                    lat, lng, minLat, maxLat, minLng, maxLng, DroneSearchIndexService.DEFAULT_SERVICE_RADIUS_KM)) {
+                distances.put(((Number) row[0]).longValue(), ((Number) row[1]).doubleValue());
+            }
+            if (!distances.isEmpty()) {
+                for (DroneSearchCandidate candidate : droneRepository.findSearchCandidatesByIds(distances.keySet())) {
+                    hits.add(new DroneSearchIndexService.Hit(candidate, distances.get(candidate.getDroneId())));
+                }
+            }
+        } else {
+            for (DroneSearchCandidate candidate : droneRepository.findSearchCandidatesServing(
+                    Drone.DroneStatus.AVAILABLE, User.UserStatus.ACTIVE, Vendor.VerifiedStatus.VERIFIED,
+                    lat, lng, minLat, maxLat, minLng, maxLng, DroneSearchIndexService.DEFAULT_SERVICE_RADIUS_KM)) {
+                hits.add(new DroneSearchIndexService.Hit(candidate,
+                    GeoUtils.haversineKm(lat, lng, candidate.getBaseLat(), candidate.getBaseLng())));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(DroneSearchIndexService.Hit::getDistanceKm)
+            .thenComparing(hit -> hit.getCandidate().getDroneId()));
+        return hits;
     }
 
     /**
-     * Prefer {@link Vendor} table coords; otherwise onboarding/profile store base as {@link Drone#getCoordinates()}.
+     * Fills base_lat/base_lng for drones saved before the columns existed (or by code that did
+     * not set them), using the same vendor-then-coordinates rule as the onboarding and profile writes.
      */
-    private static Optional<double[]> resolveServiceBaseLatLng(Drone drone) {
-        Vendor v = drone.getVendor();
-        if (v.getLatitude() != null && v.getLongitude() != null) {
-            return Optional.of(new double[] {
-                v.getLatitude().doubleValue(),
-                v.getLongitude().doubleValue()
-            });
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillServiceBases() {
+        int updated = 0;
+        for (Object[] row : droneRepository.findServiceBaseSourcesWithoutBase()) {
+            Optional<double[]> base = GeoUtils.serviceBase((BigDecimal) row[1], (BigDecimal) row[2], (String) row[3]);
+            if (base.isPresent()) {
+                updated += droneRepository.updateServiceBase((Long) row[0], base.get()[0], base.get()[1]);
+            }
+        }
+        if (updated > 0) {
+            log.info("Backfilled service base coordinates of {} drones", updated);
+            eventPublisher.publishEvent(new DroneFleetChangedEvent(null));
         }
-        return GeoUtils.parseLatLngCommaSeparated(drone.getCoordinates());
     }
 
-    /** Great-circle distance on Earth (WGS84 mean radius), in kilometers. */
-    private static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
-        final double earthRadiusKm = 6371.0;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-            * Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return earthRadiusKm * c;
+    /** Available specification options per drone, read in chunks so the IN list stays bounded. */
+    private Map<Long, List<DroneSearchResult.SpecOption>> loadSpecOptions(List<Long> droneIds) {
+        Map<Long, List<DroneSearchResult.SpecOption>> byDrone = new HashMap<>();
+        for (int from = 0; from < droneIds.size(); from += SPEC_LOOKUP_CHUNK) {
+            List<Long> chunk = droneIds.subList(from, Math.min(from + SPEC_LOOKUP_CHUNK, droneIds.size()));
+            for (Object[] row : droneSpecificationRepository.findAvailableSpecSummariesByDroneIds(chunk)) {
+                byDrone.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                    .add(new DroneSearchResult.SpecOption(
+                        (Long) row[1], (Integer) row[2], (Double) row[3], (Double) row[4], (String) row[5]));
+            }
+        }
+        return byDrone;
     }
     
     public Optional<Drone> getDroneWithSpecifications(Long droneId) {
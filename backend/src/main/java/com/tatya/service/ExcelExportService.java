@@ -2,19 +2,26 @@ package com.tatya.service;
 
 import com.tatya.dto.AdminUserResponse;
 import com.tatya.dto.AdminVendorResponse;
-import com.tatya.entity.Drone;
-import com.tatya.entity.Vendor;
-import com.tatya.repository.DroneRepository;
+import com.tatya.model.VendorDroneExportRow;
+import com.tatya.repository.UserRepository;
 import com.tatya.repository.VendorRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -22,171 +29,253 @@ import java.util.List;
 public class ExcelExportService {
 
     private final VendorRepository vendorRepository;
-    private final DroneRepository droneRepository;
+    private final UserRepository userRepository;
+
+    // Export rows fetched per query
+    @Value("${export.page-size:1000}")
+    private int exportPageSize;
+
+    // Rows kept in memory while writing; older rows are flushed to a temp file
+    private static final int ROW_WINDOW = 200;
+
+    private static final String[] VENDOR_HEADERS = {
+        "Vendor ID", "Vendor Name", "Email", "Phone", "Business Name",
+        "Status", "Approval Status", "Rating", "Drone ID", "Drone Model",
+        "Drone Name", "Brand", "Equipment Type", "Status", "Price Per Hour", "Price Per Acre"
+    };
+    // Column widths in characters (autoSizeColumn would measure every row)
+    private static final int[] VENDOR_WIDTHS = { 10, 24, 30, 15, 32, 10, 16, 8, 10, 20, 20, 16, 20, 12, 15, 15 };
+
+    private static final String[] USER_HEADERS = {
+        "ID", "Phone", "Email", "Full Name", "Status", "Role", "Created Date", "Created Time"
+    };
+    private static final int[] USER_WIDTHS = { 8, 15, 30, 24, 10, 10, 20, 16 };
 
     /**
-     * Export all vendors and their drones to Excel
+     * Export all vendors and their drones to Excel, streamed to {@code out}
      */
-    public byte[] exportVendorsAndDrones() throws IOException {
+    public void exportVendorsAndDrones(OutputStream out) throws IOException {
         log.info("Exporting vendors and drones to Excel");
         
-        List<Vendor> vendors = vendorRepository.findAll();
-        
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
             Sheet sheet = workbook.createSheet("Vendors & Drones");
+            writeHeader(workbook, sheet, VENDOR_HEADERS, VENDOR_WIDTHS);
             
-            // Create header style
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerFont.setFontHeightInPoints((short) 12);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-            headerStyle.setBorderTop(BorderStyle.THIN);
-            headerStyle.setBorderRight(BorderStyle.THIN);
-            headerStyle.setBorderLeft(BorderStyle.THIN);
-            
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {
-                "Vendor ID", "Vendor Name", "Email", "Phone", "Business Name",
-                "Status", "Approval Status", "Rating", "Drone ID", "Drone Model",
-                "Drone Name", "Brand", "Equipment Type", "Status", "Price Per Hour", "Price Per Acre"
-            };
-            
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
-            
-            // Create data rows
-            int rowNum = 1;
-            for (Vendor vendor : vendors) {
-                List<Drone> drones = droneRepository.findByVendor_VendorId(vendor.getVendorId());
-                
-                if (drones.isEmpty()) {
-                    // If vendor has no drones, still add vendor row
-                    Row row = sheet.createRow(rowNum++);
-                    createVendorRow(row, vendor, null, 0);
-                } else {
-                    // Add a row for each drone
-                    for (Drone drone : drones) {
-                        Row row = sheet.createRow(rowNum++);
-                        createVendorRow(row, vendor, drone, rowNum - 1);
-                    }
-                }
-            }
-            
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
+            // Create data rows: a row per drone, or one per vendor without drones
+            int[] rowNum = { 1 };
+            forEachVendorExportRow(r -> writeRow(sheet.createRow(rowNum[0]++), vendorValues(r)));
             
             workbook.write(out);
-            return out.toByteArray();
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
     }
 
-    private void createVendorRow(Row row, Vendor vendor, Drone drone, int rowNum) {
-        int cellNum = 0;
-        
-        row.createCell(cellNum++).setCellValue(vendor.getVendorId());
-        row.createCell(cellNum++).setCellValue(vendor.getUser().getFullName());
-        row.createCell(cellNum++).setCellValue(vendor.getUser().getEmail());
-        row.createCell(cellNum++).setCellValue(vendor.getUser().getPhone());
-        row.createCell(cellNum++).setCellValue(vendor.getUser().getFullName() + " Services");
-        row.createCell(cellNum++).setCellValue(vendor.getUser().getStatus().name());
-        row.createCell(cellNum++).setCellValue(vendor.getVerifiedStatus().name());
-        row.createCell(cellNum++).setCellValue(
-            vendor.getRatingAvg() != null ? vendor.getRatingAvg().doubleValue() : 0.0
-        );
+    /**
+     * Export all vendors and their drones as CSV (same columns as the Excel export)
+     */
+    public void exportVendorsAndDronesCsv(OutputStream out) throws IOException {
+        log.info("Exporting vendors and drones to CSV");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeCsvLine(writer, VENDOR_HEADERS);
+        try {
+            forEachVendorExportRow(r -> {
+                try {
+                    writeCsvLine(writer, vendorValues(r));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Reads the vendor export rows one keyset page at a time, ordered by vendor then drone.
+     */
+    private void forEachVendorExportRow(Consumer<VendorDroneExportRow> action) {
+        long afterVendorId = 0;
+        long afterDroneId = Long.MAX_VALUE;
+        List<VendorDroneExportRow> page;
+        do {
+            page = vendorRepository.findExportRowsAfter(afterVendorId, afterDroneId, PageRequest.of(0, exportPageSize));
+            page.forEach(action);
+            if (!page.isEmpty()) {
+                VendorDroneExportRow last = page.get(page.size() - 1);
+                afterVendorId = last.getVendorId();
+                afterDroneId = last.getDroneId() != null ? last.getDroneId() : Long.MAX_VALUE;
+            }
+        } while (page.size() == exportPageSize);
+    }
+
+    private Object[] vendorValues(VendorDroneExportRow r) {
+        Object[] values = new Object[VENDOR_HEADERS.length];
+        int i = 0;
+        values[i++] = r.getVendorId();
+        values[i++] = r.getFullName();
+        values[i++] = r.getEmail();
+        values[i++] = r.getPhone();
+        values[i++] = r.getFullName() + " Services";
+        values[i++] = r.getUserStatus();
+        values[i++] = r.getVerifiedStatus();
+        values[i++] = r.getRatingAvg() != null ? r.getRatingAvg().doubleValue() : 0.0;
         
-        if (drone != null) {
-            row.createCell(cellNum++).setCellValue(drone.getDroneId());
-            row.createCell(cellNum++).setCellValue(drone.getDroneModel() != null ? drone.getDroneModel() : "");
-            row.createCell(cellNum++).setCellValue(drone.getDroneName() != null ? drone.getDroneName() : "");
-            row.createCell(cellNum++).setCellValue(drone.getBrand() != null ? drone.getBrand() : "");
-            row.createCell(cellNum++).setCellValue(drone.getEquipmentType() != null ? drone.getEquipmentType() : "");
-            row.createCell(cellNum++).setCellValue(drone.getStatus().name());
-            row.createCell(cellNum++).setCellValue(
-                drone.getPricePerHour() != null ? drone.getPricePerHour().doubleValue() : 0.0
-            );
-            row.createCell(cellNum++).setCellValue(
-                drone.getPricePerAcre() != null ? drone.getPricePerAcre().doubleValue() : 0.0
-            );
+        if (r.getDroneId() != null) {
+            values[i++] = r.getDroneId();
+            values[i++] = r.getDroneModel() != null ? r.getDroneModel() : "";
+            values[i++] = r.getDroneName() != null ? r.getDroneName() : "";
+            values[i++] = r.getBrand() != null ? r.getBrand() : "";
+            values[i++] = r.getEquipmentType() != null ? r.getEquipmentType() : "";
+            values[i++] = r.getDroneStatus();
+            values[i++] = r.getPricePerHour() != null ? r.getPricePerHour().doubleValue() : 0.0;
+            values[i++] = r.getPricePerAcre() != null ? r.getPricePerAcre().doubleValue() : 0.0;
         } else {
             // Fill empty cells for drone columns
-            for (int i = 0; i < 8; i++) {
-                row.createCell(cellNum++).setCellValue("");
+            while (i < values.length) {
+                values[i++] = "";
             }
         }
+        return values;
     }
 
     /**
-     * Export all users to Excel
+     * Export all users (admins excluded) to Excel, streamed to {@code out}
      */
-    public byte[] exportUsers(List<AdminUserResponse> users) throws IOException {
+    public void exportUsers(OutputStream out) throws IOException {
         log.info("Exporting users to Excel");
-        
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
             Sheet sheet = workbook.createSheet("Users");
-            
-            // Create header style
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerFont.setFontHeightInPoints((short) 12);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-            headerStyle.setBorderTop(BorderStyle.THIN);
-            headerStyle.setBorderRight(BorderStyle.THIN);
-            headerStyle.setBorderLeft(BorderStyle.THIN);
-            
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {
-                "ID", "Phone", "Email", "Full Name", "Status", "Role", "Created Date", "Created Time"
-            };
-            
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
+            writeHeader(workbook, sheet, USER_HEADERS, USER_WIDTHS);
+
+            int[] rowNum = { 1 };
+            forEachUserExportRow(user -> writeRow(sheet.createRow(rowNum[0]++), userValues(user)));
+
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * Export all users (admins excluded) as CSV (same columns as the Excel export)
+     */
+    public void exportUsersCsv(OutputStream out) throws IOException {
+        log.info("Exporting users to CSV");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeCsvLine(writer, USER_HEADERS);
+        try {
+            forEachUserExportRow(user -> {
+                try {
+                    writeCsvLine(writer, userValues(user));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Reads the users (admins excluded) one keyset page at a time, in id order. The export has
+     * no OTP column, so no OTP lookup is made.
+     */
+    private void forEachUserExportRow(Consumer<AdminUserResponse> action) {
+        long afterId = 0;
+        List<AdminUserResponse> page;
+        do {
+            page = userRepository.findAdminRowsAfter(afterId, null, null, null, PageRequest.of(0, exportPageSize));
+            page.forEach(action);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
             }
-            
-            // Create data rows
-            int rowNum = 1;
-            for (AdminUserResponse user : users) {
-                Row row = sheet.createRow(rowNum++);
-                
-                row.createCell(0).setCellValue(user.getId());
-                row.createCell(1).setCellValue(user.getPhone() != null ? user.getPhone() : "");
-                row.createCell(2).setCellValue(user.getEmail() != null ? user.getEmail() : "");
-                row.createCell(3).setCellValue(user.getFullName() != null ? user.getFullName() : "");
-                row.createCell(4).setCellValue(user.getStatus() != null ? user.getStatus() : "");
-                row.createCell(5).setCellValue(user.getRole() != null ? user.getRole() : "");
-                row.createCell(6).setCellValue(
-                    user.getCreatedDate() != null ? user.getCreatedDate().toString() : ""
-                );
-                row.createCell(7).setCellValue(user.getCreatedTime() != null ? user.getCreatedTime() : "");
+        } while (page.size() == exportPageSize);
+    }
+
+    private Object[] userValues(AdminUserResponse user) {
+        return new Object[] {
+            user.getId(),
+            user.getPhone() != null ? user.getPhone() : "",
+            user.getEmail() != null ? user.getEmail() : "",
+            user.getFullName() != null ? user.getFullName() : "",
+            user.getStatus() != null ? user.getStatus() : "",
+            user.getRole() != null ? user.getRole() : "",
+            user.getCreatedDate() != null ? user.getCreatedDate().toString() : "",
+            user.getCreatedTime() != null ? user.getCreatedTime() : ""
+        };
+    }
+
+    // Numbers become numeric cells, everything else text
+    private void writeRow(Row row, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            Cell cell = row.createCell(i);
+            if (values[i] instanceof Number) {
+                cell.setCellValue(((Number) values[i]).doubleValue());
+            } else {
+                cell.setCellValue(values[i] != null ? values[i].toString() : "");
             }
-            
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+        }
+    }
+
+    private void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
             }
-            
-            workbook.write(out);
-            return out.toByteArray();
+            String value = values[i] != null ? values[i].toString() : "";
+            if (!(values[i] instanceof Number) && startsLikeFormula(value)) {
+                // Spreadsheet apps would run user-entered text such as "=HYPERLINK(...)" as a formula
+                value = "'" + value;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                value = '"' + value.replace("\"", "\"\"") + '"';
+            }
+            writer.write(value);
+        }
+        writer.write("\r\n");
+    }
+
+    private static boolean startsLikeFormula(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        char first = value.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+
+    private void writeHeader(Workbook workbook, Sheet sheet, String[] headers, int[] widths) {
+        // Create header style
+        CellStyle headerStyle = workbook.createCellStyle();
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        headerFont.setFontHeightInPoints((short) 12);
+        headerStyle.setFont(headerFont);
+        headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        headerStyle.setBorderBottom(BorderStyle.THIN);
+        headerStyle.setBorderTop(BorderStyle.THIN);
+        headerStyle.setBorderRight(BorderStyle.THIN);
+        headerStyle.setBorderLeft(BorderStyle.THIN);
+
+        // Create header row
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(headerStyle);
+            sheet.setColumnWidth(i, widths[i] * 256);
         }
     }
 }
@@ -0,0 +1,178 @@
+package com.tatya.service;
+
+import com.tatya.model.ExportJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Runs admin exports in the background so they do not hold a web thread for their whole run.
+ * Jobs execute on a small fixed pool with a bounded queue (a full queue rejects new exports
+ * instead of piling them up), write to {upload dir}/exports, and are removed with their file
+ * export.jobs.ttl-minutes after they finish.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportJobService {
+
+    @Value("${file.upload.dir:uploads}")
+    private String uploadDir;
+
+    @Value("${export.jobs.threads:2}")
+    private int jobThreads;
+
+    @Value("${export.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${export.jobs.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private final ExcelExportService excelExportService;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private Path exportDir;
+
+    @PostConstruct
+    void startExportExecutor() throws IOException {
+        exportDir = Paths.get(uploadDir, "exports");
+        Files.createDirectories(exportDir);
+        // Jobs only live in memory, so files left by a previous run can no longer be downloaded
+        try (Stream<Path> leftovers = Files.list(exportDir)) {
+            leftovers.forEach(this::deleteQuietly);
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(jobThreads, jobThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "export-job-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        log.info("Export executor started with {} threads, queue capacity {}", jobThreads, queueCapacity);
+    }
+
+    @PreDestroy
+    void stopExportExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues an export and returns its job right away.
+     */
+    public ExportJob startExport(ExportJob.Type type, ExportJob.Format format) {
+        ExportJob job = new ExportJob();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setType(type);
+        job.setFormat(format);
+        job.setCreatedAt(LocalDateTime.now());
+        job.setFile(exportDir.resolve(job.getJobId() + "." + format.name().toLowerCase()));
+
+        jobs.put(job.getJobId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            throw new RuntimeException("Too many exports are in progress. Please try again later.");
+        }
+        log.info("Queued {} {} export job {}", type, format, job.getJobId());
+        return job;
+    }
+
+    public ExportJob getJob(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Export job not found");
+        }
+        return job;
+    }
+
+    /**
+     * Removes jobs that finished more than the TTL ago together with their files. The TTL runs
+     * from completion, so a long export still gets the full TTL to be downloaded.
+     *
+     * @return number of jobs removed
+     */
+    public int expireJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        int removed = 0;
+        for (ExportJob job : jobs.values()) {
+            boolean finished = job.getStatus() == ExportJob.Status.COMPLETED || job.getStatus() == ExportJob.Status.FAILED;
+            if (finished && job.getCompletedAt() != null && job.getCompletedAt().isBefore(cutoff)) {
+                jobs.remove(job.getJobId());
+                deleteQuietly(job.getFile());
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void run(ExportJob job) {
+        job.setStatus(ExportJob.Status.RUNNING);
+        // Written under a temporary name so a download never sees a partial file
+        Path partial = job.getFile().resolveSibling(job.getFile().getFileName() + ".part");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                write(job, out);
+            }
+            Files.move(partial, job.getFile(), StandardCopyOption.REPLACE_EXISTING);
+            job.setCompletedAt(LocalDateTime.now());
+            job.setStatus(ExportJob.Status.COMPLETED);
+            log.info("Export job {} completed", job.getJobId());
+        } catch (Exception e) {
+            log.error("Export job {} failed", job.getJobId(), e);
+            deleteQuietly(partial);
+            job.setErrorMessage(e.getMessage());
+            job.setCompletedAt(LocalDateTime.now());
+            job.setStatus(ExportJob.Status.FAILED);
+        }
+    }
+
+    private void write(ExportJob job, OutputStream out) throws IOException {
+        boolean csv = job.getFormat() == ExportJob.Format.CSV;
+        if (job.getType() == ExportJob.Type.VENDORS) {
+            if (csv) {
+                excelExportService.exportVendorsAndDronesCsv(out);
+            } else {
+                excelExportService.exportVendorsAndDrones(out);
+            }
+        } else {
+            if (csv) {
+                excelExportService.exportUsersCsv(out);
+            } else {
+                excelExportService.exportUsers(out);
+            }
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -2,28 +2,71 @@ package com.tatya.service;
 
 import com.tatya.entity.Booking;
 import com.tatya.entity.Cluster;
+import com.tatya.entity.JobCheckpoint;
 import java.math.BigDecimal;
+import com.tatya.model.BookingPoint;
 import com.tatya.repository.BookingRepository;
+import com.tatya.repository.BulkInsertRepository;
 import com.tatya.repository.ClusterRepository;
+import com.tatya.repository.JobCheckpointRepository;
+import com.tatya.util.ClusteringEngine;
+import com.tatya.util.GeoGridIndex;
+import com.tatya.util.GeoUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class FarmCoverageService {
 
     private static final double RADIUS_M = 5000.0; // 5km radius
     private static final double CONNECTION_DIST_M = 2 * RADIUS_M; // If circles overlap (centers closer than 2R)
     private static final double CLUSTER_RADIUS_M = 5000.0; // Max distance any node may be from the cluster centre
-    private static final double EARTH_R = 6371000.0;
+    private static final long MAX_CLUSTER_AREA_CENTI = 1000L; // 10 acres, in hundredths of an acre
+    private static final String CLUSTERING_JOB = "cluster-generation";
 
     private final BookingRepository bookingRepository;
     private final ClusterRepository clusterRepository;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final BulkInsertRepository bulkInsertRepository;
+
+    @Value("${clustering.incremental.lookback-hours:24}")
+    private long incrementalLookbackHours;
+
+    // 0 = one worker per available processor
+    @Value("${clustering.parallelism:0}")
+    private int clusteringParallelism;
+
+    @Value("${clustering.save-batch-size:500}")
+    private int saveBatchSize;
+
+    private ForkJoinPool clusteringPool;
+
+    @PostConstruct
+    void startClusteringPool() {
+        int parallelism = clusteringParallelism > 0
+                ? clusteringParallelism
+                : Runtime.getRuntime().availableProcessors();
+        clusteringPool = new ForkJoinPool(parallelism);
+        log.info("Clustering pool started with parallelism {}", parallelism);
+    }
+
+    @PreDestroy
+    void stopClusteringPool() {
+        clusteringPool.shutdown();
+    }
 
     /**
      * Generates clusters from ACCEPTED booking locations.
@@ -32,134 +75,242 @@ public class FarmCoverageService {
      */
     @Transactional
     public List<Cluster> generateClusters() {
-        // 1. Get all ACCEPTED bookings — only confirmed orders drive clustering
-        List<Booking> acceptedBookings = bookingRepository.findByStatus(Booking.BookingStatus.ACCEPTED);
+        // 1. Get all ACCEPTED bookings — only confirmed orders drive clustering.
+        // Projected to id/location/area so no Booking entity graph is loaded.
+        List<BookingPoint> points = bookingRepository.findPointsByStatus(Booking.BookingStatus.ACCEPTED);
 
-        if (acceptedBookings.isEmpty()) {
+        if (points.isEmpty()) {
             return Collections.emptyList();
         }
 
-        // 2. Build Adjacency Graph (Graph of Booking Locations)
-        // Two booking locations are connected if distance(b1, b2) <= CONNECTION_DIST_M
-        Map<Long, List<Booking>> adjacencyList = new HashMap<>();
-        for (Booking b : acceptedBookings) {
-            adjacencyList.put(b.getBookingId(), new ArrayList<>());
+        return buildClusters(points);
+    }
+
+    /**
+     * Incremental variant of {@link #generateClusters()} for the scheduled job.
+     *
+     * Only ACCEPTED bookings that are not in a cluster yet and were accepted since the last run
+     * (minus a short lookback for late commits) are considered, together with older unclustered
+     * ACCEPTED bookings within CONNECTION_DIST_M of them, so an earlier singleton pairs up once a
+     * neighbour is accepted next to it. Each one is first attached to the nearest PENDING cluster whose centre is
+     * within CLUSTER_RADIUS_M and that still has room under the 10-acre limit; the leftovers are
+     * clustered among themselves with the usual rules. The first run without a checkpoint takes
+     * every unclustered ACCEPTED booking.
+     */
+    @Transactional
+    public List<Cluster> generateClustersIncremental() {
+        LocalDateTime runStartedAt = LocalDateTime.now();
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(CLUSTERING_JOB)
+                .orElseGet(() -> new JobCheckpoint(CLUSTERING_JOB, null, null));
+
+        List<BookingPoint> delta = checkpoint.getHighWaterMark() == null
+                ? bookingRepository.findUnclusteredPointsByStatus(Booking.BookingStatus.ACCEPTED)
+                : bookingRepository.findUnclusteredPointsAcceptedAfter(Booking.BookingStatus.ACCEPTED,
+                        checkpoint.getHighWaterMark().minusHours(incrementalLookbackHours));
+
+        List<Cluster> touched = new ArrayList<>();
+        if (!delta.isEmpty()) {
+            if (checkpoint.getHighWaterMark() != null) {
+                delta = withUnclusteredNeighbours(delta);
+            }
+            List<BookingPoint> leftovers = attachToPendingClusters(delta, touched);
+            log.info("Incremental clustering: {} bookings, {} attached to {} pending clusters",
+                    delta.size(), delta.size() - leftovers.size(), touched.size());
+            if (!leftovers.isEmpty()) {
+                touched.addAll(buildClusters(leftovers));
+            }
         }
 
-        for (int i = 0; i < acceptedBookings.size(); i++) {
-            for (int j = i + 1; j < acceptedBookings.size(); j++) {
-                Booking b1 = acceptedBookings.get(i);
-                Booking b2 = acceptedBookings.get(j);
-                double dist = haversineM(
-                        b1.getLocationLat().doubleValue(), b1.getLocationLong().doubleValue(),
-                        b2.getLocationLat().doubleValue(), b2.getLocationLong().doubleValue());
-                if (dist <= CONNECTION_DIST_M) {
-                    adjacencyList.get(b1.getBookingId()).add(b2);
-                    adjacencyList.get(b2.getBookingId()).add(b1);
-                }
+        checkpoint.setHighWaterMark(runStartedAt);
+        jobCheckpointRepository.save(checkpoint);
+        return touched;
+    }
+
+    /**
+     * Adds the unclustered ACCEPTED bookings within CONNECTION_DIST_M of any delta point. They are
+     * read with one bounding-box query around the delta and filtered exactly on a grid; the
+     * result is ordered by booking id.
+     */
+    private List<BookingPoint> withUnclusteredNeighbours(List<BookingPoint> delta) {
+        double minLat = Double.MAX_VALUE;
+        double maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE;
+        double maxLon = -Double.MAX_VALUE;
+        for (BookingPoint p : delta) {
+            minLat = Math.min(minLat, p.getLat());
+            maxLat = Math.max(maxLat, p.getLat());
+            minLon = Math.min(minLon, p.getLon());
+            maxLon = Math.max(maxLon, p.getLon());
+        }
+        double dLat = Math.toDegrees(CONNECTION_DIST_M / 1000.0 / GeoUtils.EARTH_RADIUS_KM);
+        double maxAbsLat = Math.min(89.0, Math.max(Math.abs(minLat), Math.abs(maxLat)) + dLat);
+        double dLon = dLat / Math.cos(Math.toRadians(maxAbsLat));
+        List<BookingPoint> nearby = minLon - dLon < -180.0 || maxLon + dLon > 180.0
+                // A box across the antimeridian cannot be expressed as one range; take them all
+                ? bookingRepository.findUnclusteredPointsByStatus(Booking.BookingStatus.ACCEPTED)
+                : bookingRepository.findUnclusteredPointsInBox(Booking.BookingStatus.ACCEPTED,
+                        BigDecimal.valueOf(minLat - dLat), BigDecimal.valueOf(maxLat + dLat),
+                        BigDecimal.valueOf(minLon - dLon), BigDecimal.valueOf(maxLon + dLon));
+
+        Set<Long> deltaIds = new HashSet<>();
+        for (BookingPoint p : delta) {
+            deltaIds.add(p.getBookingId());
+        }
+        List<BookingPoint> all = new ArrayList<>(delta);
+        for (BookingPoint p : nearby) {
+            if (!deltaIds.contains(p.getBookingId())) {
+                all.add(p);
             }
         }
+        if (all.size() == delta.size()) {
+            return delta;
+        }
 
-        // 3. Find Connected Components (Clusters)
-        Set<Long> visited = new HashSet<>();
-        List<Cluster> newClusters = new ArrayList<>();
-
-        for (Booking booking : acceptedBookings) {
-            if (!visited.contains(booking.getBookingId())) {
-                List<Booking> component = new ArrayList<>();
-                bfs(booking, adjacencyList, visited, component);
-
-                // 4. Validate Cluster Size & Area (Step 6 + 10-acre rule)
-                if (component.size() >= 1) {
-                    BigDecimal totalArea = component.stream()
-                            .map(b -> b.getFarmAreaAcres() != null ? b.getFarmAreaAcres() : BigDecimal.ZERO)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    if (totalArea.compareTo(BigDecimal.valueOf(10)) <= 0) {
-                        // Fits in one cluster
-                        if (component.size() >= 2) {
-                            newClusters.add(createClusterFromComponent(component));
-                        }
-                    } else {
-                        // Exceeds 10 acres - Split logic
-                        List<Cluster> splitClusters = splitComponentIntoClusters(component, adjacencyList);
-                        newClusters.addAll(splitClusters);
-                    }
+        int n = all.size();
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = all.get(i).getLat();
+            lons[i] = all.get(i).getLon();
+        }
+        GeoGridIndex grid = new GeoGridIndex(lats, lons, CONNECTION_DIST_M);
+        List<BookingPoint> result = new ArrayList<>(delta);
+        // Indices below delta.size() are the delta points themselves
+        for (int i = delta.size(); i < n; i++) {
+            for (int j : grid.candidates(i)) {
+                if (j < delta.size()
+                        && GeoUtils.haversineKm(lats[i], lons[i], lats[j], lons[j]) * 1000.0 <= CONNECTION_DIST_M) {
+                    result.add(all.get(i));
+                    break;
                 }
             }
         }
-
-        return clusterRepository.saveAll(newClusters);
+        result.sort(Comparator.comparingLong(BookingPoint::getBookingId));
+        return result;
     }
 
     /**
-     * Radius-constrained BFS.
-     *
-     * Standard BFS is extended with one extra gate before a neighbor is accepted:
-     * haversine(neighbor, clusterCentre) <= CLUSTER_RADIUS_M (5 km)
-     *
-     * If a neighbor fails this check it is NOT marked visited, so the outer loop
-     * in generateClusters() will pick it up as a fresh seed and start a new,
-     * spatially compact cluster from it. This breaks the chain-clustering effect
-     * where Farm1--Farm2--Farm3 (each pair <=10 km apart) would otherwise all
-     * land in a single component even if Farm1 and Farm3 are 16 km apart.
-     *
-     * The cluster centre is maintained as a running incremental average so it
-     * reflects the true centroid of all accepted nodes at every step.
+     * Greedily places each point into the nearest PENDING cluster it fits; returns the points
+     * that fit nowhere. Updated clusters are saved and added to {@code touched}.
      */
-    private void bfs(Booking startNode, Map<Long, List<Booking>> graph, Set<Long> visited, List<Booking> component) {
-        Queue<Booking> queue = new LinkedList<>();
-
-        // Seed: mark visited and add to component immediately
-        visited.add(startNode.getBookingId());
-        component.add(startNode);
-        queue.add(startNode);
-
-        // Cluster centre starts at the seed location
-        double centerLat = startNode.getLocationLat().doubleValue();
-        double centerLon = startNode.getLocationLong().doubleValue();
+    private List<BookingPoint> attachToPendingClusters(List<BookingPoint> delta, List<Cluster> touched) {
+        List<Cluster> pending = clusterRepository.findByStatus(Cluster.ClusterStatus.PENDING).stream()
+                .filter(c -> c.getCenterLatitude() != null && c.getCenterLongitude() != null
+                        && c.getTotalAcres() != null && c.getBookingCount() != null)
+                .collect(Collectors.toList());
+        if (pending.isEmpty()) {
+            return delta;
+        }
 
-        while (!queue.isEmpty()) {
-            Booking current = queue.poll();
+        int m = pending.size();
+        double[] centerLat = new double[m];
+        double[] centerLon = new double[m];
+        long[] area = new long[m];
+        int[] count = new int[m];
+        List<List<Long>> attached = new ArrayList<>(m);
+        for (int c = 0; c < m; c++) {
+            Cluster cluster = pending.get(c);
+            centerLat[c] = cluster.getCenterLatitude().doubleValue();
+            centerLon[c] = cluster.getCenterLongitude().doubleValue();
+            area[c] = BookingPoint.toCenti(cluster.getTotalAcres());
+            count[c] = cluster.getBookingCount();
+            attached.add(new ArrayList<>());
+        }
 
-            for (Booking neighbor : graph.get(current.getBookingId())) {
-                if (visited.contains(neighbor.getBookingId())) {
+        List<BookingPoint> leftovers = new ArrayList<>();
+        for (BookingPoint p : delta) {
+            int best = -1;
+            double bestDist = CLUSTER_RADIUS_M;
+            for (int c = 0; c < m; c++) {
+                if (area[c] + p.getAcresCenti() > MAX_CLUSTER_AREA_CENTI) {
                     continue;
                 }
-
-                // Radius gate:
-                // 1. If component is just the seed (size == 1), accept the direct neighbor
-                // because their edge is <= 10km (guaranteeing their mutual center is <= 5km
-                // from both).
-                // 2. Once the cluster is formed (size > 1), strictly prevent long chains by
-                // requiring all new additions to be within CLUSTER_RADIUS_M (5km) of the
-                // running center.
-                double distToCenter = haversineM(
-                        neighbor.getLocationLat().doubleValue(), neighbor.getLocationLong().doubleValue(),
-                        centerLat, centerLon);
-
-                if (component.size() == 1 || distToCenter <= CLUSTER_RADIUS_M) {
-                    // Accept: mark visited, add to component, enqueue
-                    visited.add(neighbor.getBookingId());
-                    component.add(neighbor);
-                    queue.add(neighbor);
-
-                    // Update cluster centre using incremental running average
-                    // newCenter = oldCenter + (newPoint - oldCenter) / newSize
-                    int n = component.size();
-                    centerLat = centerLat + (neighbor.getLocationLat().doubleValue() - centerLat) / n;
-                    centerLon = centerLon + (neighbor.getLocationLong().doubleValue() - centerLon) / n;
+                double dist = GeoUtils.haversineKm(p.getLat(), p.getLon(), centerLat[c], centerLon[c]) * 1000.0;
+                if (dist <= bestDist) {
+                    bestDist = dist;
+                    best = c;
                 }
-                // Rejected neighbor: do NOT mark visited — it will seed its own cluster
             }
+            if (best < 0) {
+                leftovers.add(p);
+                continue;
+            }
+            // Running average keeps the centre on the centroid of all members
+            int size = ++count[best];
+            centerLat[best] += (p.getLat() - centerLat[best]) / size;
+            centerLon[best] += (p.getLon() - centerLon[best]) / size;
+            area[best] += p.getAcresCenti();
+            attached.get(best).add(p.getBookingId());
+        }
+
+        for (int c = 0; c < m; c++) {
+            if (attached.get(c).isEmpty()) {
+                continue;
+            }
+            Cluster cluster = pending.get(c);
+            cluster.setCenterLatitude(BigDecimal.valueOf(centerLat[c]));
+            cluster.setCenterLongitude(BigDecimal.valueOf(centerLon[c]));
+            cluster.setTotalAcres(BigDecimal.valueOf(area[c], 2));
+            cluster.setBookingCount(count[c]);
+            Cluster saved = clusterRepository.save(cluster);
+            bookingRepository.assignCluster(saved.getId(), attached.get(c));
+            touched.add(saved);
         }
+        return leftovers;
     }
 
-    private Cluster createClusterFromComponent(List<Booking> bookings) {
+    /**
+     * Runs the clustering engine over the given points (steps 2-4: adjacency graph,
+     * radius-gated components and the 10-acre split rule), saves the resulting clusters and
+     * stamps each member booking with its cluster id.
+     */
+    private List<Cluster> buildClusters(List<BookingPoint> points) {
+        int n = points.size();
+        long[] ids = new long[n];
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        int[] acres = new int[n];
+        for (int i = 0; i < n; i++) {
+            BookingPoint p = points.get(i);
+            ids[i] = p.getBookingId();
+            lats[i] = p.getLat();
+            lons[i] = p.getLon();
+            acres[i] = p.getAcresCenti();
+        }
+
+        ClusteringEngine engine = new ClusteringEngine(lats, lons, acres,
+                CONNECTION_DIST_M, CLUSTER_RADIUS_M, MAX_CLUSTER_AREA_CENTI, clusteringPool);
+        List<int[]> groups = engine.run();
+
+        // Insert in fixed-size JDBC batches (multi-row INSERTs on MySQL); ids are written back
+        // onto the clusters so the member bookings can be stamped below.
+        List<Cluster> saved = new ArrayList<>(groups.size());
+        int batchSize = Math.max(1, saveBatchSize);
+        for (int from = 0; from < groups.size(); from += batchSize) {
+            List<int[]> chunk = groups.subList(from, Math.min(from + batchSize, groups.size()));
+            List<Cluster> newClusters = new ArrayList<>(chunk.size());
+            for (int[] members : chunk) {
+                newClusters.add(createClusterFromComponent(members, lats, lons, acres));
+            }
+            bulkInsertRepository.insertClusters(newClusters);
+            saved.addAll(newClusters);
+        }
+
+        for (int c = 0; c < groups.size(); c++) {
+            List<Long> memberIds = new ArrayList<>(groups.get(c).length);
+            for (int i : groups.get(c)) {
+                memberIds.add(ids[i]);
+            }
+            bookingRepository.assignCluster(saved.get(c).getId(), memberIds);
+        }
+        return saved;
+    }
+
+    private Cluster createClusterFromComponent(int[] members, double[] lats, double[] lons, int[] acres) {
         Cluster cluster = new Cluster();
 
         // Step 7: Name (Auto-generated)
-        String name = "Cluster-" + UUID.randomUUID().toString().substring(0, 4).toUpperCase() + "-" + bookings.size()
+        String name = "Cluster-" + UUID.randomUUID().toString().substring(0, 4).toUpperCase() + "-" + members.length
                 + "Bookings";
         cluster.setName(name);
 
@@ -169,13 +320,24 @@ public class FarmCoverageService {
         cluster.setFarms(new HashSet<>());
 
         // Calculate Center from booking locations
-        if (!bookings.isEmpty()) {
-            double avgLat = bookings.stream().mapToDouble(b -> b.getLocationLat().doubleValue()).average().orElse(0.0);
-            double avgLon = bookings.stream().mapToDouble(b -> b.getLocationLong().doubleValue()).average().orElse(0.0);
-            cluster.setCenterLatitude(BigDecimal.valueOf(avgLat));
-            cluster.setCenterLongitude(BigDecimal.valueOf(avgLon));
+        if (members.length > 0) {
+            double sumLat = 0.0;
+            double sumLon = 0.0;
+            for (int i : members) {
+                sumLat += lats[i];
+                sumLon += lons[i];
+            }
+            cluster.setCenterLatitude(BigDecimal.valueOf(sumLat / members.length));
+            cluster.setCenterLongitude(BigDecimal.valueOf(sumLon / members.length));
         }
 
+        long totalArea = 0;
+        for (int i : members) {
+            totalArea += acres[i];
+        }
+        cluster.setTotalAcres(BigDecimal.valueOf(totalArea, 2));
+        cluster.setBookingCount(members.length);
+
         // Set Priority (Random 1-10 as per requirement)
         cluster.setPriority((int) (Math.random() * 10) + 1);
 
@@ -185,76 +347,4 @@ public class FarmCoverageService {
 
         return cluster;
     }
-
-    private List<Cluster> splitComponentIntoClusters(List<Booking> component, Map<Long, List<Booking>> adjacencyList) {
-        List<Cluster> result = new ArrayList<>();
-        Set<Long> unassignedIds = component.stream().map(Booking::getBookingId).collect(Collectors.toSet());
-        Map<Long, Booking> bookingMap = component.stream().collect(Collectors.toMap(Booking::getBookingId, b -> b));
-
-        int safetyCounter = 0;
-        final int MAX_ITERATIONS = 5000;
-
-        while (!unassignedIds.isEmpty()) {
-            if (++safetyCounter > MAX_ITERATIONS) {
-                // Failsafe to prevent infinite loops if logic is flawed or data is unusual
-                break;
-            }
-
-            Long seedId = unassignedIds.iterator().next();
-            Booking seed = bookingMap.get(seedId);
-
-            List<Booking> clusterBookings = new ArrayList<>();
-            clusterBookings.add(seed);
-            unassignedIds.remove(seedId);
-
-            BigDecimal currentArea = seed.getFarmAreaAcres() != null ? seed.getFarmAreaAcres() : BigDecimal.ZERO;
-
-            boolean addedAnything = true;
-            while (addedAnything && currentArea.compareTo(BigDecimal.valueOf(10)) < 0) {
-                addedAnything = false;
-
-                Booking bestCandidate = null;
-
-                for (Booking member : clusterBookings) {
-                    List<Booking> neighbors = adjacencyList.get(member.getBookingId());
-                    if (neighbors != null) {
-                        for (Booking n : neighbors) {
-                            if (unassignedIds.contains(n.getBookingId())) {
-                                BigDecimal nArea = n.getFarmAreaAcres() != null ? n.getFarmAreaAcres()
-                                        : BigDecimal.ZERO;
-                                if (currentArea.add(nArea).compareTo(BigDecimal.valueOf(10)) <= 0) {
-                                    bestCandidate = n;
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                    if (bestCandidate != null)
-                        break;
-                }
-
-                if (bestCandidate != null) {
-                    clusterBookings.add(bestCandidate);
-                    BigDecimal nArea = bestCandidate.getFarmAreaAcres() != null ? bestCandidate.getFarmAreaAcres()
-                            : BigDecimal.ZERO;
-                    currentArea = currentArea.add(nArea);
-                    unassignedIds.remove(bestCandidate.getBookingId());
-                    addedAnything = true;
-                }
-            }
-            if (!clusterBookings.isEmpty()) {
-                result.add(createClusterFromComponent(clusterBookings));
-            }
-        }
-        return result;
-    }
-
-    private double haversineM(double lat1, double lon1, double lat2, double lon2) {
-        double toRad = Math.PI / 180.0;
-        double dLat = (lat2 - lat1) * toRad;
-        double dLon = (lon2 - lon1) * toRad;
-        double a = Math.pow(Math.sin(dLat / 2), 2) +
-                Math.cos(lat1 * toRad) * Math.cos(lat2 * toRad) * Math.pow(Math.sin(dLon / 2), 2);
-        return 2 * EARTH_R * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-    }
 }
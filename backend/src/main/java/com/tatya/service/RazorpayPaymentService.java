@@ -5,11 +5,13 @@ import com.razorpay.RazorpayClient;
 import com.razorpay.Utils;
 import com.tatya.entity.Booking;
 import com.tatya.entity.Payment;
+import com.tatya.model.VendorDashboardChangedEvent;
 import com.tatya.repository.BookingRepository;
 import com.tatya.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +26,8 @@ public class RazorpayPaymentService {
     private final PaymentRepository paymentRepository;
     private final BookingRepository bookingRepository;
     private final EmailService emailService;
+    private final RevenueRollupService revenueRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${razorpay.key.secret:placeholder_secret}")
     private String apiSecret;
@@ -50,7 +54,9 @@ public class RazorpayPaymentService {
         // DO NOT set transactionId here, it comes from Razorpay after success
         payment.setTimestamp(LocalDateTime.now());
 
-        return paymentRepository.save(payment);
+        Payment saved = paymentRepository.save(payment);
+        revenueRollupService.recordChange(null, saved);
+        return saved;
     }
 
     @Transactional
@@ -64,6 +70,7 @@ public class RazorpayPaymentService {
         options.put("razorpay_signature", signature);
 
         boolean isValid = Utils.verifyPaymentSignature(options, apiSecret);
+        RevenueRollupService.Contribution before = revenueRollupService.contributionOf(payment);
 
         if (isValid) {
             payment.setPaymentStatus(Payment.PaymentStatus.PAID);
@@ -73,9 +80,14 @@ public class RazorpayPaymentService {
             Booking booking = payment.getBooking();
             boolean wasPending = booking.getStatus() == Booking.BookingStatus.PENDING;
             booking.setStatus(Booking.BookingStatus.ACCEPTED);
+            if (booking.getAcceptedAt() == null) {
+                booking.setAcceptedAt(LocalDateTime.now());
+            }
             bookingRepository.save(booking);
 
             Payment saved = paymentRepository.save(payment);
+            revenueRollupService.recordChange(before, saved);
+            eventPublisher.publishEvent(new VendorDashboardChangedEvent(booking.getVendor().getVendorId()));
 
             if (wasPending) {
                 emailService.sendBookingConfirmationEmail(booking.getCustomer(), booking, false);
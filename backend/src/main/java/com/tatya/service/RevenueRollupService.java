@@ -0,0 +1,144 @@
+package com.tatya.service;
+
+import com.tatya.entity.Payment;
+import com.tatya.repository.DailyRevenueRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Maintains daily_revenue_rollup. Every code path that creates or changes a payment takes the
+ * payment's contribution before the change and passes it to {@link #recordChange} afterwards;
+ * the nightly reconciliation rebuilds the table from payments to correct any drift.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RevenueRollupService {
+
+    private final DailyRevenueRollupRepository rollupRepository;
+
+    /**
+     * What the payment currently adds to the rollup, or null for a payment that is not counted
+     * yet (new, or missing any part of the key).
+     */
+    public Contribution contributionOf(Payment payment) {
+        if (payment == null || payment.getPaymentId() == null || payment.getTimestamp() == null
+                || payment.getPaymentStatus() == null || payment.getPaymentMethod() == null
+                || payment.getBooking() == null || payment.getBooking().getVendor() == null) {
+            return null;
+        }
+        return new Contribution(payment.getTimestamp().toLocalDate(),
+                payment.getBooking().getVendor().getVendorId(),
+                payment.getPaymentStatus(), payment.getPaymentMethod(),
+                payment.getAmount() != null ? payment.getAmount() : BigDecimal.ZERO);
+    }
+
+    /**
+     * Moves a payment's contribution from {@code before} (null for a new payment) to its current
+     * state. Runs in the caller's transaction, so it rolls back with the payment change.
+     */
+    @Transactional
+    public void recordChange(Contribution before, Payment after) {
+        Contribution current = contributionOf(after);
+        if (Objects.equals(before, current)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (before != null) {
+            apply(before, -1, before.amount.negate(), now);
+        }
+        if (current != null) {
+            apply(current, 1, current.amount, now);
+        }
+    }
+
+    /**
+     * Rebuilds the whole rollup from the payments table.
+     *
+     * @return number of rollup rows written
+     */
+    @Transactional
+    public int reconcile() {
+        rollupRepository.deleteAllRows();
+        return rollupRepository.insertFromPayments(LocalDateTime.now());
+    }
+
+    /** Fills the rollup on the first start after it was introduced. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void seedIfEmpty() {
+        if (rollupRepository.count() == 0) {
+            int rows = reconcile();
+            log.info("Revenue rollup was empty; built {} rows from payments", rows);
+        }
+    }
+
+    /** Sum of PAID payments for the vendor dated in [from, to). */
+    public BigDecimal vendorPaidAmount(Long vendorId, LocalDate from, LocalDate to) {
+        BigDecimal sum = rollupRepository.sumAmountByVendorAndStatusAndDateBetween(
+                vendorId, Payment.PaymentStatus.PAID, from, to);
+        return sum != null ? sum : BigDecimal.ZERO;
+    }
+
+    /** Sum of all PAID payments and of those dated {@code day}, in that order. */
+    public BigDecimal[] paidTotalAndDay(LocalDate day) {
+        List<Object[]> rows = rollupRepository.sumAmountAndDayAmountByStatus(Payment.PaymentStatus.PAID, day);
+        if (rows.isEmpty()) {
+            return new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO };
+        }
+        Object[] row = rows.get(0);
+        return new BigDecimal[] {
+                row[0] != null ? (BigDecimal) row[0] : BigDecimal.ZERO,
+                row[1] != null ? (BigDecimal) row[1] : BigDecimal.ZERO };
+    }
+
+    private void apply(Contribution c, long countDelta, BigDecimal amountDelta, LocalDateTime now) {
+        rollupRepository.addDelta(c.date, c.vendorId, c.status.name(), c.method.name(), countDelta, amountDelta, now);
+    }
+
+    /** One payment's share of a rollup row. */
+    public static final class Contribution {
+        private final LocalDate date;
+        private final Long vendorId;
+        private final Payment.PaymentStatus status;
+        private final Payment.PaymentMethod method;
+        private final BigDecimal amount;
+
+        Contribution(LocalDate date, Long vendorId, Payment.PaymentStatus status,
+                     Payment.PaymentMethod method, BigDecimal amount) {
+            this.date = date;
+            this.vendorId = vendorId;
+            this.status = status;
+            this.method = method;
+            this.amount = amount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Contribution)) {
+                return false;
+            }
+            Contribution other = (Contribution) o;
+            return date.equals(other.date) && vendorId.equals(other.vendorId) && status == other.status
+                    && method == other.method && amount.compareTo(other.amount) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(date, vendorId, status, method, amount.stripTrailingZeros());
+        }
+    }
+}
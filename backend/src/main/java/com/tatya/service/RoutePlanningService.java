@@ -0,0 +1,325 @@
+package com.tatya.service;
+
+import com.tatya.entity.Assignment;
+import com.tatya.entity.Booking;
+import com.tatya.entity.Drone;
+import com.tatya.entity.RouteStop;
+import com.tatya.model.BookingPoint;
+import com.tatya.repository.BookingRepository;
+import com.tatya.repository.DroneRepository;
+import com.tatya.repository.DroneSpecificationRepository;
+import com.tatya.util.RouteOptimizer;
+import com.tatya.util.GeoUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Plans the spray route of newly assigned clusters: the order in which the vendor visits the
+ * cluster's bookings ({@link RouteOptimizer}) and a day and time window for each of them.
+ *
+ * No booking is sprayed before its service date (or the cluster's start, if that is later):
+ * bookings are routed one service date at a time, and the crew waits for the next date when it
+ * finishes early. A route that still runs past the cluster's end date is logged as a warning.
+ *
+ * The vendor is modelled as one crew flying all its available drones. Each drone sprays at the
+ * average timePerAcreMinutes of its available specifications, slowed by battery swaps
+ * (flightTimeMinutes of spraying per batterySwapTimeMinutes of swapping), and the crew's rate is
+ * the sum over its drones. A day runs from app.route.day-start to app.route.day-end and takes at
+ * most the drones' combined maxAcresPerDay; a booking that does not fit moves to the next day.
+ * Bookings are not split, so one larger than a whole day runs past the day's end.
+ *
+ * Inputs are loaded up front and clusters are planned in parallel on a dedicated pool.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoutePlanningService {
+
+    private static final int LOOKUP_CHUNK = 500;
+    private static final DateTimeFormatter SLOT_TIME = DateTimeFormatter.ofPattern("hh:mm a", Locale.ENGLISH);
+
+    @Value("${app.route.day-start:09:00}")
+    private LocalTime dayStart;
+
+    @Value("${app.route.day-end:17:00}")
+    private LocalTime dayEnd;
+
+    @Value("${app.route.travel-speed-kmh:25}")
+    private double travelSpeedKmh;
+
+    @Value("${app.route.default-minutes-per-acre:6}")
+    private double defaultMinutesPerAcre;
+
+    @Value("${app.allocation.default-acres-per-drone-day:30}")
+    private int defaultAcresPerDroneDay;
+
+    // 0 = one worker per available processor
+    @Value("${app.route.parallelism:0}")
+    private int routeParallelism;
+
+    private final BookingRepository bookingRepository;
+    private final DroneRepository droneRepository;
+    private final DroneSpecificationRepository droneSpecificationRepository;
+
+    private ForkJoinPool routePool;
+
+    @PostConstruct
+    void startRoutePool() {
+        int parallelism = routeParallelism > 0 ? routeParallelism : Runtime.getRuntime().availableProcessors();
+        routePool = new ForkJoinPool(parallelism);
+        log.info("Route planning pool started with parallelism {}", parallelism);
+    }
+
+    @PreDestroy
+    void stopRoutePool() {
+        routePool.shutdown();
+    }
+
+    /**
+     * Plans every assignment's cluster and sets its scheduledTimeSlot to the planned span.
+     * Each assignment's cluster needs its id and start date (and its end date for overrun
+     * warnings), and its vendor the id and location used as the route's starting point. Clusters
+     * without bookings keep their slot.
+     *
+     * @return the planned stops of all clusters, in cluster then visiting order
+     */
+    public List<RouteStop> planRoutes(List<Assignment> assignments) {
+        if (assignments.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<RoutePoint>> bookingsByCluster = loadClusterBookings(assignments);
+        Map<Long, Crew> crews = loadCrews(assignments);
+
+        List<List<RouteStop>> planned = new ArrayList<>(assignments.size());
+        for (int i = 0; i < assignments.size(); i++) {
+            planned.add(List.of());
+        }
+        routePool.submit(() -> IntStream.range(0, assignments.size()).parallel().forEach(i -> {
+            Assignment a = assignments.get(i);
+            List<RoutePoint> bookings = bookingsByCluster.get(a.getCluster().getId());
+            if (bookings != null) {
+                Crew crew = crews.getOrDefault(a.getVendor().getVendorId(), defaultCrew());
+                planned.set(i, plan(a, bookings, crew));
+            }
+        })).join();
+
+        List<RouteStop> stops = new ArrayList<>();
+        for (List<RouteStop> clusterStops : planned) {
+            stops.addAll(clusterStops);
+        }
+        return stops;
+    }
+
+    // Orders one cluster's bookings, one service date at a time, and walks the route through the working days
+    private List<RouteStop> plan(Assignment assignment, List<RoutePoint> bookings, Crew crew) {
+        LocalDate clusterStart = assignment.getCluster().getStartDate();
+        TreeMap<LocalDate, List<BookingPoint>> byDate = new TreeMap<>();
+        for (RoutePoint point : bookings) {
+            LocalDate due = point.serviceDate != null && point.serviceDate.isAfter(clusterStart)
+                    ? point.serviceDate : clusterStart;
+            byDate.computeIfAbsent(due, d -> new ArrayList<>()).add(point.booking);
+        }
+
+        double dayMinutes = Math.max(1, dayEnd.toSecondOfDay() - dayStart.toSecondOfDay()) / 60.0;
+        LocalDate day = clusterStart;
+        double clock = 0.0;      // minutes since dayStart
+        double dayAcres = 0.0;
+        boolean dayUsed = false;
+        double fromLat = assignment.getVendor().getLatitude().doubleValue();
+        double fromLon = assignment.getVendor().getLongitude().doubleValue();
+
+        List<RouteStop> stops = new ArrayList<>(bookings.size());
+        for (Map.Entry<LocalDate, List<BookingPoint>> due : byDate.entrySet()) {
+            if (due.getKey().isAfter(day)) {
+                // Nothing more can be sprayed before this date
+                day = due.getKey();
+                clock = 0.0;
+                dayAcres = 0.0;
+                dayUsed = false;
+            }
+            List<BookingPoint> group = due.getValue();
+            int n = group.size();
+            double[] lat = new double[n];
+            double[] lon = new double[n];
+            for (int k = 0; k < n; k++) {
+                lat[k] = group.get(k).getLat();
+                lon[k] = group.get(k).getLon();
+            }
+            int[] order = RouteOptimizer.order(fromLat, fromLon, lat, lon);
+
+            for (int k = 0; k < n; k++) {
+                BookingPoint booking = group.get(order[k]);
+                double acres = booking.getAcresCenti() / 100.0;
+                double travelKm = GeoUtils.haversineKm(fromLat, fromLon, booking.getLat(), booking.getLon());
+                double travelMinutes = travelKm / travelSpeedKmh * 60.0;
+                double sprayMinutes = acres / crew.acresPerMinute;
+
+                boolean overTime = clock + travelMinutes + sprayMinutes > dayMinutes;
+                boolean overAcres = dayAcres + acres > crew.acresPerDay;
+                if (dayUsed && (overTime || overAcres)) {
+                    // The crew stays in the area overnight and carries on from the last farm
+                    day = day.plusDays(1);
+                    clock = 0.0;
+                    dayAcres = 0.0;
+                }
+                double start = clock + travelMinutes;
+                double end = start + sprayMinutes;
+
+                RouteStop stop = new RouteStop();
+                stop.setClusterId(assignment.getCluster().getId());
+                stop.setBookingId(booking.getBookingId());
+                stop.setVendorId(assignment.getVendor().getVendorId());
+                stop.setSequence(stops.size() + 1);
+                stop.setServiceDate(day);
+                stop.setPlannedStart(timeAt(start));
+                stop.setPlannedEnd(timeAt(end));
+                stop.setTravelKm(Math.round(travelKm * 100) / 100.0);
+                stops.add(stop);
+
+                clock = end;
+                dayAcres += acres;
+                dayUsed = true;
+                fromLat = booking.getLat();
+                fromLon = booking.getLon();
+            }
+        }
+
+        RouteStop first = stops.get(0);
+        RouteStop last = stops.get(stops.size() - 1);
+        LocalDate clusterEnd = assignment.getCluster().getEndDate();
+        if (clusterEnd != null && last.getServiceDate().isAfter(clusterEnd)) {
+            long late = stops.stream().filter(stop -> stop.getServiceDate().isAfter(clusterEnd)).count();
+            log.warn("Route of cluster {} runs to {}, past its end date {}: {} of {} stops late",
+                    assignment.getCluster().getId(), last.getServiceDate(), clusterEnd, late, stops.size());
+        }
+        long days = last.getServiceDate().toEpochDay() - first.getServiceDate().toEpochDay() + 1;
+        assignment.setScheduledTimeSlot(first.getPlannedStart().format(SLOT_TIME) + " - "
+                + last.getPlannedEnd().format(SLOT_TIME) + (days > 1 ? ", " + days + " days" : ""));
+        return stops;
+    }
+
+    // Clock time `minutes` after dayStart, held at the last minute of the day if it would wrap
+    private LocalTime timeAt(double minutes) {
+        long second = dayStart.toSecondOfDay() + Math.round(minutes * 60.0);
+        return LocalTime.ofSecondOfDay(Math.min(second, LocalTime.MAX.toSecondOfDay()));
+    }
+
+    private Map<Long, List<RoutePoint>> loadClusterBookings(List<Assignment> assignments) {
+        List<Long> clusterIds = assignments.stream().map(a -> a.getCluster().getId()).toList();
+        Map<Long, List<RoutePoint>> bookings = new HashMap<>();
+        // Chunked so the IN list stays a reasonable size
+        for (int from = 0; from < clusterIds.size(); from += LOOKUP_CHUNK) {
+            List<Long> chunk = clusterIds.subList(from, Math.min(from + LOOKUP_CHUNK, clusterIds.size()));
+            for (Object[] row : bookingRepository.findRoutePointsByClusterIdIn(chunk, Booking.BookingStatus.ACCEPTED)) {
+                bookings.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                        .add(new RoutePoint(new BookingPoint((Long) row[1], (BigDecimal) row[2], (BigDecimal) row[3],
+                                (BigDecimal) row[4]), (LocalDate) row[5]));
+            }
+        }
+        return bookings;
+    }
+
+    private Map<Long, Crew> loadCrews(List<Assignment> assignments) {
+        List<Long> vendorIds = assignments.stream().map(a -> a.getVendor().getVendorId()).distinct().toList();
+        List<Object[]> droneRows = new ArrayList<>();
+        for (int from = 0; from < vendorIds.size(); from += LOOKUP_CHUNK) {
+            List<Long> chunk = vendorIds.subList(from, Math.min(from + LOOKUP_CHUNK, vendorIds.size()));
+            droneRows.addAll(droneRepository.findRoutePlanningRowsByVendorIdIn(chunk, Drone.DroneStatus.AVAILABLE));
+        }
+
+        // Average time per acre over each drone's available specifications
+        List<Long> droneIds = droneRows.stream().map(row -> (Long) row[1]).toList();
+        Map<Long, double[]> minutesPerAcre = new HashMap<>(); // drone id -> (sum, count)
+        for (int from = 0; from < droneIds.size(); from += LOOKUP_CHUNK) {
+            List<Long> chunk = droneIds.subList(from, Math.min(from + LOOKUP_CHUNK, droneIds.size()));
+            for (Object[] row : droneSpecificationRepository.findAvailableSpecSummariesByDroneIds(chunk)) {
+                double minutes = parseMinutesPerAcre((String) row[5]);
+                if (minutes > 0) {
+                    double[] acc = minutesPerAcre.computeIfAbsent((Long) row[0], id -> new double[2]);
+                    acc[0] += minutes;
+                    acc[1]++;
+                }
+            }
+        }
+
+        Map<Long, Crew> crews = new HashMap<>();
+        for (Object[] row : droneRows) {
+            Crew crew = crews.computeIfAbsent((Long) row[0], id -> new Crew(0.0, 0.0));
+            double[] acc = minutesPerAcre.get((Long) row[1]);
+            double minutes = acc != null ? acc[0] / acc[1] : defaultMinutesPerAcre;
+            Integer flight = (Integer) row[4];
+            Integer swap = (Integer) row[5];
+            double airborneShare = flight != null && flight > 0 && swap != null && swap > 0
+                    ? flight / (double) (flight + swap) : 1.0;
+            crew.acresPerMinute += airborneShare / minutes;
+            Integer maxAcres = row[2] != null ? (Integer) row[2] : (Integer) row[3];
+            crew.acresPerDay += maxAcres != null ? maxAcres : defaultAcresPerDroneDay;
+        }
+        return crews;
+    }
+
+    private Crew defaultCrew() {
+        return new Crew(1.0 / defaultMinutesPerAcre, defaultAcresPerDroneDay);
+    }
+
+    /**
+     * Minutes per acre from a specification value such as "5", "4-6" or "4.5 min" (ranges give
+     * their midpoint), or 0 if it has no number.
+     */
+    static double parseMinutesPerAcre(String value) {
+        if (value == null) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        int count = 0;
+        for (String part : value.split("[^0-9.]+")) {
+            if (part.isEmpty() || part.equals(".")) {
+                continue;
+            }
+            try {
+                sum += Double.parseDouble(part);
+                count++;
+            } catch (NumberFormatException e) {
+                // e.g. "1.2.3"; skip the fragment
+            }
+        }
+        return count > 0 ? sum / count : 0.0;
+    }
+
+    private static final class RoutePoint {
+        private final BookingPoint booking;
+        private final LocalDate serviceDate;
+
+        private RoutePoint(BookingPoint booking, LocalDate serviceDate) {
+            this.booking = booking;
+            this.serviceDate = serviceDate;
+        }
+    }
+
+    private static final class Crew {
+        private double acresPerMinute;
+        private double acresPerDay;
+
+        private Crew(double acresPerMinute, double acresPerDay) {
+            this.acresPerMinute = acresPerMinute;
+            this.acresPerDay = acresPerDay;
+        }
+    }
+}
@@ -2,15 +2,18 @@ package com.tatya.service;
 
 import com.tatya.entity.Cluster;
 import com.tatya.entity.ClusterHistory;
-import com.tatya.repository.ClusterHistoryRepository;
+import com.tatya.model.VendorDashboardChangedEvent;
+import com.tatya.repository.BulkInsertRepository;
 import com.tatya.repository.ClusterRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -21,17 +24,21 @@ public class SchedulerService {
     private final FarmCoverageService farmCoverageService;
     private final VendorAllocationService vendorAllocationService;
     private final ClusterRepository clusterRepository;
-    private final ClusterHistoryRepository clusterHistoryRepository;
+    private final BulkInsertRepository bulkInsertRepository;
+    private final RevenueRollupService revenueRollupService;
+    private final ExportJobService exportJobService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Job 1: Cluster Creation
-     * Runs every day at 4:00 AM.
+     * Runs every hour (clustering.incremental.cron). Only bookings accepted since the
+     * previous run are processed, so the run time follows the hourly delta.
      */
-    @Scheduled(cron = "0 0 4 * * ?")
+    @Scheduled(cron = "${clustering.incremental.cron:0 0 * * * ?}")
     public void runClusterCreationJob() {
         log.info("Starting Cluster Creation Job at {}", LocalDateTime.now());
-        farmCoverageService.generateClusters();
-        log.info("Cluster Creation Job Completed.");
+        List<Cluster> touched = farmCoverageService.generateClustersIncremental();
+        log.info("Cluster Creation Job Completed. {} clusters created or extended.", touched.size());
     }
 
     /**
@@ -48,15 +55,17 @@ public class SchedulerService {
     /**
      * Job 3: Archiving
      * Runs every day at 12:00 AM (Midnight).
-     * Moves completed clusters to history.
+     * Moves completed clusters to history. Clusters archived by an earlier run are skipped, so
+     * each completed cluster gets exactly one history row.
      */
     @Scheduled(cron = "0 0 0 * * ?")
     @Transactional
     public void runArchivingJob() {
         log.info("Starting Archiving Job at {}", LocalDateTime.now());
 
-        // Find completed clusters (or maybe cancelled ones too)
-        List<Cluster> completedClusters = clusterRepository.findByStatus(Cluster.ClusterStatus.COMPLETED);
+        // Find completed clusters not archived yet (or maybe cancelled ones too)
+        List<Cluster> completedClusters = clusterRepository.findUnarchivedByStatus(Cluster.ClusterStatus.COMPLETED);
+        List<ClusterHistory> histories = new ArrayList<>(completedClusters.size());
 
         for (Cluster cluster : completedClusters) {
             // Create History Record
@@ -72,9 +81,37 @@ public class SchedulerService {
                 history.setVendorId(cluster.getVendor().getVendorId());
             }
 
-            clusterHistoryRepository.save(history);
+            histories.add(history);
         }
+        bulkInsertRepository.insertClusterHistory(histories);
 
         log.info("Archived {} clusters.", completedClusters.size());
     }
+
+    /**
+     * Job 4: Revenue Rollup Reconciliation
+     * Runs every day at 12:30 AM (finance.rollup.reconcile-cron).
+     * Rebuilds daily_revenue_rollup from payments, correcting any drift in the incremental updates.
+     */
+    @Scheduled(cron = "${finance.rollup.reconcile-cron:0 30 0 * * ?}")
+    public void runRevenueRollupReconciliationJob() {
+        log.info("Starting Revenue Rollup Reconciliation Job at {}", LocalDateTime.now());
+        int rows = revenueRollupService.reconcile();
+        // Corrected earnings may differ from what vendor dashboards have cached
+        eventPublisher.publishEvent(new VendorDashboardChangedEvent(null));
+        log.info("Revenue Rollup Reconciliation Job Completed. {} rollup rows rebuilt.", rows);
+    }
+
+    /**
+     * Job 5: Export Cleanup
+     * Runs every 15 minutes. Removes admin export jobs that finished more than
+     * export.jobs.ttl-minutes ago together with their files.
+     */
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-interval-ms:900000}")
+    public void runExportCleanupJob() {
+        int removed = exportJobService.expireJobs();
+        if (removed > 0) {
+            log.info("Export Cleanup Job removed {} expired exports.", removed);
+        }
+    }
 }
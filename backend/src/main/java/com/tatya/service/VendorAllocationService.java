@@ -2,112 +2,215 @@ package com.tatya.service;
 
 import com.tatya.entity.Assignment;
 import com.tatya.entity.Cluster;
+import com.tatya.entity.Drone;
+import com.tatya.entity.RouteStop;
+import com.tatya.entity.User;
 import com.tatya.entity.Vendor;
-import com.tatya.repository.AssignmentRepository;
+import com.tatya.repository.BulkInsertRepository;
 import com.tatya.repository.ClusterRepository;
-import com.tatya.repository.VendorRepository;
+import com.tatya.repository.DroneRepository;
+import com.tatya.util.VendorAssignmentSolver;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class VendorAllocationService {
 
-    private final ClusterRepository clusterRepository;
-    private final VendorRepository vendorRepository;
-    private final AssignmentRepository assignmentRepository;
+    @Value("${app.allocation.max-vendor-distance-km:50}")
+    private double maxVendorDistanceKm;
+
+    @Value("${app.allocation.default-acres-per-drone-day:30}")
+    private int defaultAcresPerDroneDay;
+
+    @Value("${app.allocation.horizon-days:60}")
+    private int horizonDays;
 
-    private static final double MAX_VENDOR_DISTANCE_KM = 50.0;
-    private static final double EARTH_R_KM = 6371.0;
+    @Value("${app.allocation.overdue-window-days:3}")
+    private int overdueWindowDays;
+
+    private final ClusterRepository clusterRepository;
+    private final DroneRepository droneRepository;
+    private final BulkInsertRepository bulkInsertRepository;
+    private final RoutePlanningService routePlanningService;
 
     /**
      * Allocates vendors to pending clusters.
+     *
+     * All PENDING clusters are solved together ({@link VendorAssignmentSolver}) against each
+     * verified vendor's daily acre capacity, its lead time and the work it already holds on
+     * ACTIVE clusters for the same dates. Clusters no vendor has room for stay PENDING for the
+     * next run, as do clusters ending beyond the planning horizon. Overdue or undated clusters are
+     * planned from today over at least app.allocation.overdue-window-days more days, and activated
+     * clusters store the window they were planned for.
+     *
+     * Each assigned cluster then gets a planned spray route ({@link RoutePlanningService}), which
+     * replaces the placeholder time slot and is stored as route stops.
+     *
+     * Inputs come from projection queries (route planning looks ids up in fixed-size chunks) and
+     * results are written as JDBC batches, so there is no query per cluster.
      */
     @Transactional
     public void allocateVendors() {
-        // 1. Find all PENDING clusters
-        List<Cluster> pendingClusters = clusterRepository.findByStatus(Cluster.ClusterStatus.PENDING);
-
-        for (Cluster cluster : pendingClusters) {
-            // Optimization: Find best vendor within range (Bounding Box Check in DB)
-            Vendor bestVendor = findBestVendorOptimized(cluster);
-
-            if (bestVendor != null) {
-                // Assign
-                cluster.setVendor(bestVendor);
-                cluster.setStatus(Cluster.ClusterStatus.ACTIVE);
-                clusterRepository.save(cluster);
-
-                // Create Assignment Record
-                Assignment assignment = new Assignment();
-                assignment.setCluster(cluster);
-                assignment.setVendor(bestVendor);
-                // Simple placeholder slot
-                assignment.setScheduledTimeSlot("09:00 AM - 05:00 PM");
-                assignmentRepository.save(assignment);
+        LocalDate today = LocalDate.now();
+
+        // 1. Pending clusters with a location and dates inside the horizon
+        List<Object[]> clusterRows = clusterRepository.findAllocationRowsByStatus(Cluster.ClusterStatus.PENDING);
+        boolean anyUncentered = clusterRows.stream().anyMatch(row -> row[1] == null || row[2] == null);
+        Map<Long, BigDecimal[]> farmCenters = anyUncentered ? farmCentersOfUncenteredClusters() : Map.of();
+        int n = clusterRows.size();
+        long[] clusterIds = new long[n];
+        double[] clusterLat = new double[n];
+        double[] clusterLon = new double[n];
+        int[] acresCenti = new int[n];
+        int[] startDay = new int[n];
+        int[] endDay = new int[n];
+        int[] priority = new int[n];
+        int count = 0;
+        int unlocated = 0;
+        int beyondHorizon = 0;
+        for (Object[] row : clusterRows) {
+            Long id = (Long) row[0];
+            BigDecimal[] center = row[1] != null && row[2] != null
+                    ? new BigDecimal[] { (BigDecimal) row[1], (BigDecimal) row[2] }
+                    : farmCenters.get(id);
+            if (center == null) {
+                unlocated++;
+                continue;
             }
+            // Overdue or undated clusters are planned from today, over at least overdueWindowDays more
+            // days: squeezed into today alone, most would exceed every vendor's daily capacity
+            long rawStart = daysFrom(today, (LocalDate) row[4], 0);
+            int start = (int) Math.max(0, rawStart);
+            int end = (int) Math.max(start, daysFrom(today, (LocalDate) row[5], start));
+            if (row[4] == null || row[5] == null || rawStart < 0) {
+                end = Math.max(end, overdueWindowDays);
+            }
+            if (end >= horizonDays) {
+                beyondHorizon++;
+                continue;
+            }
+            clusterIds[count] = id;
+            clusterLat[count] = center[0].doubleValue();
+            clusterLon[count] = center[1].doubleValue();
+            acresCenti[count] = toCenti((BigDecimal) row[3]);
+            startDay[count] = start;
+            endDay[count] = end;
+            priority[count] = row[6] != null ? (Integer) row[6] : 0;
+            count++;
+        }
+
+        if (count == 0) {
+            log.info("Vendor allocation: no pending clusters to assign ({} pending, {} without a location, "
+                    + "{} beyond the {}-day horizon)", n, unlocated, beyondHorizon, horizonDays);
+            return;
         }
-    }
 
-    private Vendor findBestVendorOptimized(Cluster cluster) {
-        if (cluster.getCenterLatitude() == null || cluster.getCenterLongitude() == null) {
-            // Fallback if center not set (e.g. manually created cluster without farms)
-            if (cluster.getFarms().isEmpty())
-                return null;
-            var farm = cluster.getFarms().iterator().next();
-            // Just use farm location as temp center
-            return findBestVendorNear(
-                    farm.getLatitude().doubleValue(),
-                    farm.getLongitude().doubleValue());
+        // 2. Vendors with their daily capacity: declared acres/day of available drones
+        List<Object[]> vendorRows = droneRepository.findAllocationCapacityRows(
+                Drone.DroneStatus.AVAILABLE, User.UserStatus.ACTIVE, Vendor.VerifiedStatus.VERIFIED);
+        int m = vendorRows.size();
+        long[] vendorIds = new long[m];
+        double[] vendorLat = new double[m];
+        double[] vendorLon = new double[m];
+        int[] capacityCenti = new int[m];
+        int[] firstDay = new int[m];
+        Map<Long, Integer> vendorIndex = new HashMap<>(m * 2);
+        for (int v = 0; v < m; v++) {
+            Object[] row = vendorRows.get(v);
+            vendorIds[v] = ((Number) row[0]).longValue();
+            vendorLat[v] = ((BigDecimal) row[1]).doubleValue();
+            vendorLon[v] = ((BigDecimal) row[2]).doubleValue();
+            long acresPerDay = ((Number) row[3]).longValue() + ((Number) row[4]).longValue() * defaultAcresPerDroneDay;
+            capacityCenti[v] = (int) Math.min(Integer.MAX_VALUE, acresPerDay * 100);
+            firstDay[v] = ((Number) row[5]).intValue();
+            vendorIndex.put(vendorIds[v], v);
         }
-        return findBestVendorNear(
-                cluster.getCenterLatitude().doubleValue(),
-                cluster.getCenterLongitude().doubleValue());
+
+        VendorAssignmentSolver solver = new VendorAssignmentSolver(
+                Arrays.copyOf(clusterLat, count), Arrays.copyOf(clusterLon, count), Arrays.copyOf(acresCenti, count),
+                Arrays.copyOf(startDay, count), Arrays.copyOf(endDay, count), Arrays.copyOf(priority, count),
+                vendorLat, vendorLon, capacityCenti, firstDay, horizonDays, maxVendorDistanceKm);
+
+        // 3. Work vendors already hold on active clusters
+        for (Object[] row : clusterRepository.findVendorLoadRows(Cluster.ClusterStatus.ACTIVE, today)) {
+            Integer v = vendorIndex.get(((Number) row[0]).longValue());
+            if (v == null) {
+                continue;
+            }
+            long end = daysFrom(today, (LocalDate) row[3], 0);
+            long start = daysFrom(today, (LocalDate) row[2], end);
+            if (start <= end && start < horizonDays) {
+                solver.reserve(v, (int) start, (int) end, toCenti((BigDecimal) row[1]));
+            }
+        }
+
+        // 4. Solve and write the result in batches
+        int[] vendorOf = solver.solve();
+        List<Assignment> assignments = new ArrayList<>();
+        double totalKm = 0.0;
+        for (int c = 0; c < count; c++) {
+            int v = vendorOf[c];
+            if (v < 0) {
+                continue;
+            }
+            totalKm += solver.distanceKm(c, v);
+
+            Cluster cluster = new Cluster();
+            cluster.setId(clusterIds[c]);
+            cluster.setStartDate(today.plusDays(startDay[c]));
+            cluster.setEndDate(today.plusDays(endDay[c]));
+            Vendor vendor = new Vendor();
+            vendor.setVendorId(vendorIds[v]);
+            vendor.setLatitude(BigDecimal.valueOf(vendorLat[v]));
+            vendor.setLongitude(BigDecimal.valueOf(vendorLon[v]));
+
+            Assignment assignment = new Assignment();
+            assignment.setCluster(cluster);
+            assignment.setVendor(vendor);
+            // Placeholder slot, replaced by the route plan when the cluster has bookings
+            assignment.setScheduledTimeSlot("09:00 AM - 05:00 PM");
+            assignments.add(assignment);
+        }
+        List<RouteStop> stops = routePlanningService.planRoutes(assignments);
+        bulkInsertRepository.activateAssignedClusters(assignments);
+        bulkInsertRepository.insertAssignments(assignments);
+        bulkInsertRepository.insertRouteStops(stops);
+
+        log.info("Vendor allocation: {} of {} pending clusters assigned ({} km total, {} eligible vendors), "
+                        + "{} without a location, {} beyond the {}-day horizon; {} route stops planned",
+                assignments.size(), n, Math.round(totalKm), m, unlocated, beyondHorizon, horizonDays, stops.size());
     }
 
-    private Vendor findBestVendorNear(double lat, double lon) {
-        // Calculate Bounding Box for ~50km
-        // 1 deg lat ~= 111km
-        double latRange = MAX_VENDOR_DISTANCE_KM / 111.0;
-        // 1 deg lon = 111km * cos(lat)
-        double lonRange = MAX_VENDOR_DISTANCE_KM / (111.0 * Math.cos(Math.toRadians(lat)));
-
-        BigDecimal minLat = BigDecimal.valueOf(lat - latRange);
-        BigDecimal maxLat = BigDecimal.valueOf(lat + latRange);
-        BigDecimal minLon = BigDecimal.valueOf(lon - lonRange);
-        BigDecimal maxLon = BigDecimal.valueOf(lon + lonRange);
-
-        // Fetch only candidates in box
-        List<Vendor> candidates = vendorRepository.findByLatitudeBetweenAndLongitudeBetween(minLat, maxLat, minLon,
-                maxLon);
-
-        Vendor best = null;
-        double minDistance = MAX_VENDOR_DISTANCE_KM;
-
-        for (Vendor vendor : candidates) {
-            if (vendor.getLatitude() != null && vendor.getLongitude() != null) {
-                double dist = haversineKm(lat, lon, vendor.getLatitude().doubleValue(),
-                        vendor.getLongitude().doubleValue());
-                if (dist < minDistance) {
-                    minDistance = dist;
-                    best = vendor;
-                }
+    // First farm of each pending cluster without a stored center, as (lat, lng)
+    private Map<Long, BigDecimal[]> farmCentersOfUncenteredClusters() {
+        Map<Long, BigDecimal[]> centers = new HashMap<>();
+        for (Object[] row : clusterRepository.findFarmLocationsOfUncenteredClusters(Cluster.ClusterStatus.PENDING)) {
+            if (row[1] != null && row[2] != null) {
+                centers.putIfAbsent((Long) row[0], new BigDecimal[] { (BigDecimal) row[1], (BigDecimal) row[2] });
             }
         }
-        return best;
+        return centers;
+    }
+
+    private static long daysFrom(LocalDate today, LocalDate date, long ifNull) {
+        return date != null ? ChronoUnit.DAYS.between(today, date) : ifNull;
     }
 
-    private double haversineKm(double lat1, double lon1, double lat2, double lon2) {
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return EARTH_R_KM * c;
+    private static int toCenti(BigDecimal acres) {
+        return acres != null ? (int) Math.round(acres.doubleValue() * 100) : 0;
     }
 }
@@ -2,20 +2,26 @@ package com.tatya.service;
 
 import com.tatya.dto.*;
 import com.tatya.entity.Booking;
-import com.tatya.entity.Payment;
 import com.tatya.entity.Vendor;
+import com.tatya.model.VendorDashboardChangedEvent;
 import com.tatya.repository.BookingRepository;
-import com.tatya.repository.PaymentRepository;
 import com.tatya.repository.VendorRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,30 +31,72 @@ public class VendorDashboardService {
 
     private final VendorRepository vendorRepository;
     private final BookingRepository bookingRepository;
-    private final PaymentRepository paymentRepository;
+    private final RevenueRollupService revenueRollupService;
+
+    // Cached views per vendor; the least recently polled vendor is dropped beyond this many
+    @Value("${app.vendor.dashboard-cache-max-vendors:1000}")
+    private int cacheMaxVendors;
+
+    // Snapshots are rebuilt after this long, for changes that publish no invalidation
+    @Value("${app.vendor.dashboard-cache-max-age-seconds:300}")
+    private long cacheMaxAgeSeconds;
+
+    private static final int MAX_VIEWS_PER_VENDOR = 32;
+
+    private Map<Long, Snapshot> snapshots;
+
+    // Bumped on every invalidation; a load only stores its result if no invalidation ran meanwhile
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    void createSnapshotCache() {
+        int maxVendors = cacheMaxVendors;
+        snapshots = Collections.synchronizedMap(new LinkedHashMap<Long, Snapshot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Snapshot> eldest) {
+                return size() > maxVendors;
+            }
+        });
+    }
+
+    /**
+     * Drops the cached dashboard of the vendor (or of every vendor for a null id) once the
+     * change that caused the event has committed.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onVendorDashboardChanged(VendorDashboardChangedEvent event) {
+        generation.incrementAndGet();
+        if (event.getVendorId() == null) {
+            snapshots.clear();
+        } else {
+            snapshots.remove(event.getVendorId());
+        }
+    }
 
     /**
      * Stats are read only from the database. No fake data.
-     * - Earnings: SUM of Payment.amount where Payment.booking.vendor = vendorId, status = PAID, timestamp in month.
-     *   (Tables: payments -> booking_id -> bookings.vendor_id.) If no payments exist, query returns 0 (COALESCE in DB).
+     * - Earnings: SUM of PAID amounts for vendorId dated in the month, read from daily_revenue_rollup
+     *   (maintained from payments -> bookings.vendor_id). If no payments exist, query returns 0 (COALESCE in DB).
      * - Rating: vendors.rating_avg (null -> 0).
      * - Jobs completed: COUNT of bookings where vendor_id = vendorId and status = COMPLETED.
      * - Success rate: completed / (accepted + completed); if no bookings, returns 100%.
      */
     public VendorDashboardStatsResponse getStats(Long vendorId) {
-        vendorRepository.findById(vendorId).orElseThrow(() -> new RuntimeException("Vendor not found"));
+        return cached(vendorId, "stats", () -> loadStats(vendorId));
+    }
+
+    private VendorDashboardStatsResponse loadStats(Long vendorId) {
+        Vendor vendor = vendorRepository.findById(vendorId).orElseThrow(() -> new RuntimeException("Vendor not found"));
 
         LocalDate now = LocalDate.now();
-        LocalDateTime monthStart = now.withDayOfMonth(1).atStartOfDay();
-        LocalDateTime monthEnd = monthStart.plusMonths(1);
-        LocalDateTime lastMonthStart = monthStart.minusMonths(1);
-        LocalDateTime lastMonthEnd = monthStart;
+        LocalDate monthStart = now.withDayOfMonth(1);
+        LocalDate monthEnd = monthStart.plusMonths(1);
+        LocalDate lastMonthStart = monthStart.minusMonths(1);
+        LocalDate lastMonthEnd = monthStart;
 
-        // Earnings: from payments table (joined to booking -> vendor). No rows => SUM is null => we use 0.
-        BigDecimal thisMonthEarnings = paymentRepository.sumAmountByVendorAndStatusAndTimestampBetween(
-                vendorId, Payment.PaymentStatus.PAID, monthStart, monthEnd);
-        BigDecimal lastMonthEarnings = paymentRepository.sumAmountByVendorAndStatusAndTimestampBetween(
-                vendorId, Payment.PaymentStatus.PAID, lastMonthStart, lastMonthEnd);
+        // Earnings: from the daily revenue rollup. No rows => SUM is null => we use 0.
+        BigDecimal thisMonthEarnings = revenueRollupService.vendorPaidAmount(vendorId, monthStart, monthEnd);
+        BigDecimal lastMonthEarnings = revenueRollupService.vendorPaidAmount(vendorId, lastMonthStart, lastMonthEnd);
 
         if (thisMonthEarnings == null) thisMonthEarnings = BigDecimal.ZERO;
         if (lastMonthEarnings == null) lastMonthEarnings = BigDecimal.ZERO;
@@ -62,8 +110,7 @@ public class VendorDashboardService {
             earningsChangePercent = 100.0;
         }
 
-        Vendor vendor = vendorRepository.findById(vendorId).orElse(null);
-        BigDecimal rating = vendor != null && vendor.getRatingAvg() != null ? vendor.getRatingAvg() : BigDecimal.ZERO;
+        BigDecimal rating = vendor.getRatingAvg() != null ? vendor.getRatingAvg() : BigDecimal.ZERO;
 
         long jobsCompleted = bookingRepository.countByVendor_VendorIdAndStatus(vendorId, Booking.BookingStatus.COMPLETED);
         long totalAcceptedOrCompleted = bookingRepository.countByVendor_VendorIdAndStatus(vendorId, Booking.BookingStatus.ACCEPTED)
@@ -82,6 +129,10 @@ public class VendorDashboardService {
     }
 
     public VendorDashboardChartResponse getChartData(Long vendorId, String period) {
+        return cached(vendorId, "chart:" + (period != null ? period.toLowerCase() : ""), () -> loadChartData(vendorId, period));
+    }
+
+    private VendorDashboardChartResponse loadChartData(Long vendorId, String period) {
         vendorRepository.findById(vendorId).orElseThrow(() -> new RuntimeException("Vendor not found"));
 
         List<String> labels = new ArrayList<>();
@@ -91,36 +142,23 @@ public class VendorDashboardService {
 
         if ("year".equalsIgnoreCase(period)) {
             startDate = endDate.minusYears(1);
-            Map<String, BigDecimal> monthAcres = new LinkedHashMap<>();
+            Map<YearMonth, BigDecimal> monthAcres = new LinkedHashMap<>();
             for (int i = 11; i >= 0; i--) {
-                LocalDate m = endDate.minusMonths(i);
-                String key = m.getMonth().name().substring(0, 1) + m.getMonth().name().substring(1).toLowerCase() + " " + m.getYear();
-                monthAcres.put(key, BigDecimal.ZERO);
+                monthAcres.put(YearMonth.from(endDate.minusMonths(i)), BigDecimal.ZERO);
+            }
+            for (Object[] row : bookingRepository.sumAcresByMonth(vendorId, Booking.BookingStatus.COMPLETED, startDate, endDate)) {
+                YearMonth m = YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+                // The range starts a year back, so it can touch a month just before the 12 shown
+                monthAcres.computeIfPresent(m, (k, v) -> (BigDecimal) row[2]);
             }
-            List<Booking> bookings = bookingRepository.findByVendor_VendorIdAndServiceDateBetween(vendorId, startDate, endDate);
-            for (Booking b : bookings) {
-                if (b.getStatus() != Booking.BookingStatus.COMPLETED) continue;
-                LocalDate d = b.getServiceDate();
-                String key = d.getMonth().name().substring(0, 1) + d.getMonth().name().substring(1).toLowerCase() + " " + d.getYear();
-                BigDecimal acres = b.getFarmAreaAcres() != null ? b.getFarmAreaAcres() : BigDecimal.ZERO;
-                monthAcres.put(key, monthAcres.get(key).add(acres));
+            for (Map.Entry<YearMonth, BigDecimal> e : monthAcres.entrySet()) {
+                String month = e.getKey().getMonth().name();
+                labels.add(month.charAt(0) + month.substring(1).toLowerCase() + " " + e.getKey().getYear());
+                values.add(e.getValue());
             }
-            labels.addAll(monthAcres.keySet());
-            values.addAll(monthAcres.values());
         } else if ("month".equalsIgnoreCase(period)) {
             startDate = endDate.minusDays(29);
-            Map<LocalDate, BigDecimal> dayAcres = new LinkedHashMap<>();
-            for (int i = 29; i >= 0; i--) {
-                LocalDate d = endDate.minusDays(i);
-                dayAcres.put(d, BigDecimal.ZERO);
-            }
-            List<Booking> bookings = bookingRepository.findByVendor_VendorIdAndServiceDateBetween(vendorId, startDate, endDate);
-            for (Booking b : bookings) {
-                if (b.getStatus() != Booking.BookingStatus.COMPLETED) continue;
-                LocalDate d = b.getServiceDate();
-                BigDecimal acres = b.getFarmAreaAcres() != null ? b.getFarmAreaAcres() : BigDecimal.ZERO;
-                dayAcres.put(d, dayAcres.get(d).add(acres));
-            }
+            Map<LocalDate, BigDecimal> dayAcres = acresByDay(vendorId, startDate, endDate);
             for (LocalDate d : dayAcres.keySet()) {
                 labels.add(d.getDayOfMonth() + "/" + d.getMonthValue());
                 values.add(dayAcres.get(d));
@@ -129,18 +167,7 @@ public class VendorDashboardService {
             // week: last 7 days, label = day name
             startDate = endDate.minusDays(6);
             String[] dayNames = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
-            Map<LocalDate, BigDecimal> dayAcres = new LinkedHashMap<>();
-            for (int i = 6; i >= 0; i--) {
-                LocalDate d = endDate.minusDays(i);
-                dayAcres.put(d, BigDecimal.ZERO);
-            }
-            List<Booking> bookings = bookingRepository.findByVendor_VendorIdAndServiceDateBetween(vendorId, startDate, endDate);
-            for (Booking b : bookings) {
-                if (b.getStatus() != Booking.BookingStatus.COMPLETED) continue;
-                LocalDate d = b.getServiceDate();
-                BigDecimal acres = b.getFarmAreaAcres() != null ? b.getFarmAreaAcres() : BigDecimal.ZERO;
-                dayAcres.put(d, dayAcres.get(d).add(acres));
-            }
+            Map<LocalDate, BigDecimal> dayAcres = acresByDay(vendorId, startDate, endDate);
             for (LocalDate d : dayAcres.keySet()) {
                 labels.add(dayNames[d.getDayOfWeek().getValue() % 7]);
                 values.add(dayAcres.get(d));
@@ -154,15 +181,36 @@ public class VendorDashboardService {
         return new VendorDashboardChartResponse(period, labels, values, totalAcres, avgPerDay);
     }
 
+    /**
+     * Completed acres per day in [startDate, endDate], summed in the database; days without
+     * completed bookings are filled with zero.
+     */
+    private Map<LocalDate, BigDecimal> acresByDay(Long vendorId, LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, BigDecimal> dayAcres = new LinkedHashMap<>();
+        for (LocalDate d = startDate; !d.isAfter(endDate); d = d.plusDays(1)) {
+            dayAcres.put(d, BigDecimal.ZERO);
+        }
+        for (Object[] row : bookingRepository.sumAcresByDay(vendorId, Booking.BookingStatus.COMPLETED, startDate, endDate)) {
+            dayAcres.put((LocalDate) row[0], (BigDecimal) row[1]);
+        }
+        return dayAcres;
+    }
+
     public List<VendorDashboardBookingResponse> getBookings(Long vendorId, LocalDate date) {
-        vendorRepository.findById(vendorId).orElseThrow(() -> new RuntimeException("Vendor not found"));
-        List<Booking> bookings = bookingRepository.findByVendor_VendorIdAndServiceDate(vendorId, date);
-        return bookings.stream()
-                .map(this::toBookingResponse)
-                .collect(Collectors.toList());
+        return cached(vendorId, "bookings:" + date, () -> {
+            vendorRepository.findById(vendorId).orElseThrow(() -> new RuntimeException("Vendor not found"));
+            List<Booking> bookings = bookingRepository.findByVendor_VendorIdAndServiceDate(vendorId, date);
+            return bookings.stream()
+                    .map(this::toBookingResponse)
+                    .collect(Collectors.toUnmodifiableList());
+        });
     }
 
     public VendorDashboardDaySummaryResponse getDaySummary(Long vendorId, LocalDate date) {
+        return cached(vendorId, "day-summary:" + date, () -> loadDaySummary(vendorId, date));
+    }
+
+    private VendorDashboardDaySummaryResponse loadDaySummary(Long vendorId, LocalDate date) {
         vendorRepository.findById(vendorId).orElseThrow(() -> new RuntimeException("Vendor not found"));
         List<Booking> bookings = bookingRepository.findByVendor_VendorIdAndServiceDate(vendorId, date);
         BigDecimal planned = BigDecimal.ZERO;
@@ -179,6 +227,56 @@ public class VendorDashboardService {
         return new VendorDashboardDaySummaryResponse(date, planned, completed, remaining, progressPercent);
     }
 
+    /**
+     * Returns the cached view of the vendor, loading it on a miss. Snapshots only live for the
+     * calendar day they were built on, since the month/week windows move at midnight, and for at
+     * most app.vendor.dashboard-cache-max-age-seconds, since ratings, cluster changes and direct
+     * edits publish no invalidation. A load that overlaps an invalidation (of any vendor) may
+     * have read data from before the change, so it is returned to its caller but not stored; the
+     * next request loads again. A vendor gets a cache entry only once a load succeeds, so failing
+     * lookups (unknown ids) evict no one.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T cached(Long vendorId, String view, Supplier<T> loader) {
+        LocalDate today = LocalDate.now();
+        long now = System.currentTimeMillis();
+        long loadGeneration = generation.get();
+        Snapshot snapshot = snapshots.get(vendorId);
+        Object value = snapshot != null && isCurrent(snapshot, today, now) ? snapshot.views.get(view) : null;
+        if (value == null) {
+            value = loader.get();
+            synchronized (snapshots) {
+                if (generation.get() == loadGeneration) {
+                    Snapshot current = snapshots.get(vendorId);
+                    if (current == null || !isCurrent(current, today, now)) {
+                        current = new Snapshot(today, now);
+                        snapshots.put(vendorId, current);
+                    }
+                    if (current.views.size() >= MAX_VIEWS_PER_VENDOR) {
+                        current.views.clear();
+                    }
+                    current.views.put(view, value);
+                }
+            }
+        }
+        return (T) value;
+    }
+
+    private boolean isCurrent(Snapshot snapshot, LocalDate today, long now) {
+        return snapshot.day.equals(today) && now - snapshot.createdAtMillis < cacheMaxAgeSeconds * 1000;
+    }
+
+    private static final class Snapshot {
+        private final LocalDate day;
+        private final long createdAtMillis;
+        private final Map<String, Object> views = new ConcurrentHashMap<>();
+
+        Snapshot(LocalDate day, long createdAtMillis) {
+            this.day = day;
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+
     private VendorDashboardBookingResponse toBookingResponse(Booking b) {
         String locationDisplay = b.getLocationLat() != null && b.getLocationLong() != null
                 ? b.getLocationLat().setScale(4, RoundingMode.HALF_UP) + ", " + b.getLocationLong().setScale(4, RoundingMode.HALF_UP)
@@ -4,20 +4,17 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tatya.dto.*;
 import com.tatya.entity.*;
+import com.tatya.model.DroneFleetChangedEvent;
 import com.tatya.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.tatya.util.GeoUtils;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -29,8 +26,9 @@ public class VendorOnboardingService {
     private final DroneRepository droneRepository;
     private final VendorBankAccountRepository bankAccountRepository;
     private final VendorDocumentRepository documentRepository;
-    private final AvailabilityRepository availabilityRepository;
+    private final AvailabilityService availabilityService;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Save Step 1: Equipment Basics
@@ -63,7 +61,9 @@ public class VendorOnboardingService {
             drone.setDroneModel(request.getModelName());
         }
         
-        return droneRepository.save(drone);
+        Drone saved = droneRepository.save(drone);
+        eventPublisher.publishEvent(new DroneFleetChangedEvent(request.getVendorId()));
+        return saved;
     }
     
     /**
@@ -92,7 +92,9 @@ public class VendorOnboardingService {
             drone.setCapacityLiters(request.getTankSize());
         }
         
-        return droneRepository.save(drone);
+        Drone saved = droneRepository.save(drone);
+        eventPublisher.publishEvent(new DroneFleetChangedEvent(request.getVendorId()));
+        return saved;
     }
     
     /**
@@ -156,7 +158,10 @@ public class VendorOnboardingService {
             }
         }
         
-        return droneRepository.save(drone);
+        Drone saved = droneRepository.save(drone);
+        availabilityService.refreshRule(saved, null, null);
+        eventPublisher.publishEvent(new DroneFleetChangedEvent(request.getVendorId()));
+        return saved;
     }
     
     /**
@@ -172,13 +177,19 @@ public class VendorOnboardingService {
         drone.setCoordinates(request.getCoordinates());
         drone.setServiceAreas(request.getServiceAreas());
 
-        Drone saved = droneRepository.save(drone);
-        GeoUtils.parseLatLngCommaSeparated(saved.getCoordinates()).ifPresent(arr -> {
-            Vendor v = saved.getVendor();
+        Vendor v = drone.getVendor();
+        GeoUtils.parseLatLngCommaSeparated(drone.getCoordinates()).ifPresent(arr -> {
             v.setLatitude(BigDecimal.valueOf(arr[0]));
             v.setLongitude(BigDecimal.valueOf(arr[1]));
             vendorRepository.save(v);
+            droneRepository.updateServiceBaseByVendorId(v.getVendorId(), arr[0], arr[1]);
         });
+        double[] base = GeoUtils.serviceBase(v.getLatitude(), v.getLongitude(), drone.getCoordinates()).orElse(null);
+        drone.setBaseLat(base != null ? base[0] : null);
+        drone.setBaseLng(base != null ? base[1] : null);
+
+        Drone saved = droneRepository.save(drone);
+        eventPublisher.publishEvent(new DroneFleetChangedEvent(request.getVendorId()));
         return saved;
     }
     
@@ -191,54 +202,6 @@ public class VendorOnboardingService {
         
         Drone drone = getOrCreateDrone(request.getVendorId());
         
-        // Handle availability dates and create/update Availability records
-        if (request.getStartDate() != null) {
-            List<Availability> existingAvailabilities = availabilityRepository.findByDrone_DroneId(drone.getDroneId());
-            
-            // If no availability records exist, create them starting from start date
-            if (existingAvailabilities.isEmpty()) {
-                log.info("No existing availability records found. Creating new records from {}", 
-                    request.getStartDate());
-                
-                // Parse time batches to get time slots
-                List<TimeSlot> timeSlots = parseTimeBatches(request.getTimeBatches());
-                
-                // Create availability records starting from start date (create for next 365 days)
-                LocalDate currentDate = request.getStartDate();
-                LocalDate endDate = currentDate.plusDays(365); // Default to 1 year ahead
-                
-                while (!currentDate.isAfter(endDate)) {
-                    for (TimeSlot slot : timeSlots) {
-                        Availability availability = new Availability();
-                        availability.setDrone(drone);
-                        availability.setAvailableDate(currentDate);
-                        availability.setStartDate(request.getStartDate());
-                        availability.setEndDate(endDate);
-                        availability.setStartTime(slot.startTime);
-                        availability.setEndTime(slot.endTime);
-                        availability.setIsBooked(false);
-                        availabilityRepository.save(availability);
-                    }
-                    currentDate = currentDate.plusDays(1);
-                }
-                log.info("Created availability records from {} for {} days with {} time slots each", 
-                    request.getStartDate(),
-                    ChronoUnit.DAYS.between(request.getStartDate(), endDate) + 1, 
-                    timeSlots.size());
-            } else {
-                // Update existing availability records with start date
-                log.info("Updating {} existing availability records with start date", existingAvailabilities.size());
-                for (Availability availability : existingAvailabilities) {
-                    availability.setStartDate(request.getStartDate());
-                    // Keep existing end date or set to 1 year from start date
-                    if (availability.getEndDate() == null || availability.getEndDate().isBefore(request.getStartDate())) {
-                        availability.setEndDate(request.getStartDate().plusDays(365));
-                    }
-                    availabilityRepository.save(availability);
-                }
-            }
-        }
-        
         drone.setSlaReachTimeHours(request.getSlaReachTime());
         drone.setAvailabilityStatus(request.getAvailabilityStatus());
         drone.setMaxAcresPerDay(request.getMaxAcresPerDay());
@@ -253,109 +216,17 @@ public class VendorOnboardingService {
             }
         }
         
-        return droneRepository.save(drone);
-    }
-    
-    /**
-     * Parse time batches into time slots
-     * Supports formats like "morning", "afternoon", "evening" or "06:00-10:00"
-     */
-    private List<TimeSlot> parseTimeBatches(List<String> timeBatches) {
-        List<TimeSlot> slots = new ArrayList<>();
-        
-        if (timeBatches == null || timeBatches.isEmpty()) {
-            // Default time slots if none provided
-            slots.add(new TimeSlot(LocalTime.of(6, 0), LocalTime.of(10, 0)));
-            slots.add(new TimeSlot(LocalTime.of(10, 0), LocalTime.of(14, 0)));
-            slots.add(new TimeSlot(LocalTime.of(14, 0), LocalTime.of(18, 0)));
-            return slots;
-        }
-        
-        for (String batch : timeBatches) {
-            if (batch == null || batch.trim().isEmpty()) {
-                continue;
-            }
-            
-            String lowerBatch = batch.toLowerCase().trim();
-            
-            // Handle named batches
-            if (lowerBatch.contains("morning")) {
-                slots.add(new TimeSlot(LocalTime.of(6, 0), LocalTime.of(11, 0)));
-            } else if (lowerBatch.contains("afternoon")) {
-                slots.add(new TimeSlot(LocalTime.of(11, 0), LocalTime.of(17, 0)));
-            } else if (lowerBatch.contains("evening")) {
-                slots.add(new TimeSlot(LocalTime.of(17, 0), LocalTime.of(20, 0)));
-            } else if (lowerBatch.contains("night")) {
-                slots.add(new TimeSlot(LocalTime.of(20, 0), LocalTime.of(22, 0)));
-            } else if (batch.contains("-") || batch.contains("to")) {
-                // Parse time range like "06:00-10:00" or "06:00 to 10:00"
-                try {
-                    String[] parts = batch.split("[-to]");
-                    if (parts.length == 2) {
-                        LocalTime start = parseTime(parts[0].trim());
-                        LocalTime end = parseTime(parts[1].trim());
-                        if (start != null && end != null) {
-                            slots.add(new TimeSlot(start, end));
-                        }
-                    }
-                } catch (Exception e) {
-                    log.warn("Could not parse time batch: {}", batch, e);
-                }
-            }
-        }
-        
-        // If no valid slots were parsed, use defaults
-        if (slots.isEmpty()) {
-            slots.add(new TimeSlot(LocalTime.of(6, 0), LocalTime.of(10, 0)));
-            slots.add(new TimeSlot(LocalTime.of(10, 0), LocalTime.of(14, 0)));
-            slots.add(new TimeSlot(LocalTime.of(14, 0), LocalTime.of(18, 0)));
-        }
-        
-        return slots;
-    }
-    
-    /**
-     * Parse time string to LocalTime
-     * Supports formats like "06:00", "6:00 AM", "18:00"
-     */
-    private LocalTime parseTime(String timeStr) {
-        try {
-            timeStr = timeStr.trim().toUpperCase();
-            
-            // Remove AM/PM and handle 12-hour format
-            boolean isPM = timeStr.contains("PM");
-            timeStr = timeStr.replaceAll("(AM|PM)", "").trim();
-            
-            String[] parts = timeStr.split(":");
-            if (parts.length >= 2) {
-                int hour = Integer.parseInt(parts[0]);
-                int minute = Integer.parseInt(parts[1]);
-                
-                if (isPM && hour != 12) {
-                    hour += 12;
-                } else if (!isPM && hour == 12) {
-                    hour = 0;
-                }
-                
-                return LocalTime.of(hour, minute);
-            }
-        } catch (Exception e) {
-            log.warn("Could not parse time: {}", timeStr, e);
+        // Availability is a rule (start date + the drone's days, months and time batches);
+        // free slots are computed on read instead of storing a row per day and slot
+        if (request.getStartDate() != null) {
+            availabilityService.saveRule(drone, request.getStartDate());
+        } else {
+            availabilityService.refreshRule(drone, null, null);
         }
-        return null;
-    }
-    
-    /**
-     * Helper class for time slots
-     */
-    private static class TimeSlot {
-        LocalTime startTime;
-        LocalTime endTime;
         
-        TimeSlot(LocalTime startTime, LocalTime endTime) {
-            this.startTime = startTime;
-            this.endTime = endTime;
-        }
+        Drone saved = droneRepository.save(drone);
+        eventPublisher.publishEvent(new DroneFleetChangedEvent(request.getVendorId()));
+        return saved;
     }
     
     /**
@@ -425,9 +296,8 @@ public class VendorOnboardingService {
         
         if (droneOpt.isPresent()) {
             Drone drone = droneOpt.get();
-            // Load availability records to get start and end dates
-            List<Availability> availabilities = availabilityRepository.findByDrone_DroneId(drone.getDroneId());
-            drone.setAvailabilities(availabilities);
+            // Only the availability start and end dates are read from here
+            drone.setAvailabilities(availabilityService.getAvailabilityWindow(drone.getDroneId()));
             return drone;
         }
         
@@ -12,7 +12,7 @@ import com.tatya.entity.Drone;
 import com.tatya.entity.User;
 import com.tatya.entity.Vendor;
 import com.tatya.entity.VendorBankAccount;
-import com.tatya.repository.AvailabilityRepository;
+import com.tatya.model.DroneFleetChangedEvent;
 import com.tatya.repository.DroneRepository;
 import com.tatya.repository.UserRepository;
 import com.tatya.repository.VendorBankAccountRepository;
@@ -20,6 +20,7 @@ import com.tatya.repository.VendorRepository;
 import com.tatya.util.GeoUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -39,9 +40,10 @@ public class VendorService {
     private final VendorRepository vendorRepository;
     private final DroneRepository droneRepository;
     private final VendorBankAccountRepository bankAccountRepository;
-    private final AvailabilityRepository availabilityRepository;
+    private final AvailabilityService availabilityService;
     private final OtpService otpService;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     private void ensureVendorApproved(Vendor vendor) {
         if (vendor == null) {
@@ -247,10 +249,10 @@ public class VendorService {
                 .findByVendor_VendorIdAndIsActiveTrue(vendorId)
                 .orElse(null);
 
-        // Get availability records for the drone
+        // Get the availability window for the drone
         List<Availability> availabilities = null;
         if (drone != null) {
-            availabilities = availabilityRepository.findByDrone_DroneId(drone.getDroneId());
+            availabilities = availabilityService.getAvailabilityWindow(drone.getDroneId());
         }
 
         return VendorProfileResponse.fromVendor(vendor, drone, bankAccount, availabilities);
@@ -357,25 +359,21 @@ public class VendorService {
         if (request.getDroneWarehouseDescription() != null)
             drone.setDroneWarehouse(request.getDroneWarehouseDescription());
         
-        // Update availability start and end dates in Availability records
-        if (request.getAvailabilityStartDate() != null || request.getAvailabilityEndDate() != null) {
-            java.util.List<Availability> availabilities = availabilityRepository.findByDrone_DroneId(drone.getDroneId());
-            for (Availability availability : availabilities) {
-                if (request.getAvailabilityStartDate() != null) {
-                    try {
-                        availability.setStartDate(java.time.LocalDate.parse(request.getAvailabilityStartDate()));
-                    } catch (Exception e) {
-                        log.warn("Invalid date format: {}", request.getAvailabilityStartDate());
-                    }
-                }
-                if (request.getAvailabilityEndDate() != null) {
-                    try {
-                        availability.setEndDate(java.time.LocalDate.parse(request.getAvailabilityEndDate()));
-                    } catch (Exception e) {
-                        log.warn("Invalid date format: {}", request.getAvailabilityEndDate());
-                    }
-                }
-                availabilityRepository.save(availability);
+        // Availability start and end dates (applied to the availability rule below)
+        java.time.LocalDate availabilityStartDate = null;
+        java.time.LocalDate availabilityEndDate = null;
+        if (request.getAvailabilityStartDate() != null) {
+            try {
+                availabilityStartDate = java.time.LocalDate.parse(request.getAvailabilityStartDate());
+            } catch (Exception e) {
+                log.warn("Invalid date format: {}", request.getAvailabilityStartDate());
+            }
+        }
+        if (request.getAvailabilityEndDate() != null) {
+            try {
+                availabilityEndDate = java.time.LocalDate.parse(request.getAvailabilityEndDate());
+            } catch (Exception e) {
+                log.warn("Invalid date format: {}", request.getAvailabilityEndDate());
             }
         }
         
@@ -386,13 +384,19 @@ public class VendorService {
         if (request.getAvailabilityStatus() != null)
             drone.setAvailabilityStatus(request.getAvailabilityStatus());
 
-        drone = droneRepository.save(drone);
-
         GeoUtils.parseLatLngCommaSeparated(drone.getCoordinates()).ifPresent(arr -> {
             vendor.setLatitude(BigDecimal.valueOf(arr[0]));
             vendor.setLongitude(BigDecimal.valueOf(arr[1]));
             vendorRepository.save(vendor);
+            droneRepository.updateServiceBaseByVendorId(vendor.getVendorId(), arr[0], arr[1]);
         });
+        double[] base = GeoUtils.serviceBase(vendor.getLatitude(), vendor.getLongitude(), drone.getCoordinates()).orElse(null);
+        drone.setBaseLat(base != null ? base[0] : null);
+        drone.setBaseLng(base != null ? base[1] : null);
+
+        drone = droneRepository.save(drone);
+        availabilityService.refreshRule(drone, availabilityStartDate, availabilityEndDate);
+        eventPublisher.publishEvent(new DroneFleetChangedEvent(vendorId));
 
         // Update or create bank account
         if (request.getAccountHolderName() != null || request.getAccountNumber() != null) {
@@ -424,10 +428,10 @@ public class VendorService {
                 .findByVendor_VendorIdAndIsActiveTrue(vendorId)
                 .orElse(null);
 
-        // Get availability records for the drone
+        // Get the availability window for the drone
         List<Availability> availabilities = null;
         if (drone != null) {
-            availabilities = availabilityRepository.findByDrone_DroneId(drone.getDroneId());
+            availabilities = availabilityService.getAvailabilityWindow(drone.getDroneId());
         }
 
         return VendorProfileResponse.fromVendor(vendor, drone, bankAccount, availabilities);
@@ -0,0 +1,293 @@
+package com.tatya.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Booking clustering over packed primitive arrays.
+ *
+ * Points are addressed by their index in the input arrays. The connection graph is held in
+ * CSR form (one offsets array, one neighbour array), visited flags in a BitSet, unassigned flags
+ * in a flat byte array and the BFS frontier in a reused int queue, so a run allocates a handful
+ * of arrays regardless of how many bookings are clustered.
+ *
+ * Adjacency rows and the per-component area check/split run on the supplied ForkJoinPool.
+ * Component discovery stays sequential because the radius gate makes it order dependent;
+ * results are merged back in discovery order, so output does not depend on the pool size.
+ */
+public final class ClusteringEngine {
+
+    private static final int MAX_SPLIT_ITERATIONS = 5000;
+    private static final int ROWS_PER_TASK = 1024;
+    private static final int COMPONENTS_PER_TASK = 64;
+
+    private final double[] lat;
+    private final double[] lon;
+    private final int[] acresCenti;
+    private final double clusterRadiusM;
+    private final long maxAreaCenti;
+    private final ForkJoinPool pool;
+
+    // CSR adjacency: neighbours of i are adj[adjStart[i] .. adjStart[i + 1])
+    private final int[] adjStart;
+    private final int[] adj;
+
+    /**
+     * @param connectionDistM two points are connected if they are at most this far apart
+     * @param clusterRadiusM  max distance of a point from the running cluster centre
+     * @param maxAreaCenti    max total area of one cluster, in hundredths of an acre
+     * @param pool            pool for the parallel phases
+     */
+    public ClusteringEngine(double[] lat, double[] lon, int[] acresCenti,
+                            double connectionDistM, double clusterRadiusM, long maxAreaCenti,
+                            ForkJoinPool pool) {
+        if (lat.length != lon.length || lat.length != acresCenti.length) {
+            throw new IllegalArgumentException("lat, lon and acres arrays must have the same length");
+        }
+        this.lat = lat;
+        this.lon = lon;
+        this.acresCenti = acresCenti;
+        this.clusterRadiusM = clusterRadiusM;
+        this.maxAreaCenti = maxAreaCenti;
+        this.pool = pool;
+
+        int n = lat.length;
+        GeoGridIndex grid = new GeoGridIndex(lat, lon, connectionDistM);
+        int[][] rows = new int[n][];
+        forEachParallel(n, ROWS_PER_TASK, i -> {
+            int[] candidates = grid.candidates(i);
+            int size = 0;
+            for (int j : candidates) {
+                if (GeoUtils.haversineKm(lat[i], lon[i], lat[j], lon[j]) * 1000.0 <= connectionDistM) {
+                    candidates[size++] = j;
+                }
+            }
+            rows[i] = Arrays.copyOf(candidates, size);
+        });
+
+        int[] start = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            start[i + 1] = start[i] + rows[i].length;
+        }
+        int[] edges = new int[start[n]];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(rows[i], 0, edges, start[i], rows[i].length);
+            rows[i] = null;
+        }
+        this.adjStart = start;
+        this.adj = edges;
+    }
+
+    /**
+     * Finds radius-gated connected components and applies the area rule:
+     * a component within the area limit becomes one cluster if it has at least two points,
+     * a larger component is split greedily into clusters that each stay within the limit.
+     *
+     * @return member indices of each cluster, in discovery order
+     */
+    public List<int[]> run() {
+        int n = lat.length;
+        BitSet visited = new BitSet(n);
+        int[] queue = new int[n];
+        int[] component = new int[n];
+        int[] componentOf = new int[n];
+        List<int[]> components = new ArrayList<>();
+
+        for (int seed = visited.nextClearBit(0); seed < n; seed = visited.nextClearBit(seed + 1)) {
+            int size = bfs(seed, visited, queue, component);
+            for (int k = 0; k < size; k++) {
+                componentOf[component[k]] = components.size();
+            }
+            components.add(Arrays.copyOf(component, size));
+        }
+
+        // Components are independent from here on: validate/split them in parallel and
+        // merge in discovery order. Each task only writes unassigned[] for its own members.
+        byte[] unassigned = new byte[n];
+        List<List<int[]>> perComponent = new ArrayList<>(components.size());
+        for (int c = 0; c < components.size(); c++) {
+            perComponent.add(List.of());
+        }
+        forEachParallel(components.size(), COMPONENTS_PER_TASK, c -> {
+            int[] members = components.get(c);
+
+            long totalArea = 0;
+            for (int i : members) {
+                totalArea += acresCenti[i];
+            }
+
+            List<int[]> out = new ArrayList<>(1);
+            if (totalArea <= maxAreaCenti) {
+                // Fits in one cluster
+                if (members.length >= 2) {
+                    out.add(members);
+                }
+            } else {
+                // Exceeds the area limit - split logic
+                split(c, members, componentOf, unassigned, out);
+            }
+            perComponent.set(c, out);
+        });
+
+        List<int[]> clusters = new ArrayList<>();
+        for (List<int[]> out : perComponent) {
+            clusters.addAll(out);
+        }
+        return clusters;
+    }
+
+    /**
+     * Radius-constrained BFS.
+     *
+     * Standard BFS is extended with one extra gate before a neighbor is accepted:
+     * haversine(neighbor, clusterCentre) <= clusterRadiusM
+     *
+     * If a neighbor fails this check it is NOT marked visited, so the outer loop in run() will
+     * pick it up as a fresh seed and start a new, spatially compact cluster from it. This breaks
+     * the chain-clustering effect where Farm1--Farm2--Farm3 (each pair within the connection
+     * distance) would otherwise all land in a single component even if Farm1 and Farm3 are far
+     * apart.
+     *
+     * The cluster centre is maintained as a running incremental average so it reflects the true
+     * centroid of all accepted nodes at every step.
+     *
+     * @return number of points written to {@code component}
+     */
+    private int bfs(int seed, BitSet visited, int[] queue, int[] component) {
+        int head = 0;
+        int tail = 0;
+        int size = 0;
+
+        visited.set(seed);
+        component[size++] = seed;
+        queue[tail++] = seed;
+
+        double centerLat = lat[seed];
+        double centerLon = lon[seed];
+
+        while (head < tail) {
+            int current = queue[head++];
+            for (int e = adjStart[current]; e < adjStart[current + 1]; e++) {
+                int neighbor = adj[e];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+
+                // The seed's direct neighbours are always accepted (their edge is within the
+                // connection distance); after that every addition must lie within
+                // clusterRadiusM of the running centre.
+                double distToCenter = GeoUtils.haversineKm(lat[neighbor], lon[neighbor], centerLat, centerLon) * 1000.0;
+                if (size == 1 || distToCenter <= clusterRadiusM) {
+                    visited.set(neighbor);
+                    component[size++] = neighbor;
+                    queue[tail++] = neighbor;
+
+                    // newCenter = oldCenter + (newPoint - oldCenter) / newSize
+                    centerLat = centerLat + (lat[neighbor] - centerLat) / size;
+                    centerLon = centerLon + (lon[neighbor] - centerLon) / size;
+                }
+                // Rejected neighbor: do NOT mark visited — it will seed its own cluster
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Greedily carves an oversized component into clusters: each cluster is seeded with the
+     * first unassigned point (in BFS order) and grows through graph edges while the next
+     * unassigned neighbour still fits the area limit.
+     */
+    private void split(int componentId, int[] component, int[] componentOf, byte[] unassigned,
+                       List<int[]> out) {
+        int size = component.length;
+        for (int i : component) {
+            unassigned[i] = 1;
+        }
+        int[] members = new int[size];
+        int seedCursor = 0;
+        int iterations = 0;
+
+        while (seedCursor < size) {
+            int seed = component[seedCursor++];
+            if (unassigned[seed] == 0) {
+                continue;
+            }
+            if (++iterations > MAX_SPLIT_ITERATIONS) {
+                // Failsafe to prevent runaway splitting on unusual data
+                break;
+            }
+
+            int count = 0;
+            members[count++] = seed;
+            unassigned[seed] = 0;
+            long currentArea = acresCenti[seed];
+
+            boolean addedAnything = true;
+            while (addedAnything && currentArea < maxAreaCenti) {
+                addedAnything = false;
+                int bestCandidate = -1;
+
+                for (int m = 0; m < count && bestCandidate < 0; m++) {
+                    int member = members[m];
+                    for (int e = adjStart[member]; e < adjStart[member + 1]; e++) {
+                        int candidate = adj[e];
+                        if (componentOf[candidate] == componentId && unassigned[candidate] == 1
+                                && currentArea + acresCenti[candidate] <= maxAreaCenti) {
+                            bestCandidate = candidate;
+                            break;
+                        }
+                    }
+                }
+
+                if (bestCandidate >= 0) {
+                    members[count++] = bestCandidate;
+                    currentArea += acresCenti[bestCandidate];
+                    unassigned[bestCandidate] = 0;
+                    addedAnything = true;
+                }
+            }
+            out.add(Arrays.copyOf(members, count));
+        }
+    }
+
+    /** Runs {@code body} for every index in [0, count) on the pool, in chunks of {@code grain}. */
+    private void forEachParallel(int count, int grain, IntConsumer body) {
+        if (count == 0) {
+            return;
+        }
+        pool.invoke(new RangeTask(0, count, grain, body));
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final IntConsumer body;
+
+        RangeTask(int from, int to, int grain, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    body.accept(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, grain, body), new RangeTask(mid, to, grain, body));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.tatya.util;
+
+import java.util.Arrays;
+
+/**
+ * Uniform lat/lon grid over a fixed set of points, used for radius neighbour discovery
+ * without comparing every pair.
+ *
+ * Cells are sized so that any two points within {@code radiusM} of each other (great-circle,
+ * mean Earth radius) always fall into the same or adjacent cells. {@link #candidates(int)} only
+ * narrows the search; callers still apply their own exact distance check.
+ */
+public final class GeoGridIndex {
+
+    private final double[] lat;
+    private final double[] lon;
+    private final double cellLatDeg;
+    private final double cellLonDeg;
+    private final int cols;
+
+    // Point indices sorted by (cell key, index); cellKeys[k] is the cell of order[k]
+    private final int[] order;
+    private final long[] cellKeys;
+
+    public GeoGridIndex(double[] lat, double[] lon, double radiusM) {
+        if (lat.length != lon.length) {
+            throw new IllegalArgumentException("lat and lon arrays must have the same length");
+        }
+        this.lat = lat;
+        this.lon = lon;
+
+        double radiusKm = radiusM / 1000.0;
+        this.cellLatDeg = Math.toDegrees(radiusKm / GeoUtils.EARTH_RADIUS_KM);
+
+        // Longitude span of a radius circle grows towards the poles, so size columns for the
+        // highest latitude present.
+        double maxAbsLat = 0.0;
+        for (double v : lat) {
+            maxAbsLat = Math.max(maxAbsLat, Math.abs(v));
+        }
+        double[] box = GeoUtils.boundingBox(Math.min(maxAbsLat + cellLatDeg, 90.0), 0.0, radiusKm);
+        double lonDeg = GeoUtils.coversAllLongitudes(box) ? 360.0 : box[3];
+        this.cols = Math.max(1, (int) Math.floor(360.0 / lonDeg));
+        this.cellLonDeg = 360.0 / cols;
+
+        int n = lat.length;
+        // Sort (cell key, index) pairs packed into one long so no boxing is needed
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) {
+            packed[i] = cellKey(rowOf(lat[i]), colOf(lon[i])) * n + i;
+        }
+        Arrays.sort(packed);
+        this.order = new int[n];
+        this.cellKeys = new long[n];
+        for (int k = 0; k < n; k++) {
+            order[k] = (int) (packed[k] % n);
+            cellKeys[k] = packed[k] / n;
+        }
+    }
+
+    /**
+     * Indices of all points (excluding {@code i} itself) in the cell of point {@code i} and its
+     * eight neighbours, in ascending index order.
+     */
+    public int[] candidates(int i) {
+        int row = rowOf(lat[i]);
+        int col = colOf(lon[i]);
+
+        int[] out = new int[16];
+        int size = 0;
+        int[] visitCols = cols >= 3
+                ? new int[] { Math.floorMod(col - 1, cols), col, Math.floorMod(col + 1, cols) }
+                : (cols == 2 ? new int[] { col, 1 - col } : new int[] { col });
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int c : visitCols) {
+                long key = cellKey(row + dr, c);
+                for (int k = lowerBound(key); k < cellKeys.length && cellKeys[k] == key; k++) {
+                    if (order[k] == i) {
+                        continue;
+                    }
+                    if (size == out.length) {
+                        out = Arrays.copyOf(out, size * 2);
+                    }
+                    out[size++] = order[k];
+                }
+            }
+        }
+        int[] result = Arrays.copyOf(out, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private int rowOf(double latitude) {
+        return (int) Math.floor((latitude + 90.0) / cellLatDeg);
+    }
+
+    private int colOf(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180.0) / cellLonDeg), cols);
+    }
+
+    private long cellKey(int row, int col) {
+        return (long) row * cols + col;
+    }
+
+    private int lowerBound(long key) {
+        int lo = 0;
+        int hi = cellKeys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cellKeys[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
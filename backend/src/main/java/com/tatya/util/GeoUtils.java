@@ -1,15 +1,57 @@
 package com.tatya.util;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
 /**
- * Parses "lat,lng" strings as stored on {@link com.tatya.entity.Drone#getCoordinates()}.
+ * Parses "lat,lng" strings as stored on {@link com.tatya.entity.Drone#getCoordinates()} and
+ * resolves a drone's service base from them, plus the great-circle distance and radius bounding
+ * box used by the clustering, search and routing code.
  */
 public final class GeoUtils {
 
+    /** Mean Earth radius (WGS84), in kilometers. */
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
     private GeoUtils() {
     }
 
+    /** Great-circle distance on Earth (mean radius), in kilometers. */
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * Bounding box of the circle of {@code radiusKm} around a point, as
+     * {minLat, maxLat, minLon, maxLon}. The longitude half-width is asin(sin(r) / cos(lat)).
+     *
+     * Latitudes are not clamped and longitudes not wrapped, so a box crossing the antimeridian
+     * has minLon below -180 or maxLon above 180. A circle reaching a pole covers every longitude
+     * and gets {-180, 180}.
+     */
+    public static double[] boundingBox(double lat, double lon, double radiusKm) {
+        double angular = radiusKm / EARTH_RADIUS_KM;
+        double dLat = Math.toDegrees(angular);
+        double minLat = lat - dLat;
+        double maxLat = lat + dLat;
+        double ratio = Math.sin(angular) / Math.cos(Math.toRadians(lat));
+        if (minLat <= -90.0 || maxLat >= 90.0 || ratio >= 1.0 || Double.isNaN(ratio)) {
+            return new double[] { minLat, maxLat, -180.0, 180.0 };
+        }
+        double dLon = Math.toDegrees(Math.asin(ratio));
+        return new double[] { minLat, maxLat, lon - dLon, lon + dLon };
+    }
+
+    /** Whether a {@link #boundingBox} covers every longitude, i.e. its circle reaches a pole. */
+    public static boolean coversAllLongitudes(double[] box) {
+        return box[3] - box[2] >= 360.0;
+    }
+
     public static Optional<double[]> parseLatLngCommaSeparated(String coordinates) {
         if (coordinates == null) {
             return Optional.empty();
@@ -36,4 +78,15 @@ public final class GeoUtils {
             return Optional.empty();
         }
     }
+
+    /**
+     * Service base of a drone: the vendor's coordinates when both are set, otherwise the drone's
+     * "lat,lng" coordinates string.
+     */
+    public static Optional<double[]> serviceBase(BigDecimal vendorLat, BigDecimal vendorLng, String droneCoordinates) {
+        if (vendorLat != null && vendorLng != null) {
+            return Optional.of(new double[] { vendorLat.doubleValue(), vendorLng.doubleValue() });
+        }
+        return parseLatLngCommaSeparated(droneCoordinates);
+    }
 }
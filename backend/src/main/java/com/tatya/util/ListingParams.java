@@ -0,0 +1,40 @@
+package com.tatya.util;
+
+/**
+ * Request parameter parsing shared by the paginated listing endpoints (admin listings and
+ * booking history).
+ */
+public final class ListingParams {
+
+    private ListingParams() {
+    }
+
+    /**
+     * Page size for a requested limit: {@code defaultSize} when absent, capped at {@code maxSize}.
+     */
+    public static int pageSize(Integer limit, int defaultSize, int maxSize) {
+        if (limit == null) {
+            return defaultSize;
+        }
+        if (limit < 1) {
+            throw new RuntimeException("limit must be at least 1");
+        }
+        return Math.min(limit, maxSize);
+    }
+
+    /**
+     * Case-insensitive enum filter value, or null when the filter is absent.
+     *
+     * @param name parameter name used in the error message
+     */
+    public static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String name) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid " + name + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.tatya.util;
+
+/**
+ * Visiting order for the stops of one cluster: an open path that starts at the vendor's base
+ * and does not return.
+ *
+ * Distances are computed once into a flat matrix (node 0 is the base, node i + 1 is stop i).
+ * The path starts as a nearest-neighbour tour and is then improved with 2-opt (reverse a
+ * stretch) and Or-opt (move a run of up to three stops, either way round, elsewhere) until
+ * neither finds an improvement or {@link #MAX_PASSES} passes have run.
+ */
+public final class RouteOptimizer {
+
+    private static final int MAX_PASSES = 50;
+    private static final int MAX_SEGMENT = 3;
+    private static final double EPS = 1e-9;
+
+    private final int size;
+    private final double[] dist;
+
+    private RouteOptimizer(double baseLat, double baseLon, double[] lat, double[] lon) {
+        this.size = lat.length + 1;
+        this.dist = new double[size * size];
+        for (int a = 0; a < size; a++) {
+            double latA = a == 0 ? baseLat : lat[a - 1];
+            double lonA = a == 0 ? baseLon : lon[a - 1];
+            for (int b = a + 1; b < size; b++) {
+                double d = GeoUtils.haversineKm(latA, lonA, lat[b - 1], lon[b - 1]);
+                dist[a * size + b] = d;
+                dist[b * size + a] = d;
+            }
+        }
+    }
+
+    /**
+     * @return stop indices in visiting order
+     */
+    public static int[] order(double baseLat, double baseLon, double[] lat, double[] lon) {
+        if (lat.length != lon.length) {
+            throw new IllegalArgumentException("lat and lon arrays must have the same length");
+        }
+        if (lat.length <= 1) {
+            return lat.length == 0 ? new int[0] : new int[] { 0 };
+        }
+        RouteOptimizer optimizer = new RouteOptimizer(baseLat, baseLon, lat, lon);
+        int[] path = optimizer.nearestNeighbour();
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            boolean improved = optimizer.twoOpt(path);
+            improved |= optimizer.orOpt(path);
+            if (!improved) {
+                break;
+            }
+        }
+        int[] stops = new int[path.length - 1];
+        for (int k = 1; k < path.length; k++) {
+            stops[k - 1] = path[k] - 1;
+        }
+        return stops;
+    }
+
+    private double d(int a, int b) {
+        return dist[a * size + b];
+    }
+
+    // Cost of the edge leaving position k, or 0 past the end of the open path
+    private double next(int[] path, int k) {
+        return k + 1 < path.length ? d(path[k], path[k + 1]) : 0.0;
+    }
+
+    private int[] nearestNeighbour() {
+        int[] path = new int[size];
+        boolean[] visited = new boolean[size];
+        visited[0] = true;
+        for (int k = 1; k < size; k++) {
+            int from = path[k - 1];
+            int best = -1;
+            for (int b = 1; b < size; b++) {
+                if (!visited[b] && (best < 0 || d(from, b) < d(from, best))) {
+                    best = b;
+                }
+            }
+            path[k] = best;
+            visited[best] = true;
+        }
+        return path;
+    }
+
+    private boolean twoOpt(int[] path) {
+        boolean improved = false;
+        int last = path.length - 1;
+        for (int i = 1; i < last; i++) {
+            for (int k = i + 1; k <= last; k++) {
+                // Replace edges (i-1, i) and (k, k+1) with (i-1, k) and (i, k+1)
+                double before = d(path[i - 1], path[i]) + next(path, k);
+                double after = d(path[i - 1], path[k]) + (k < last ? d(path[i], path[k + 1]) : 0.0);
+                if (after < before - EPS) {
+                    reverse(path, i, k);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private boolean orOpt(int[] path) {
+        boolean improved = false;
+        int last = path.length - 1;
+        for (int len = 1; len <= MAX_SEGMENT; len++) {
+            for (int i = 1; i + len - 1 <= last; i++) {
+                int first = path[i];
+                int end = path[i + len - 1];
+                int prev = path[i - 1];
+                boolean hasNext = i + len <= last;
+                double removeGain = d(prev, first) + (hasNext ? d(end, path[i + len]) - d(prev, path[i + len]) : 0.0);
+
+                int bestJ = -1;
+                boolean bestReversed = false;
+                double bestDelta = -EPS;
+                for (int j = 0; j <= last; j++) {
+                    if (j >= i - 1 && j < i + len) {
+                        continue;
+                    }
+                    // Insert between path[j] and path[j + 1] (or at the end)
+                    boolean tail = j == last;
+                    double edge = tail ? 0.0 : d(path[j], path[j + 1]);
+                    double forward = d(path[j], first) + (tail ? 0.0 : d(end, path[j + 1])) - edge;
+                    double reversed = d(path[j], end) + (tail ? 0.0 : d(first, path[j + 1])) - edge;
+                    if (forward - removeGain < bestDelta) {
+                        bestDelta = forward - removeGain;
+                        bestJ = j;
+                        bestReversed = false;
+                    }
+                    if (len > 1 && reversed - removeGain < bestDelta) {
+                        bestDelta = reversed - removeGain;
+                        bestJ = j;
+                        bestReversed = true;
+                    }
+                }
+                if (bestJ >= 0) {
+                    move(path, i, len, bestJ, bestReversed);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    // Moves path[i .. i+len) to just after the node currently at position j
+    private static void move(int[] path, int i, int len, int j, boolean reversed) {
+        int[] segment = new int[len];
+        for (int s = 0; s < len; s++) {
+            segment[s] = path[reversed ? i + len - 1 - s : i + s];
+        }
+        if (j < i) {
+            // Shift path[j+1 .. i) right by len, then drop the segment in after j
+            System.arraycopy(path, j + 1, path, j + 1 + len, i - j - 1);
+            System.arraycopy(segment, 0, path, j + 1, len);
+        } else {
+            // Shift path[i+len .. j] left by len, then drop the segment in after the shifted node
+            System.arraycopy(path, i + len, path, i, j - i - len + 1);
+            System.arraycopy(segment, 0, path, j - len + 1, len);
+        }
+    }
+
+    private static void reverse(int[] path, int from, int to) {
+        while (from < to) {
+            int t = path[from];
+            path[from++] = path[to];
+            path[to--] = t;
+        }
+    }
+}
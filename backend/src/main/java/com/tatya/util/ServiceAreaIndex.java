@@ -0,0 +1,198 @@
+package com.tatya.util;
+
+import java.util.Arrays;
+
+/**
+ * Fixed lat/lon grid over service areas (a centre point with its own radius), answering "which
+ * areas contain this point" without testing every area.
+ *
+ * Each area is registered in every cell its circle's bounding box overlaps, so a query only
+ * reads the one cell holding the point and runs the exact great-circle check on the areas found
+ * there. Areas whose box would cover more than {@link #MAX_CELLS_PER_AREA} cells (very large
+ * radii, or circles reaching a pole) are kept in a separate list checked on every query.
+ *
+ * The index is immutable; rebuild it when the underlying areas change.
+ */
+public final class ServiceAreaIndex {
+
+    private static final double CELL_DEG = 0.25;
+    private static final int ROWS = (int) Math.ceil(180.0 / CELL_DEG);
+    private static final int COLS = (int) Math.round(360.0 / CELL_DEG);
+    private static final int MAX_CELLS_PER_AREA = 4096;
+
+    private final double[] lat;
+    private final double[] lon;
+    private final double[] radiusKm;
+
+    // Area indices sorted by (cell key, index); cellKeys[k] is the cell of areas[k]
+    private final long[] cellKeys;
+    private final int[] areas;
+    private final int[] wideAreas;
+
+    public ServiceAreaIndex(double[] lat, double[] lon, double[] radiusKm) {
+        if (lat.length != lon.length || lat.length != radiusKm.length) {
+            throw new IllegalArgumentException("lat, lon and radiusKm arrays must have the same length");
+        }
+        this.lat = lat;
+        this.lon = lon;
+        this.radiusKm = radiusKm;
+
+        int n = lat.length;
+        long[] packed = new long[Math.max(16, n * 4)];
+        int size = 0;
+        int[] wide = new int[8];
+        int wideCount = 0;
+
+        for (int i = 0; i < n; i++) {
+            double[] box = GeoUtils.boundingBox(lat[i], lon[i], radiusKm[i]);
+            boolean touchesPole = GeoUtils.coversAllLongitudes(box);
+
+            int rowFrom = rowOf(box[0]);
+            int rowTo = rowOf(box[1]);
+            long colSpan = 0;
+            if (!touchesPole) {
+                colSpan = (long) Math.floor((box[3] + 180.0) / CELL_DEG)
+                        - (long) Math.floor((box[2] + 180.0) / CELL_DEG) + 1;
+            }
+            if (touchesPole || colSpan * (rowTo - rowFrom + 1) > MAX_CELLS_PER_AREA) {
+                if (wideCount == wide.length) {
+                    wide = Arrays.copyOf(wide, wideCount * 2);
+                }
+                wide[wideCount++] = i;
+                continue;
+            }
+
+            int colFrom = (int) Math.floor((box[2] + 180.0) / CELL_DEG);
+            for (int row = rowFrom; row <= rowTo; row++) {
+                for (int c = 0; c < colSpan; c++) {
+                    if (size == packed.length) {
+                        packed = Arrays.copyOf(packed, size * 2);
+                    }
+                    long key = cellKey(row, Math.floorMod(colFrom + c, COLS));
+                    packed[size++] = key * n + i;
+                }
+            }
+        }
+
+        // Sort (cell key, index) pairs packed into one long so no boxing is needed
+        Arrays.sort(packed, 0, size);
+        this.cellKeys = new long[size];
+        this.areas = new int[size];
+        for (int k = 0; k < size; k++) {
+            cellKeys[k] = packed[k] / n;
+            areas[k] = (int) (packed[k] % n);
+        }
+        this.wideAreas = Arrays.copyOf(wide, wideCount);
+    }
+
+    public int size() {
+        return lat.length;
+    }
+
+    /**
+     * Areas containing the point, nearest centre first.
+     *
+     * @return area indices in {@code indices}, with the matching centre distances in
+     *         {@code distancesKm}
+     */
+    public Matches containing(double pointLat, double pointLon) {
+        long key = cellKey(rowOf(pointLat), colOf(pointLon));
+        int[] found = new int[16];
+        double[] dist = new double[16];
+        int count = 0;
+
+        for (int k = lowerBound(key); k < cellKeys.length && cellKeys[k] == key; k++) {
+            int i = areas[k];
+            double d = GeoUtils.haversineKm(pointLat, pointLon, lat[i], lon[i]);
+            if (d <= radiusKm[i] + 1e-9) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                    dist = Arrays.copyOf(dist, count * 2);
+                }
+                found[count] = i;
+                dist[count++] = d;
+            }
+        }
+        for (int i : wideAreas) {
+            double d = GeoUtils.haversineKm(pointLat, pointLon, lat[i], lon[i]);
+            if (d <= radiusKm[i] + 1e-9) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                    dist = Arrays.copyOf(dist, count * 2);
+                }
+                found[count] = i;
+                dist[count++] = d;
+            }
+        }
+        return Matches.sortedByDistance(found, dist, count);
+    }
+
+    private static int rowOf(double latDeg) {
+        int row = (int) Math.floor((latDeg + 90.0) / CELL_DEG);
+        return Math.max(0, Math.min(ROWS - 1, row));
+    }
+
+    private static int colOf(double lonDeg) {
+        return Math.floorMod((int) Math.floor((lonDeg + 180.0) / CELL_DEG), COLS);
+    }
+
+    private static long cellKey(int row, int col) {
+        return (long) row * COLS + col;
+    }
+
+    private int lowerBound(long key) {
+        int lo = 0;
+        int hi = cellKeys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cellKeys[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Result of {@link #containing}: area indices and centre distances, nearest first. */
+    public static final class Matches {
+        private final int[] indices;
+        private final double[] distancesKm;
+
+        private Matches(int[] indices, double[] distancesKm) {
+            this.indices = indices;
+            this.distancesKm = distancesKm;
+        }
+
+        private static Matches sortedByDistance(int[] found, double[] dist, int count) {
+            // Sort positions by (distance, area index) so equal distances keep a stable order
+            Integer[] order = new Integer[count];
+            for (int k = 0; k < count; k++) {
+                order[k] = k;
+            }
+            Arrays.sort(order, (a, b) -> {
+                int cmp = Double.compare(dist[a], dist[b]);
+                return cmp != 0 ? cmp : Integer.compare(found[a], found[b]);
+            });
+            int[] indices = new int[count];
+            double[] distances = new double[count];
+            for (int k = 0; k < count; k++) {
+                indices[k] = found[order[k]];
+                distances[k] = dist[order[k]];
+            }
+            return new Matches(indices, distances);
+        }
+
+        public int size() {
+            return indices.length;
+        }
+
+        public int index(int k) {
+            return indices[k];
+        }
+
+        public double distanceKm(int k) {
+            return distancesKm[k];
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.tatya.util;
+
+import java.util.Arrays;
+
+/**
+ * Capacity-aware assignment of clusters to vendors over packed primitive arrays.
+ *
+ * Days are integer offsets into a planning horizon [0, horizonDays). A cluster covers the
+ * inclusive day range [start, end] and is assumed to be sprayed evenly over it, so it adds
+ * ceil(acres / days) to its vendor's load on each of those days. A vendor can take a cluster
+ * only if it is within {@code maxDistanceKm}, can start by the cluster's first day, and stays
+ * at or under its daily capacity on every covered day. Acres are in hundredths of an acre.
+ *
+ * {@link #solve()} is a greedy-with-repair heuristic:
+ * <ol>
+ *   <li>Clusters are taken by priority (highest first), then by how few vendors can serve them,
+ *       and each goes to the nearest candidate vendor with room.</li>
+ *   <li>Each cluster left over tries to free room at one of its candidates by moving one
+ *       date-overlapping cluster from that vendor to another of that cluster's candidates.</li>
+ *   <li>One relocation pass moves assigned clusters to a nearer vendor where room has opened.</li>
+ * </ol>
+ * Candidate vendors come from a {@link ServiceAreaIndex} and per-vendor load rows are only
+ * allocated for vendors that take work, so a run stays close to linear in the number of
+ * (cluster, nearby vendor) pairs.
+ */
+public final class VendorAssignmentSolver {
+
+    private static final int MAX_REPAIR_PROBES = 64;
+
+    private final int clusterCount;
+    private final int[] start;
+    private final int[] end;
+    private final int[] dailyShare;
+    private final int[] priority;
+
+    private final int[] capacityCenti;
+    private final int[] firstDay;
+    private final int horizonDays;
+
+    // CSR candidates: vendors able to serve cluster c are candVendor[candStart[c] .. candStart[c + 1]),
+    // nearest first, with the matching distances in candDistKm
+    private final int[] candStart;
+    private final int[] candVendor;
+    private final double[] candDistKm;
+
+    // load[v][d]: hundredths of an acre already booked on vendor v for day d (null until used)
+    private final int[][] load;
+    private final int[] vendorOf;
+    // Clusters assigned in this run, per vendor, as singly linked lists
+    private final int[] head;
+    private final int[] next;
+
+    /**
+     * @param clusterStartDay first day of each cluster, in [0, horizonDays)
+     * @param clusterEndDay   last day of each cluster (inclusive), in [start, horizonDays)
+     * @param clusterPriority higher is served first
+     * @param capacityCenti   daily capacity of each vendor, in hundredths of an acre
+     * @param vendorFirstDay  first day each vendor can start a new cluster (lead time)
+     */
+    public VendorAssignmentSolver(double[] clusterLat, double[] clusterLon, int[] clusterAcresCenti,
+                                  int[] clusterStartDay, int[] clusterEndDay, int[] clusterPriority,
+                                  double[] vendorLat, double[] vendorLon, int[] capacityCenti, int[] vendorFirstDay,
+                                  int horizonDays, double maxDistanceKm) {
+        int n = clusterLat.length;
+        if (clusterLon.length != n || clusterAcresCenti.length != n || clusterStartDay.length != n
+                || clusterEndDay.length != n || clusterPriority.length != n) {
+            throw new IllegalArgumentException("cluster arrays must have the same length");
+        }
+        int m = vendorLat.length;
+        if (vendorLon.length != m || capacityCenti.length != m || vendorFirstDay.length != m) {
+            throw new IllegalArgumentException("vendor arrays must have the same length");
+        }
+        this.clusterCount = n;
+        this.start = clusterStartDay;
+        this.end = clusterEndDay;
+        this.priority = clusterPriority;
+        this.capacityCenti = capacityCenti;
+        this.firstDay = vendorFirstDay;
+        this.horizonDays = horizonDays;
+
+        this.dailyShare = new int[n];
+        for (int c = 0; c < n; c++) {
+            if (start[c] < 0 || end[c] < start[c] || end[c] >= horizonDays) {
+                throw new IllegalArgumentException("cluster " + c + " days are outside the horizon");
+            }
+            int days = end[c] - start[c] + 1;
+            dailyShare[c] = (Math.max(0, clusterAcresCenti[c]) + days - 1) / days;
+        }
+
+        double[] radius = new double[m];
+        Arrays.fill(radius, maxDistanceKm);
+        ServiceAreaIndex index = new ServiceAreaIndex(vendorLat, vendorLon, radius);
+
+        int[] offsets = new int[n + 1];
+        int[] vendors = new int[Math.max(16, n * 4)];
+        double[] distances = new double[vendors.length];
+        int size = 0;
+        for (int c = 0; c < n; c++) {
+            ServiceAreaIndex.Matches matches = index.containing(clusterLat[c], clusterLon[c]);
+            for (int k = 0; k < matches.size(); k++) {
+                int v = matches.index(k);
+                // Vendors that could never take this cluster are dropped up front
+                if (dailyShare[c] > capacityCenti[v] || firstDay[v] > start[c]) {
+                    continue;
+                }
+                if (size == vendors.length) {
+                    vendors = Arrays.copyOf(vendors, size * 2);
+                    distances = Arrays.copyOf(distances, size * 2);
+                }
+                vendors[size] = v;
+                distances[size++] = matches.distanceKm(k);
+            }
+            offsets[c + 1] = size;
+        }
+        this.candStart = offsets;
+        this.candVendor = Arrays.copyOf(vendors, size);
+        this.candDistKm = Arrays.copyOf(distances, size);
+
+        this.load = new int[m][];
+        this.vendorOf = new int[n];
+        Arrays.fill(vendorOf, -1);
+        this.head = new int[m];
+        Arrays.fill(head, -1);
+        this.next = new int[n];
+    }
+
+    /**
+     * Books work the vendor already has (clusters assigned in earlier runs). Days outside the
+     * horizon are ignored.
+     */
+    public void reserve(int vendor, int startDay, int endDay, int acresCenti) {
+        if (endDay < startDay) {
+            return;
+        }
+        int days = endDay - startDay + 1;
+        int share = (Math.max(0, acresCenti) + days - 1) / days;
+        int[] row = row(vendor);
+        for (int d = Math.max(0, startDay); d <= Math.min(endDay, horizonDays - 1); d++) {
+            row[d] += share;
+        }
+    }
+
+    /**
+     * Runs the assignment.
+     *
+     * @return vendor index for each cluster, or -1 where no vendor has room
+     */
+    public int[] solve() {
+        Integer[] order = new Integer[clusterCount];
+        for (int c = 0; c < clusterCount; c++) {
+            order[c] = c;
+        }
+        // Highest priority first; among equals, the clusters with the fewest options go first
+        Arrays.sort(order, (a, b) -> {
+            int cmp = Integer.compare(priority[b], priority[a]);
+            if (cmp != 0) {
+                return cmp;
+            }
+            cmp = Integer.compare(candStart[a + 1] - candStart[a], candStart[b + 1] - candStart[b]);
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+
+        for (int c : order) {
+            for (int k = candStart[c]; k < candStart[c + 1]; k++) {
+                int v = candVendor[k];
+                if (fits(v, c)) {
+                    assign(v, c);
+                    break;
+                }
+            }
+        }
+
+        for (int c : order) {
+            if (vendorOf[c] < 0) {
+                repair(c);
+            }
+        }
+
+        for (int c : order) {
+            int current = vendorOf[c];
+            if (current < 0) {
+                continue;
+            }
+            // Candidates are nearest first, so only those before the current vendor are better
+            for (int k = candStart[c]; k < candStart[c + 1] && candVendor[k] != current; k++) {
+                int v = candVendor[k];
+                if (fits(v, c)) {
+                    unassign(current, c);
+                    assign(v, c);
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(vendorOf, clusterCount);
+    }
+
+    /** Distance from cluster {@code c} to vendor {@code v}, or NaN if v is not a candidate of c. */
+    public double distanceKm(int c, int v) {
+        for (int k = candStart[c]; k < candStart[c + 1]; k++) {
+            if (candVendor[k] == v) {
+                return candDistKm[k];
+            }
+        }
+        return Double.NaN;
+    }
+
+    // Frees room for cluster u at one of its candidates by moving one overlapping cluster away
+    private void repair(int u) {
+        int probes = 0;
+        for (int k = candStart[u]; k < candStart[u + 1]; k++) {
+            int v = candVendor[k];
+            for (int a = head[v]; a != -1; a = next[a]) {
+                if (start[a] > end[u] || start[u] > end[a]) {
+                    continue;
+                }
+                if (++probes > MAX_REPAIR_PROBES) {
+                    return;
+                }
+                addLoad(v, a, -dailyShare[a]);
+                int w = fits(v, u) ? nearestOtherWithRoom(a, v) : -1;
+                addLoad(v, a, dailyShare[a]);
+                if (w >= 0) {
+                    unassign(v, a);
+                    assign(w, a);
+                    assign(v, u);
+                    return;
+                }
+            }
+        }
+    }
+
+    private int nearestOtherWithRoom(int c, int exclude) {
+        for (int k = candStart[c]; k < candStart[c + 1]; k++) {
+            int v = candVendor[k];
+            if (v != exclude && fits(v, c)) {
+                return v;
+            }
+        }
+        return -1;
+    }
+
+    private boolean fits(int v, int c) {
+        int[] row = load[v];
+        int limit = capacityCenti[v] - dailyShare[c];
+        if (row == null) {
+            return limit >= 0;
+        }
+        for (int d = start[c]; d <= end[c]; d++) {
+            if (row[d] > limit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void assign(int v, int c) {
+        addLoad(v, c, dailyShare[c]);
+        vendorOf[c] = v;
+        next[c] = head[v];
+        head[v] = c;
+    }
+
+    private void unassign(int v, int c) {
+        addLoad(v, c, -dailyShare[c]);
+        vendorOf[c] = -1;
+        if (head[v] == c) {
+            head[v] = next[c];
+            return;
+        }
+        for (int a = head[v]; a != -1; a = next[a]) {
+            if (next[a] == c) {
+                next[a] = next[c];
+                return;
+            }
+        }
+    }
+
+    private void addLoad(int v, int c, int delta) {
+        int[] row = row(v);
+        for (int d = start[c]; d <= end[c]; d++) {
+            row[d] += delta;
+        }
+    }
+
+    private int[] row(int v) {
+        if (load[v] == null) {
+            load[v] = new int[horizonDays];
+        }
+        return load[v];
+    }
+}
@@ -0,0 +1,37 @@
+package com.tatya;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the SQL Hibernate sends on the current thread while {@link #capture} runs, so tests can
+ * inspect the statements behind a repository call. Registered for the test profile in
+ * application-test.properties.
+ */
+public class SqlCapture implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(sql);
+        }
+        return sql;
+    }
+
+    /** Runs the action and returns the SQL statements it issued, in order. */
+    public static List<String> capture(Runnable action) {
+        List<String> captured = new ArrayList<>();
+        CAPTURED.set(captured);
+        try {
+            action.run();
+        } finally {
+            CAPTURED.remove();
+        }
+        return captured;
+    }
+}
@@ -0,0 +1,134 @@
+package com.tatya;
+
+import com.tatya.entity.Availability;
+import com.tatya.entity.AvailabilityRule;
+import com.tatya.entity.Booking;
+import com.tatya.entity.Drone;
+import com.tatya.entity.User;
+import com.tatya.entity.Vendor;
+import com.tatya.repository.AvailabilityRepository;
+import com.tatya.repository.AvailabilityRuleRepository;
+import com.tatya.repository.BookingRepository;
+import com.tatya.repository.DroneRepository;
+import com.tatya.repository.UserRepository;
+import com.tatya.repository.VendorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saves minimal valid users, vendors, drones and bookings for integration tests. Phone numbers
+ * and e-mails are unique per call, so tests sharing one database do not collide. Each call joins
+ * the test's transaction, or commits on its own in tests that are not transactional.
+ */
+@Component
+@Transactional
+public class TestData {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong(9000000000L);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private DroneRepository droneRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private AvailabilityRuleRepository availabilityRuleRepository;
+
+    public User user(User.UserRole role) {
+        String phone = String.valueOf(SEQUENCE.incrementAndGet());
+        User user = new User();
+        user.setFullName("User " + phone);
+        user.setEmail(phone + "@test.local");
+        user.setPhone(phone);
+        user.setPasswordHash("x");
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    /** A verified vendor with an active account at (lat, lon). */
+    public Vendor vendor(double lat, double lon) {
+        Vendor vendor = new Vendor();
+        vendor.setUser(user(User.UserRole.VENDOR));
+        vendor.setVerifiedStatus(Vendor.VerifiedStatus.VERIFIED);
+        vendor.setLatitude(BigDecimal.valueOf(lat));
+        vendor.setLongitude(BigDecimal.valueOf(lon));
+        return vendorRepository.save(vendor);
+    }
+
+    /** An available drone spraying 20 acres a day, based at the vendor's location. */
+    public Drone drone(Vendor vendor) {
+        Drone drone = new Drone();
+        drone.setVendor(vendor);
+        drone.setDroneModel("Test model");
+        drone.setPricePerAcre(BigDecimal.valueOf(500));
+        drone.setServiceRadiusKm(30.0);
+        drone.setMaxAcresPerDay(20);
+        drone.setFlightTimeMinutes(20);
+        drone.setBatterySwapTimeMinutes(5);
+        if (vendor.getLatitude() != null) {
+            drone.setBaseLat(vendor.getLatitude().doubleValue());
+            drone.setBaseLng(vendor.getLongitude().doubleValue());
+        }
+        return droneRepository.save(drone);
+    }
+
+    /** A rule offering the given slots (e.g. "06:00-10:00") every day of the next 30 days. */
+    public AvailabilityRule availabilityRule(Drone drone, String timeSlots) {
+        AvailabilityRule rule = new AvailabilityRule();
+        rule.setDrone(drone);
+        rule.setStartDate(LocalDate.now());
+        rule.setEndDate(LocalDate.now().plusDays(30));
+        rule.setDaysMask(0);
+        rule.setMonthsMask(0);
+        rule.setTimeSlots(timeSlots);
+        return availabilityRuleRepository.save(rule);
+    }
+
+    /** A stored free slot of a drone without an availability rule. */
+    public Availability freeSlot(Drone drone, LocalDate date, LocalTime startTime, LocalTime endTime) {
+        Availability slot = new Availability();
+        slot.setDrone(drone);
+        slot.setAvailableDate(date);
+        slot.setStartTime(startTime);
+        slot.setEndTime(endTime);
+        slot.setIsBooked(false);
+        return availabilityRepository.save(slot);
+    }
+
+    /** A 06:00-10:00 spraying booking three days from now. */
+    public Booking booking(User customer, Drone drone, double lat, double lon, double acres,
+                           Booking.BookingStatus status, LocalDateTime acceptedAt) {
+        Booking booking = new Booking();
+        booking.setCustomer(customer);
+        booking.setVendor(drone.getVendor());
+        booking.setDrone(drone);
+        booking.setServiceDate(LocalDate.now().plusDays(3));
+        booking.setStartTime(LocalTime.of(6, 0));
+        booking.setEndTime(LocalTime.of(10, 0));
+        booking.setLocationLat(BigDecimal.valueOf(lat));
+        booking.setLocationLong(BigDecimal.valueOf(lon));
+        booking.setFarmAreaAcres(BigDecimal.valueOf(acres));
+        booking.setServiceType(Booking.ServiceType.SPRAYING);
+        booking.setStatus(status);
+        booking.setTotalCost(BigDecimal.valueOf(acres * 500));
+        booking.setAcceptedAt(acceptedAt);
+        return bookingRepository.save(booking);
+    }
+}
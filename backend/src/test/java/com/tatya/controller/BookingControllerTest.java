@@ -0,0 +1,108 @@
+package com.tatya.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tatya.SqlCapture;
+import com.tatya.TestData;
+import com.tatya.entity.Drone;
+import com.tatya.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Pins the number of SQL statements behind the booking write endpoints, so a re-read after save
+ * (or any other extra query) on these paths fails the build. Not transactional: each request
+ * commits as it would in production.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookingControllerTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(2);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TestData testData;
+
+    // Create: customer and drone selects, slot reservation, insert. Update: booking select, release
+    // of the old slot (lookup, rule check, update), reservation of the new one, booking update.
+    @Test
+    void createAndUpdateRunAFixedNumberOfStatements() throws Exception {
+        User customer = testData.user(User.UserRole.CUSTOMER);
+        Drone drone = testData.drone(testData.vendor(18.5, 73.8));
+        testData.freeSlot(drone, DAY, LocalTime.of(6, 0), LocalTime.of(10, 0));
+        testData.freeSlot(drone, DAY.plusDays(1), LocalTime.of(6, 0), LocalTime.of(10, 0));
+
+        JsonNode created = call(post("/api/bookings")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                        "customerId", customer.getId(),
+                        "droneId", drone.getDroneId(),
+                        "serviceDate", DAY.toString(),
+                        "startTime", "06:00:00",
+                        "endTime", "10:00:00",
+                        "locationLat", 18.52,
+                        "locationLong", 73.85,
+                        "farmAreaAcres", 4,
+                        "serviceType", "SPRAYING",
+                        "numberOfDays", 1))), 4);
+        assertEquals("Test model", created.path("data").path("droneModel").asText());
+        long bookingId = created.path("data").path("bookingId").asLong();
+
+        JsonNode updated = call(put("/api/bookings/" + bookingId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                        "serviceDate", DAY.plusDays(1).toString(),
+                        "startTime", "06:00:00",
+                        "endTime", "10:00:00",
+                        "numberOfDays", 1))), 6);
+        assertEquals(DAY.plusDays(1).toString(), updated.path("data").path("serviceDate").asText());
+    }
+
+    // Performs the request, expects 200 and exactly `statements` SQL statements, returns the body
+    private JsonNode call(RequestBuilder request, long statements) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<MvcResult> result = new ArrayList<>(1);
+        List<String> sql = SqlCapture.capture(() -> {
+            try {
+                result.add(mockMvc.perform(request).andReturn());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        MvcResult response = result.get(0);
+        assertEquals(200, response.getResponse().getStatus(), response.getResponse().getContentAsString());
+        assertEquals(statements, statistics.getPrepareStatementCount(), "statements:\n" + String.join("\n", sql));
+        return objectMapper.readTree(response.getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,96 @@
+package com.tatya.controller;
+
+import com.tatya.TestData;
+import com.tatya.entity.Booking;
+import com.tatya.entity.Drone;
+import com.tatya.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Payload size and SQL statement count of a customer's booking history: the full list endpoint
+ * (/api/bookings/customer/{id}, whole Booking entities) against the first keyset page
+ * (/api/bookings/customer/{id}/page, BookingSummaryResponse rows).
+ *
+ * Opt-in, as it inserts thousands of bookings:
+ * {@code mvn test -Dtest=BookingHistoryBenchmarkTest -Dbenchmark=true}. History sizes come from
+ * {@code -Dbenchmark.bookings} (default 100,1000,5000) and the page size from
+ * {@code -Dbenchmark.page-size} (default 20). Fails if a page's statement count changes or its
+ * payload grows by more than 5% with the history size.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookingHistoryBenchmarkTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void fullListVersusKeysetPage() throws Exception {
+        String[] sizes = System.getProperty("benchmark.bookings", "100,1000,5000").split(",");
+        int pageSize = Integer.getInteger("benchmark.page-size", 20);
+        Drone drone = testData.drone(testData.vendor(18.5, 73.8));
+
+        long firstPageStatements = -1;
+        long firstPageBytes = -1;
+        System.out.printf("%10s %14s %12s %10s %14s %12s %10s%n", "bookings",
+                "list bytes", "list stmts", "list ms", "page bytes", "page stmts", "page ms");
+        for (String size : sizes) {
+            int n = Integer.parseInt(size.trim());
+            User customer = testData.user(User.UserRole.CUSTOMER);
+            for (int i = 0; i < n; i++) {
+                testData.booking(customer, drone, 18.5 + i * 1e-4, 73.8, 2.0,
+                        Booking.BookingStatus.ACCEPTED, LocalDateTime.now());
+            }
+
+            Measurement list = measure("/api/bookings/customer/" + customer.getId());
+            Measurement page = measure("/api/bookings/customer/" + customer.getId() + "/page?limit=" + pageSize);
+            System.out.printf("%10d %14d %12d %10.1f %14d %12d %10.1f%n", n,
+                    list.bytes, list.statements, list.millis, page.bytes, page.statements, page.millis);
+
+            if (firstPageStatements < 0) {
+                firstPageStatements = page.statements;
+                firstPageBytes = page.bytes;
+            }
+            assertEquals(firstPageStatements, page.statements, "page statements at " + n + " bookings");
+            // Ids and coordinates get longer as the table grows, so allow a little slack
+            assertEquals(firstPageBytes, page.bytes, firstPageBytes / 20.0, "page bytes at " + n + " bookings");
+        }
+    }
+
+    private Measurement measure(String url) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long start = System.nanoTime();
+        MvcResult result = mockMvc.perform(get(url)).andReturn();
+        double millis = (System.nanoTime() - start) / 1e6;
+        assertEquals(200, result.getResponse().getStatus(), result.getResponse().getContentAsString());
+        return new Measurement(result.getResponse().getContentAsByteArray().length,
+                statistics.getPrepareStatementCount(), millis);
+    }
+
+    private record Measurement(long bytes, long statements, double millis) {
+    }
+}
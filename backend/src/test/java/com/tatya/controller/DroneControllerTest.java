@@ -0,0 +1,107 @@
+package com.tatya.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tatya.TestData;
+import com.tatya.entity.Drone;
+import com.tatya.entity.DroneSpecification;
+import com.tatya.model.DroneFleetChangedEvent;
+import com.tatya.repository.DroneSpecificationRepository;
+import com.tatya.service.DroneSearchIndexService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * The customer search returns listing cards of the drones serving the point, in fewer bytes and
+ * statements than the entity listing. Not transactional, so the index sees committed drones; the
+ * location is away from the other tests' data.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class DroneControllerTest {
+
+    private static final double LAT = 25.0;
+    private static final double LNG = 85.0;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DroneSearchIndexService droneSearchIndexService;
+
+    @Autowired
+    private DroneSpecificationRepository droneSpecificationRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void searchReturnsServingDronesAsListingCards() throws Exception {
+        Drone near = testData.drone(testData.vendor(LAT + 0.1, LNG));
+        specification(near);
+        Drone far = testData.drone(testData.vendor(LAT + 1.0, LNG));
+        eventPublisher.publishEvent(new DroneFleetChangedEvent(null));
+        droneSearchIndexService.allCandidates();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        String search = body("/api/drones/search?lat=" + LAT + "&lng=" + LNG);
+        // Only the specification options; the candidates come from the warm index
+        assertTrue(statistics.getPrepareStatementCount() <= 2, "statements: " + statistics.getPrepareStatementCount());
+
+        JsonNode drones = objectMapper.readTree(search).path("data");
+        assertEquals(1, drones.size(), search);
+        JsonNode card = drones.get(0);
+        assertEquals(near.getDroneId().longValue(), card.path("droneId").asLong());
+        assertEquals(11.1, card.path("distanceKm").asDouble(), 0.1);
+        assertEquals(1, card.path("specOptions").size());
+        assertFalse(card.has("vendor"), "cards carry no nested entities");
+        assertFalse(search.contains("\"droneId\":" + far.getDroneId() + ","));
+
+        String listing = body("/api/drones/available/with-specifications?lat=" + LAT + "&lng=" + LNG);
+        assertEquals(1, objectMapper.readTree(listing).path("data").size(), listing);
+        assertTrue(search.length() < listing.length(),
+                "search " + search.length() + " bytes, listing " + listing.length() + " bytes");
+    }
+
+    private void specification(Drone drone) {
+        DroneSpecification spec = new DroneSpecification();
+        spec.setDrone(drone);
+        spec.setOptionSet(1);
+        spec.setTankSizeLiters(10.0);
+        spec.setSprinklerType("Nozzle");
+        spec.setTimePerAcreMinutes("5");
+        spec.setSprayWidthMeters(4.0);
+        droneSpecificationRepository.save(spec);
+    }
+
+    private String body(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url)).andReturn();
+        assertEquals(200, result.getResponse().getStatus(), result.getResponse().getContentAsString());
+        return result.getResponse().getContentAsString();
+    }
+}
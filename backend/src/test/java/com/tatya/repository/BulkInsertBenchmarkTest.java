@@ -0,0 +1,170 @@
+package com.tatya.repository;
+
+import com.tatya.TestData;
+import com.tatya.entity.Assignment;
+import com.tatya.entity.Availability;
+import com.tatya.entity.Cluster;
+import com.tatya.entity.ClusterHistory;
+import com.tatya.entity.Drone;
+import com.tatya.entity.Vendor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Insert throughput, one transaction per run: JPA saveAll (one INSERT per row, as IDENTITY ids
+ * rule out Hibernate batching) against the JDBC batches of {@link BulkInsertRepository}.
+ *
+ * Availability has no bulk writer since calendars became rules, so its batch column times the
+ * same multi-row INSERT the yearly calendar used, issued inline. On H2 the batch gain is smaller
+ * than on MySQL, where rewriteBatchedStatements turns each batch into multi-row INSERTs.
+ *
+ * Opt-in: {@code mvn test -Dtest=BulkInsertBenchmarkTest -Dbenchmark=true}. Row counts come
+ * from {@code -Dbenchmark.rows} (default 1000,10000).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkInsertBenchmarkTest {
+
+    @Autowired
+    private BulkInsertRepository bulkInsertRepository;
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private ClusterRepository clusterRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Autowired
+    private ClusterHistoryRepository clusterHistoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void saveAllVersusBatchUpdate() {
+        String[] sizes = System.getProperty("benchmark.rows", "1000,10000").split(",");
+        Vendor vendor = testData.vendor(18.5, 73.8);
+        Drone drone = testData.drone(vendor);
+        Cluster cluster = clusterRepository.save(BulkInsertRepositoryTest.cluster("Benchmark cluster", 0));
+        LocalDate firstDay = LocalDate.now();
+
+        System.out.printf("%-16s %8s %16s %16s %9s%n", "entity", "rows", "saveAll rows/s", "batch rows/s", "speedup");
+        for (String size : sizes) {
+            int n = Integer.parseInt(size.trim());
+
+            // Each run gets its own days, so the (drone, date, slot) key never repeats
+            LocalDate jpaDays = firstDay;
+            LocalDate batchDays = firstDay.plusDays(n);
+            firstDay = firstDay.plusDays(2L * n);
+            report("Availability", n,
+                    time(() -> availabilityRepository.saveAll(rows(n, i -> slot(drone, jpaDays, i)))),
+                    time(() -> insertAvailability(rows(n, i -> slot(drone, batchDays, i)))));
+
+            report("Cluster", n,
+                    time(() -> clusterRepository.saveAll(rows(n, i -> BulkInsertRepositoryTest.cluster("Saved " + i, i)))),
+                    time(() -> bulkInsertRepository.insertClusters(rows(n, i -> BulkInsertRepositoryTest.cluster("Batched " + i, i)))));
+
+            report("Assignment", n,
+                    time(() -> assignmentRepository.saveAll(rows(n, i -> assignment(cluster, vendor)))),
+                    time(() -> assertEquals(n, bulkInsertRepository.insertAssignments(rows(n, i -> assignment(cluster, vendor))))));
+
+            report("ClusterHistory", n,
+                    time(() -> clusterHistoryRepository.saveAll(rows(n, i -> history(cluster, i)))),
+                    time(() -> assertEquals(n, bulkInsertRepository.insertClusterHistory(rows(n, i -> history(cluster, i))))));
+        }
+    }
+
+    private static void report(String entity, int rows, double saveAllSeconds, double batchSeconds) {
+        System.out.printf("%-16s %8d %16.0f %16.0f %8.1fx%n", entity, rows,
+                rows / saveAllSeconds, rows / batchSeconds, saveAllSeconds / batchSeconds);
+    }
+
+    // Seconds to run the inserts in one committed transaction
+    private double time(Runnable inserts) {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> inserts.run());
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private static <T> List<T> rows(int n, IntFunction<T> row) {
+        List<T> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            rows.add(row.apply(i));
+        }
+        return rows;
+    }
+
+    // 24 one-hour slots a day from firstDay
+    private static Availability slot(Drone drone, LocalDate firstDay, int i) {
+        Availability slot = new Availability();
+        slot.setDrone(drone);
+        slot.setAvailableDate(firstDay.plusDays(i / 24));
+        slot.setStartTime(LocalTime.of(i % 24, 0));
+        slot.setEndTime(LocalTime.of(i % 24, 59));
+        slot.setIsBooked(false);
+        return slot;
+    }
+
+    private void insertAvailability(List<Availability> slots) {
+        jdbcTemplate.batchUpdate("INSERT INTO availability (drone_id, available_date, start_time, end_time, is_booked, version) "
+                + "VALUES (?, ?, ?, ?, false, 0)", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Availability slot = slots.get(i);
+                ps.setLong(1, slot.getDrone().getDroneId());
+                ps.setDate(2, Date.valueOf(slot.getAvailableDate()));
+                ps.setTime(3, Time.valueOf(slot.getStartTime()));
+                ps.setTime(4, Time.valueOf(slot.getEndTime()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return slots.size();
+            }
+        });
+    }
+
+    private static Assignment assignment(Cluster cluster, Vendor vendor) {
+        Assignment assignment = new Assignment();
+        assignment.setCluster(cluster);
+        assignment.setVendor(vendor);
+        assignment.setScheduledTimeSlot("09:00 AM - 05:00 PM");
+        return assignment;
+    }
+
+    private static ClusterHistory history(Cluster cluster, int i) {
+        ClusterHistory history = new ClusterHistory();
+        history.setOriginalClusterId(cluster.getId());
+        history.setName("Archived " + i);
+        history.setCompletionDate(LocalDate.now());
+        return history;
+    }
+}
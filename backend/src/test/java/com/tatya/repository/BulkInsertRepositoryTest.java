@@ -0,0 +1,125 @@
+package com.tatya.repository;
+
+import com.tatya.TestData;
+import com.tatya.entity.Assignment;
+import com.tatya.entity.Cluster;
+import com.tatya.entity.ClusterHistory;
+import com.tatya.entity.Vendor;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class BulkInsertRepositoryTest {
+
+    @Autowired
+    private BulkInsertRepository bulkInsertRepository;
+
+    @Autowired
+    private ClusterRepository clusterRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Autowired
+    private ClusterHistoryRepository clusterHistoryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TestData testData;
+
+    // Clustering stamps member bookings with these ids, so each must belong to its own cluster
+    @Test
+    void insertClustersWritesGeneratedIdsBackInOrder() {
+        List<Cluster> clusters = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            clusters.add(cluster("Bulk cluster " + i, i));
+        }
+
+        bulkInsertRepository.insertClusters(clusters);
+        entityManager.clear();
+
+        for (int i = 0; i < clusters.size(); i++) {
+            Long id = clusters.get(i).getId();
+            assertNotNull(id, "cluster " + i);
+            assertTrue(i == 0 || id > clusters.get(i - 1).getId(), "ids ascend with the list");
+            Cluster stored = clusterRepository.findById(id).orElseThrow();
+            assertEquals("Bulk cluster " + i, stored.getName());
+            assertEquals(i, stored.getBookingCount());
+            assertEquals(0, new BigDecimal("18.5").compareTo(stored.getCenterLatitude()));
+        }
+    }
+
+    @Test
+    void assignmentsAndHistoryArePersisted() {
+        Vendor vendor = testData.vendor(18.5, 73.8);
+        // The JDBC inserts reference the vendor row, so it has to reach the database first
+        entityManager.flush();
+        List<Cluster> clusters = List.of(cluster("Assigned 0", 1), cluster("Assigned 1", 2));
+        bulkInsertRepository.insertClusters(clusters);
+
+        List<Assignment> assignments = new ArrayList<>();
+        List<ClusterHistory> history = new ArrayList<>();
+        for (Cluster cluster : clusters) {
+            Assignment assignment = new Assignment();
+            assignment.setCluster(cluster);
+            assignment.setVendor(vendor);
+            assignment.setScheduledTimeSlot("09:00 AM - 05:00 PM");
+            assignments.add(assignment);
+
+            ClusterHistory h = new ClusterHistory();
+            h.setOriginalClusterId(cluster.getId());
+            h.setName(cluster.getName());
+            h.setVendorId(vendor.getVendorId());
+            h.setCompletionDate(LocalDate.now());
+            history.add(h);
+        }
+        long assignmentsBefore = assignmentRepository.count();
+        long historyBefore = clusterHistoryRepository.count();
+
+        assertEquals(2, bulkInsertRepository.insertAssignments(assignments));
+        assertEquals(2, bulkInsertRepository.activateAssignedClusters(assignments));
+        assertEquals(2, bulkInsertRepository.insertClusterHistory(history));
+        entityManager.clear();
+
+        assertEquals(assignmentsBefore + 2, assignmentRepository.count());
+        assertEquals(historyBefore + 2, clusterHistoryRepository.count());
+        for (Cluster cluster : clusters) {
+            Cluster stored = clusterRepository.findById(cluster.getId()).orElseThrow();
+            assertEquals(Cluster.ClusterStatus.ACTIVE, stored.getStatus());
+            assertEquals(vendor.getVendorId(), stored.getVendor().getVendorId());
+            assertEquals(1, clusterHistoryRepository.findAll().stream()
+                    .filter(h -> cluster.getId().equals(h.getOriginalClusterId()))
+                    .count());
+        }
+    }
+
+    static Cluster cluster(String name, int bookings) {
+        Cluster cluster = new Cluster();
+        cluster.setName(name);
+        cluster.setStatus(Cluster.ClusterStatus.PENDING);
+        cluster.setStartDate(LocalDate.now().plusDays(1));
+        cluster.setEndDate(LocalDate.now().plusDays(3));
+        cluster.setCenterLatitude(new BigDecimal("18.5"));
+        cluster.setCenterLongitude(new BigDecimal("73.8"));
+        cluster.setTotalAcres(BigDecimal.TEN);
+        cluster.setBookingCount(bookings);
+        return cluster;
+    }
+}
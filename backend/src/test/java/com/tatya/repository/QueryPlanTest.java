@@ -0,0 +1,85 @@
+package com.tatya.repository;
+
+import com.tatya.SqlCapture;
+import com.tatya.entity.Booking;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query-plan regression test for the hot availability, booking and OTP lookups: runs each
+ * repository query, asks the database for the plan of the SQL it issued and fails if a table
+ * is read with a full scan instead of one of the declared indexes.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class QueryPlanTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 6, 1);
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private OtpRepository otpRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void availabilitySlotLookupsUseTheDroneDateIndex() {
+        assertIndexed(() -> availabilityRepository.findAvailableSlotsByDroneIdAndDate(1L, DAY),
+                "idx_availability_drone_date_booked_time", 1L, DAY, DAY, DAY);
+        assertIndexed(() -> availabilityRepository.findAvailableDatesByDroneId(1L, DAY),
+                "idx_availability_drone_date_booked_time", 1L, DAY);
+    }
+
+    @Test
+    void vendorBookingLookupsUseTheVendorDateIndexes() {
+        assertIndexed(() -> bookingRepository.findByVendor_VendorIdAndServiceDate(1L, DAY),
+                "idx_bookings_vendor_date_status", 1L, DAY);
+        assertIndexed(() -> bookingRepository.findByVendor_VendorIdAndServiceDateBetween(1L, DAY, DAY.plusDays(6)),
+                "idx_bookings_vendor_date_status", 1L, DAY, DAY.plusDays(6));
+        assertIndexed(() -> bookingRepository.sumAcresByDay(1L, Booking.BookingStatus.COMPLETED, DAY, DAY.plusDays(6)),
+                "idx_bookings_vendor_", 1L, "COMPLETED", DAY, DAY.plusDays(6));
+    }
+
+    @Test
+    void clusteringLookupsUseTheStatusIndex() {
+        assertIndexed(() -> bookingRepository.findUnclusteredPointsByStatus(Booking.BookingStatus.ACCEPTED),
+                "idx_bookings_status", "ACCEPTED");
+    }
+
+    @Test
+    void otpLookupsUseThePhoneIndex() {
+        assertIndexed(() -> otpRepository.findByPhoneNumberAndOtpCodeAndIsUsedFalse("9000000001", "123456"),
+                "idx_otps_phone_used_created", "9000000001", "123456");
+        assertIndexed(() -> otpRepository.findTopByPhoneNumberOrderByCreatedAtDesc("9000000001"),
+                "idx_otps_phone_used_created", "9000000001", 1);
+    }
+
+    // Runs the query, then checks that the plan of its SQL, with the given bind values in placeholder
+    // order, reads through an index whose name starts with `index`
+    private void assertIndexed(Runnable query, String index, Object... params) {
+        List<String> statements = SqlCapture.capture(query);
+        assertEquals(1, statements.size(), "statements: " + statements);
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + statements.get(0), String.class, params))
+                .toLowerCase();
+        assertFalse(plan.contains("tablescan"), "full scan in plan:\n" + plan);
+        assertTrue(plan.contains(index), "expected " + index + " in plan:\n" + plan);
+    }
+}
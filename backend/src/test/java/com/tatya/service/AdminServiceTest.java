@@ -0,0 +1,111 @@
+package com.tatya.service;
+
+import com.tatya.TestData;
+import com.tatya.dto.AdminUserResponse;
+import com.tatya.dto.AdminVendorResponse;
+import com.tatya.dto.CursorPage;
+import com.tatya.entity.User;
+import com.tatya.entity.Vendor;
+import com.tatya.repository.UserRepository;
+import com.tatya.repository.VendorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class AdminServiceTest {
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    // A dashboard read from another request while the deactivation is still uncommitted sees the
+    // old counts; the snapshot it may cache must not outlive the commit
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void dashboardStatsReflectAChangeOnceItCommits() {
+        Vendor vendor = testData.vendor(18.5, 73.8);
+        long activeBefore = adminService.getDashboardStats().getActiveVendors();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            adminService.deactivateVendor(vendor.getVendorId());
+            CompletableFuture.supplyAsync(adminService::getDashboardStats).join();
+        });
+
+        assertEquals(activeBefore - 1, adminService.getDashboardStats().getActiveVendors());
+    }
+
+    @Test
+    void userPagesWalkTheFilteredListInIdOrder() {
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = testData.user(User.UserRole.CUSTOMER);
+            user.setFullName("Keyset Farmer " + i);
+            expected.add(userRepository.save(user).getId());
+        }
+        User vendorUser = testData.user(User.UserRole.VENDOR);
+        vendorUser.setFullName("Keyset Farmer vendor");
+        userRepository.save(vendorUser);
+
+        List<Long> seen = new ArrayList<>();
+        Long cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<AdminUserResponse> page = adminService.getUsersPage(cursor, 2, "customer", null, "keyset FARMER");
+            page.getItems().forEach(u -> seen.add(u.getId()));
+            assertEquals(page.getNextCursor() != null, page.isHasMore());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void vendorPageFiltersByApproval() {
+        Vendor pending = testData.vendor(18.5, 73.8);
+        pending.setVerifiedStatus(Vendor.VerifiedStatus.PENDING);
+        vendorRepository.save(pending);
+        Vendor verified = testData.vendor(18.5, 73.8);
+
+        CursorPage<AdminVendorResponse> page = adminService.getVendorsPage(null, 200, "pending", null, null);
+        assertTrue(page.getItems().stream().anyMatch(v -> v.getVendorId().equals(pending.getVendorId())));
+        assertTrue(page.getItems().stream().noneMatch(v -> v.getVendorId().equals(verified.getVendorId())));
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void invalidFiltersAndLimitsAreRejected() {
+        assertThrows(RuntimeException.class, () -> adminService.getUsersPage(null, 0, null, null, null));
+        assertThrows(RuntimeException.class, () -> adminService.getUsersPage(null, 10, "pilot", null, null));
+    }
+}
@@ -0,0 +1,51 @@
+package com.tatya.service;
+
+import com.tatya.TestData;
+import com.tatya.entity.Drone;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class AvailabilityServiceTest {
+
+    private static final LocalTime START = LocalTime.of(6, 0);
+    private static final LocalTime END = LocalTime.of(10, 0);
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void ruleSlotCanOnlyBeReservedOnce() {
+        Drone drone = testData.drone(testData.vendor(18.5, 73.8));
+        testData.availabilityRule(drone, "06:00-10:00");
+        LocalDate day = LocalDate.now().plusDays(2);
+
+        assertEquals(AvailabilityService.SlotReservation.RESERVED,
+                availabilityService.reserveSlot(drone.getDroneId(), day, START, END));
+        assertEquals(AvailabilityService.SlotReservation.ALREADY_BOOKED,
+                availabilityService.reserveSlot(drone.getDroneId(), day, START, END));
+    }
+
+    @Test
+    void slotOutsideTheScheduleIsNotOffered() {
+        Drone drone = testData.drone(testData.vendor(18.5, 73.8));
+        testData.availabilityRule(drone, "06:00-10:00");
+
+        assertEquals(AvailabilityService.SlotReservation.NOT_OFFERED,
+                availabilityService.reserveSlot(drone.getDroneId(), LocalDate.now().plusDays(2),
+                        LocalTime.of(14, 0), LocalTime.of(18, 0)));
+    }
+}
@@ -0,0 +1,73 @@
+package com.tatya.service;
+
+import com.tatya.TestData;
+import com.tatya.dto.BookingRequest;
+import com.tatya.entity.Booking;
+import com.tatya.entity.Drone;
+import com.tatya.entity.User;
+import com.tatya.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class BookingServiceTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void bookingASlotOutsideTheDroneScheduleIsRejected() {
+        User customer = testData.user(User.UserRole.CUSTOMER);
+        Drone drone = testData.drone(testData.vendor(18.5, 73.8));
+        testData.availabilityRule(drone, "06:00-10:00");
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> bookingService.createBooking(
+                request(customer, drone, LocalTime.of(14, 0), LocalTime.of(18, 0))));
+        assertTrue(e.getMessage().contains("not available"), e.getMessage());
+        assertEquals(0, bookingRepository.findByDrone_DroneId(drone.getDroneId()).size());
+    }
+
+    @Test
+    void bookingAScheduledSlotSucceeds() {
+        User customer = testData.user(User.UserRole.CUSTOMER);
+        Drone drone = testData.drone(testData.vendor(18.5, 73.8));
+        testData.availabilityRule(drone, "06:00-10:00");
+
+        bookingService.createBooking(request(customer, drone, LocalTime.of(6, 0), LocalTime.of(10, 0)));
+        assertEquals(1, bookingRepository.findByDrone_DroneId(drone.getDroneId()).size());
+    }
+
+    static BookingRequest request(User customer, Drone drone, LocalTime start, LocalTime end) {
+        BookingRequest request = new BookingRequest();
+        request.setCustomerId(customer.getId());
+        request.setDroneId(drone.getDroneId());
+        request.setServiceDate(LocalDate.now().plusDays(2));
+        request.setStartTime(start);
+        request.setEndTime(end);
+        request.setLocationLat(BigDecimal.valueOf(18.52));
+        request.setLocationLong(BigDecimal.valueOf(73.85));
+        request.setFarmAreaAcres(BigDecimal.valueOf(4));
+        request.setServiceType(Booking.ServiceType.SPRAYING);
+        request.setNumberOfDays(1);
+        return request;
+    }
+}
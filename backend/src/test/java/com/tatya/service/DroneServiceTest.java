@@ -0,0 +1,102 @@
+package com.tatya.service;
+
+import com.tatya.TestData;
+import com.tatya.dto.VendorOnboardingStep4Request;
+import com.tatya.entity.Drone;
+import com.tatya.entity.Vendor;
+import com.tatya.model.DroneFleetChangedEvent;
+import com.tatya.repository.DroneRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Drone search from the in-memory index must agree with the database query it replaced, and the
+ * service bases it reads must follow the vendor's location. Not transactional, so the index sees
+ * committed drones; the locations are away from the other tests' data.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DroneServiceTest {
+
+    @Autowired
+    private DroneService droneService;
+
+    @Autowired
+    private VendorOnboardingService vendorOnboardingService;
+
+    @Autowired
+    private DroneRepository droneRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void indexAndDatabaseModesFindTheSameDrones() {
+        Random random = new Random(7);
+        for (int i = 0; i < 40; i++) {
+            Drone drone = testData.drone(testData.vendor(23.0 + random.nextDouble(), 87.0 + random.nextDouble()));
+            // Some drones without a radius, served within the default
+            drone.setServiceRadiusKm(i % 5 == 0 ? null : 5.0 + random.nextDouble() * 40.0);
+            droneRepository.save(drone);
+        }
+        eventPublisher.publishEvent(new DroneFleetChangedEvent(null));
+
+        int found = 0;
+        for (int q = 0; q < 50; q++) {
+            double lat = 22.8 + random.nextDouble() * 1.4;
+            double lng = 86.8 + random.nextDouble() * 1.4;
+            List<String> index = search("index", lat, lng);
+            assertEquals(search("database", lat, lng), index, "point " + lat + "," + lng);
+            found += index.size();
+        }
+        assertFalse(found == 0, "the queries should reach some drones");
+    }
+
+    @Test
+    void vendorLocationChangeMovesTheBaseOfEveryDrone() {
+        Vendor vendor = testData.vendor(26.0, 86.0);
+        Drone edited = testData.drone(vendor);
+        Drone other = testData.drone(vendor);
+        Drone elsewhere = testData.drone(testData.vendor(26.0, 86.0));
+
+        VendorOnboardingStep4Request request = new VendorOnboardingStep4Request();
+        request.setVendorId(vendor.getVendorId());
+        request.setCoordinates("26.5,86.5");
+        vendorOnboardingService.saveStep4(request);
+
+        for (Drone drone : List.of(edited, other)) {
+            Drone saved = droneRepository.findById(drone.getDroneId()).orElseThrow();
+            assertEquals(26.5, saved.getBaseLat(), 1e-9);
+            assertEquals(86.5, saved.getBaseLng(), 1e-9);
+        }
+        assertEquals(26.0, droneRepository.findById(elsewhere.getDroneId()).orElseThrow().getBaseLat(), 1e-9);
+    }
+
+    // "droneId@distanceKm" of the search results in the given mode, in result order
+    private List<String> search(String mode, double lat, double lng) {
+        Object target = AopTestUtils.getTargetObject(droneService);
+        Object previous = ReflectionTestUtils.getField(target, "searchMode");
+        ReflectionTestUtils.setField(target, "searchMode", mode);
+        try {
+            return droneService.searchAvailableDrones(lat, lng).stream()
+                    .map(result -> result.getDroneId() + "@" + result.getDistanceKm())
+                    .toList();
+        } finally {
+            ReflectionTestUtils.setField(target, "searchMode", previous);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.tatya.service;
+
+import com.tatya.SqlCapture;
+import com.tatya.TestData;
+import com.tatya.entity.User;
+import com.tatya.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ExcelExportServiceTest {
+
+    @Autowired
+    private ExcelExportService excelExportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void csvNeutralisesCellsThatStartLikeAFormula() throws Exception {
+        User user = testData.user(User.UserRole.CUSTOMER);
+        user.setPhone("+91" + user.getPhone());
+        user.setEmail("@" + user.getEmail());
+        user.setFullName("=HYPERLINK(\"http://evil.example\",\"x\")");
+        userRepository.save(user);
+
+        String line = csvLine(user.getId());
+        assertTrue(line.startsWith(user.getId() + ",'" + user.getPhone() + ",'" + user.getEmail()
+                + ",\"'=HYPERLINK(\"\"http://evil.example\"\",\"\"x\"\")\",ACTIVE,CUSTOMER,"), line);
+    }
+
+    @Test
+    void csvKeepsOrdinaryCells() throws Exception {
+        User user = testData.user(User.UserRole.CUSTOMER);
+        user.setFullName("Ramesh Patil");
+        userRepository.save(user);
+
+        String line = csvLine(user.getId());
+        assertTrue(line.startsWith(user.getId() + "," + user.getPhone() + "," + user.getEmail()
+                + ",Ramesh Patil,ACTIVE,CUSTOMER,"), line);
+    }
+
+    // Pages of two rows: every user once, in id order, and no OTP lookup
+    @Test
+    void userExportWalksAllUsersPageByPage() {
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(testData.user(User.UserRole.CUSTOMER).getId());
+        }
+        testData.user(User.UserRole.ADMIN);
+
+        Object target = AopTestUtils.getTargetObject(excelExportService);
+        Object pageSize = ReflectionTestUtils.getField(target, "exportPageSize");
+        ReflectionTestUtils.setField(target, "exportPageSize", 2);
+        List<String> lines = new ArrayList<>();
+        List<String> sql;
+        try {
+            sql = SqlCapture.capture(() -> lines.addAll(Arrays.asList(csv().split("\r\n"))));
+        } finally {
+            ReflectionTestUtils.setField(target, "exportPageSize", pageSize);
+        }
+
+        long users = userRepository.findAll().stream().filter(u -> u.getRole() != User.UserRole.ADMIN).count();
+        assertEquals(users + 1, lines.size());
+        List<Long> ids = lines.subList(1, lines.size()).stream()
+                .map(line -> Long.parseLong(line.substring(0, line.indexOf(','))))
+                .toList();
+        assertEquals(ids.stream().sorted().toList(), ids);
+        assertTrue(ids.containsAll(created));
+        assertEquals(users / 2 + 1, sql.size(), String.join("\n", sql));
+        assertFalse(sql.stream().anyMatch(s -> s.toLowerCase().contains("otp")), String.join("\n", sql));
+    }
+
+    private String csvLine(Long userId) {
+        return Arrays.stream(csv().split("\r\n"))
+                .filter(line -> line.startsWith(userId + ","))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private String csv() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            excelExportService.exportUsersCsv(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
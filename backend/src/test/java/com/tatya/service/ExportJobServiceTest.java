@@ -0,0 +1,53 @@
+package com.tatya.service;
+
+import com.tatya.model.ExportJob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportJobServiceTest {
+
+    @TempDir
+    Path exportDir;
+
+    @Test
+    void ttlRunsFromCompletionNotCreation() throws IOException {
+        ExportJobService service = new ExportJobService(null);
+        ReflectionTestUtils.setField(service, "ttlMinutes", 60L);
+        @SuppressWarnings("unchecked")
+        Map<String, ExportJob> jobs = (Map<String, ExportJob>) ReflectionTestUtils.getField(service, "jobs");
+        LocalDateTime now = LocalDateTime.now();
+
+        // A long export: queued two hours ago, finished ten minutes ago
+        jobs.put("slow", job("slow", ExportJob.Status.COMPLETED, now.minusHours(2), now.minusMinutes(10)));
+        jobs.put("old", job("old", ExportJob.Status.FAILED, now.minusHours(3), now.minusHours(2)));
+        jobs.put("running", job("running", ExportJob.Status.RUNNING, now.minusHours(2), null));
+
+        assertEquals(1, service.expireJobs());
+        assertTrue(jobs.containsKey("slow"));
+        assertTrue(jobs.containsKey("running"));
+        assertTrue(Files.exists(exportDir.resolve("slow")));
+        assertFalse(Files.exists(exportDir.resolve("old")));
+    }
+
+    private ExportJob job(String id, ExportJob.Status status, LocalDateTime createdAt, LocalDateTime completedAt)
+            throws IOException {
+        ExportJob job = new ExportJob();
+        job.setFile(Files.createFile(exportDir.resolve(id)));
+        job.setJobId(id);
+        job.setStatus(status);
+        job.setCreatedAt(createdAt);
+        job.setCompletedAt(completedAt);
+        return job;
+    }
+}
@@ -0,0 +1,61 @@
+package com.tatya.service;
+
+import com.tatya.TestData;
+import com.tatya.entity.Booking;
+import com.tatya.entity.Drone;
+import com.tatya.entity.User;
+import com.tatya.repository.BookingRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class FarmCoverageServiceTest {
+
+    @Autowired
+    private FarmCoverageService farmCoverageService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void oldSingletonPairsWithNewlyAcceptedNeighbour() {
+        User customer = testData.user(User.UserRole.CUSTOMER);
+        Drone drone = testData.drone(testData.vendor(18.5, 73.8));
+        Booking old = testData.booking(customer, drone, 18.50, 73.85, 2.0,
+                Booking.BookingStatus.ACCEPTED, LocalDateTime.now().minusDays(3));
+
+        // First run: the lone booking cannot form a cluster
+        farmCoverageService.generateClustersIncremental();
+        entityManager.clear();
+        assertNull(bookingRepository.findById(old.getBookingId()).orElseThrow().getClusterId());
+
+        // A neighbour ~1 km away is accepted; the old booking is far outside the lookback window
+        Booking fresh = testData.booking(customer, drone, 18.51, 73.85, 3.0,
+                Booking.BookingStatus.ACCEPTED, LocalDateTime.now());
+        farmCoverageService.generateClustersIncremental();
+        entityManager.clear();
+
+        Long oldCluster = bookingRepository.findById(old.getBookingId()).orElseThrow().getClusterId();
+        Long freshCluster = bookingRepository.findById(fresh.getBookingId()).orElseThrow().getClusterId();
+        assertNotNull(oldCluster);
+        assertEquals(oldCluster, freshCluster);
+    }
+}
@@ -0,0 +1,102 @@
+package com.tatya.service;
+
+import com.tatya.TestData;
+import com.tatya.entity.Assignment;
+import com.tatya.entity.Booking;
+import com.tatya.entity.Cluster;
+import com.tatya.entity.Drone;
+import com.tatya.entity.RouteStop;
+import com.tatya.entity.User;
+import com.tatya.entity.Vendor;
+import com.tatya.repository.BookingRepository;
+import com.tatya.repository.ClusterRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class RoutePlanningServiceTest {
+
+    private static final LocalDate START = LocalDate.now().plusDays(1);
+    private static final LocalDate END = START.plusDays(2);
+
+    @Autowired
+    private RoutePlanningService routePlanningService;
+
+    @Autowired
+    private ClusterRepository clusterRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TestData testData;
+
+    // The farm nearest the base is due last, so the route must not open with it
+    @Test
+    void noBookingIsSprayedBeforeItsServiceDate() {
+        Drone drone = testData.drone(testData.vendor(20.0, 79.0));
+        Cluster cluster = cluster();
+        Booking early = booking(drone, cluster, 20.05, 5, START);
+        Booking late = booking(drone, cluster, 20.01, 5, END);
+        Booking overdue = booking(drone, cluster, 20.03, 5, LocalDate.now().minusDays(1));
+
+        List<RouteStop> stops = routePlanningService.planRoutes(List.of(assignment(cluster, drone.getVendor())));
+
+        Map<Long, RouteStop> byBooking = stops.stream().collect(Collectors.toMap(RouteStop::getBookingId, s -> s));
+        assertEquals(START, byBooking.get(overdue.getBookingId()).getServiceDate());
+        assertEquals(START, byBooking.get(early.getBookingId()).getServiceDate());
+        assertEquals(END, byBooking.get(late.getBookingId()).getServiceDate());
+        assertEquals(3, byBooking.get(late.getBookingId()).getSequence());
+    }
+
+    // 20 acres a day: three 15-acre farms due on the last day take three days
+    @Test
+    void routeRunsPastTheClusterEndWhenTheLastDayIsOverbooked() {
+        Drone drone = testData.drone(testData.vendor(20.0, 79.0));
+        Cluster cluster = cluster();
+        for (int i = 0; i < 3; i++) {
+            booking(drone, cluster, 20.01 + i * 0.01, 15, END);
+        }
+
+        List<RouteStop> stops = routePlanningService.planRoutes(List.of(assignment(cluster, drone.getVendor())));
+
+        assertEquals(List.of(END, END.plusDays(1), END.plusDays(2)),
+                stops.stream().map(RouteStop::getServiceDate).toList());
+    }
+
+    private Cluster cluster() {
+        Cluster cluster = new Cluster();
+        cluster.setName("Route cluster");
+        cluster.setStatus(Cluster.ClusterStatus.ACTIVE);
+        cluster.setStartDate(START);
+        cluster.setEndDate(END);
+        return clusterRepository.save(cluster);
+    }
+
+    private Booking booking(Drone drone, Cluster cluster, double lat, double acres, LocalDate serviceDate) {
+        Booking booking = testData.booking(testData.user(User.UserRole.CUSTOMER), drone, lat, 79.0, acres,
+                Booking.BookingStatus.ACCEPTED, null);
+        booking.setServiceDate(serviceDate);
+        booking.setClusterId(cluster.getId());
+        return bookingRepository.save(booking);
+    }
+
+    private static Assignment assignment(Cluster cluster, Vendor vendor) {
+        Assignment assignment = new Assignment();
+        assignment.setCluster(cluster);
+        assignment.setVendor(vendor);
+        return assignment;
+    }
+}
@@ -0,0 +1,47 @@
+package com.tatya.service;
+
+import com.tatya.entity.Cluster;
+import com.tatya.repository.ClusterHistoryRepository;
+import com.tatya.repository.ClusterRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class SchedulerServiceTest {
+
+    @Autowired
+    private SchedulerService schedulerService;
+
+    @Autowired
+    private ClusterRepository clusterRepository;
+
+    @Autowired
+    private ClusterHistoryRepository clusterHistoryRepository;
+
+    @Test
+    void archivingTwiceKeepsOneHistoryRowPerCluster() {
+        Cluster cluster = new Cluster();
+        cluster.setName("Completed cluster");
+        cluster.setStatus(Cluster.ClusterStatus.COMPLETED);
+        cluster.setStartDate(LocalDate.now().minusDays(5));
+        cluster.setEndDate(LocalDate.now().minusDays(1));
+        Long clusterId = clusterRepository.save(cluster).getId();
+
+        schedulerService.runArchivingJob();
+        schedulerService.runArchivingJob();
+
+        long rows = clusterHistoryRepository.findAll().stream()
+                .filter(h -> clusterId.equals(h.getOriginalClusterId()))
+                .count();
+        assertEquals(1, rows);
+    }
+}
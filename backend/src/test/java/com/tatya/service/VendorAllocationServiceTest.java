@@ -0,0 +1,94 @@
+package com.tatya.service;
+
+import com.tatya.TestData;
+import com.tatya.entity.Cluster;
+import com.tatya.repository.ClusterRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class VendorAllocationServiceTest {
+
+    @Autowired
+    private VendorAllocationService vendorAllocationService;
+
+    @Autowired
+    private ClusterRepository clusterRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TestData testData;
+
+    // 50 acres next to a vendor spraying 20 acres a day only fit spread over several days
+    @Test
+    void overdueAndUndatedClustersArePlannedFromTodayOverTheOverdueWindow() {
+        LocalDate today = LocalDate.now();
+        Long vendorId = testData.drone(testData.vendor(21.0, 80.0)).getVendor().getVendorId();
+        Long overdue = pendingCluster(today.minusDays(5), today.minusDays(2), 50);
+        Long undated = pendingCluster(null, null, 10);
+
+        vendorAllocationService.allocateVendors();
+        entityManager.clear();
+
+        for (Long clusterId : new Long[] { overdue, undated }) {
+            Cluster assigned = clusterRepository.findById(clusterId).orElseThrow();
+            assertEquals(Cluster.ClusterStatus.ACTIVE, assigned.getStatus());
+            assertEquals(vendorId, assigned.getVendor().getVendorId());
+            assertEquals(today, assigned.getStartDate());
+            assertEquals(today.plusDays(3), assigned.getEndDate());
+        }
+    }
+
+    // Reads are projection queries and writes JDBC batches, so the query count does not grow with the clusters
+    @Test
+    void queryCountDoesNotDependOnClusterCount() {
+        testData.drone(testData.vendor(21.0, 80.0));
+        pendingCluster(LocalDate.now().plusDays(1), LocalDate.now().plusDays(4), 5);
+        long oneCluster = allocationStatements();
+
+        for (int i = 0; i < 30; i++) {
+            pendingCluster(LocalDate.now().plusDays(1), LocalDate.now().plusDays(4), 1);
+        }
+        assertEquals(oneCluster, allocationStatements());
+    }
+
+    // Hibernate statements of one allocation run, after flushing the test's own writes
+    private long allocationStatements() {
+        entityManager.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        vendorAllocationService.allocateVendors();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Long pendingCluster(LocalDate startDate, LocalDate endDate, int acres) {
+        Cluster cluster = new Cluster();
+        cluster.setName("Pending cluster");
+        cluster.setStatus(Cluster.ClusterStatus.PENDING);
+        cluster.setStartDate(startDate);
+        cluster.setEndDate(endDate);
+        cluster.setCenterLatitude(BigDecimal.valueOf(21.01));
+        cluster.setCenterLongitude(BigDecimal.valueOf(80.01));
+        cluster.setTotalAcres(BigDecimal.valueOf(acres));
+        return clusterRepository.save(cluster).getId();
+    }
+}
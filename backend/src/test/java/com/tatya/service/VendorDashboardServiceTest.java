@@ -0,0 +1,67 @@
+package com.tatya.service;
+
+import com.tatya.model.VendorDashboardChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VendorDashboardServiceTest {
+
+    private VendorDashboardService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new VendorDashboardService(null, null, null);
+        ReflectionTestUtils.setField(service, "cacheMaxVendors", 10);
+        ReflectionTestUtils.setField(service, "cacheMaxAgeSeconds", 300L);
+        service.createSnapshotCache();
+    }
+
+    @Test
+    void viewIsLoadedOnceUntilInvalidated() {
+        assertEquals("first", service.cached(1L, "stats", () -> "first"));
+        assertEquals("first", service.cached(1L, "stats", () -> "second"));
+
+        service.onVendorDashboardChanged(new VendorDashboardChangedEvent(1L));
+        assertEquals("second", service.cached(1L, "stats", () -> "second"));
+    }
+
+    @Test
+    void loadRacingAnInvalidationIsNotStored() {
+        // The change commits and is invalidated while the load is still running
+        String stale = service.cached(1L, "stats", () -> {
+            service.onVendorDashboardChanged(new VendorDashboardChangedEvent(1L));
+            return "stale";
+        });
+        assertEquals("stale", stale);
+        assertEquals("fresh", service.cached(1L, "stats", () -> "fresh"));
+    }
+
+    @Test
+    void failedLoadsDoNotEvictCachedVendors() {
+        service.cached(1L, "stats", () -> "kept");
+        // More unknown ids than the cache holds vendors
+        for (long id = 100; id < 120; id++) {
+            long unknown = id;
+            assertThrows(RuntimeException.class, () -> service.cached(unknown, "stats", () -> {
+                throw new RuntimeException("Vendor not found");
+            }));
+        }
+        Map<?, ?> snapshots = (Map<?, ?>) ReflectionTestUtils.getField(service, "snapshots");
+        assertEquals(1, snapshots.size());
+        assertEquals("kept", service.cached(1L, "stats", () -> "reloaded"));
+    }
+
+    @Test
+    void snapshotIsRebuiltAfterTheMaxAge() {
+        assertEquals("first", service.cached(1L, "stats", () -> "first"));
+
+        ReflectionTestUtils.setField(service, "cacheMaxAgeSeconds", 0L);
+        assertEquals("second", service.cached(1L, "stats", () -> "second"));
+    }
+}
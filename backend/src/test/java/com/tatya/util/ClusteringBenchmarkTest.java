@@ -0,0 +1,90 @@
+package com.tatya.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Neighbour discovery and clustering time, grid versus the old all-pairs loop, on synthetic
+ * bookings spread over a 20 x 20 degree area.
+ *
+ * Opt-in, as it takes minutes and a few GB of heap at 1M points:
+ * {@code mvn test -Dtest=ClusteringBenchmarkTest -Dbenchmark=true}. Sizes come from
+ * {@code -Dbenchmark.sizes} (default 10000,100000,1000000). The all-pairs loop is only timed up
+ * to {@code -Dbenchmark.all-pairs-max} points (default 20000) and extrapolated quadratically
+ * beyond that, marked "est.".
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ClusteringBenchmarkTest {
+
+    private static final double CONNECTION_DIST_M = 10000.0;
+    private static final double CLUSTER_RADIUS_M = 5000.0;
+    private static final long MAX_AREA_CENTI = 1000L;
+
+    @Test
+    void gridVersusAllPairs() {
+        String[] sizes = System.getProperty("benchmark.sizes", "10000,100000,1000000").split(",");
+        int allPairsMax = Integer.getInteger("benchmark.all-pairs-max", 20000);
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        double allPairsNanosPerPair = 0.0;
+        System.out.printf("%10s %16s %16s %14s %10s%n", "bookings", "all-pairs ms", "grid+cluster ms", "clusters", "speedup");
+        for (String size : sizes) {
+            int n = Integer.parseInt(size.trim());
+            double[][] points = GeoGridIndexTest.points(n, 20.0, 78.0, 20.0, n);
+            int[] acres = acres(n);
+
+            String allPairsLabel;
+            double allPairsMs;
+            if (n <= allPairsMax) {
+                long start = System.nanoTime();
+                long edges = allPairsEdges(points[0], points[1]);
+                long nanos = System.nanoTime() - start;
+                assertFalse(edges < 0);
+                allPairsNanosPerPair = nanos / ((double) n * (n - 1) / 2.0);
+                allPairsMs = nanos / 1e6;
+                allPairsLabel = String.format("%.0f", allPairsMs);
+            } else {
+                allPairsMs = allPairsNanosPerPair * ((double) n * (n - 1) / 2.0) / 1e6;
+                allPairsLabel = String.format("%.0f est.", allPairsMs);
+            }
+
+            long start = System.nanoTime();
+            ClusteringEngine engine = new ClusteringEngine(points[0], points[1], acres,
+                    CONNECTION_DIST_M, CLUSTER_RADIUS_M, MAX_AREA_CENTI, pool);
+            List<int[]> clusters = engine.run();
+            double gridMs = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("%10d %16s %16.0f %14d %9.1fx%n", n, allPairsLabel, gridMs, clusters.size(),
+                    allPairsMs / gridMs);
+        }
+        pool.shutdown();
+    }
+
+    // The old neighbour discovery: haversine on every pair
+    private static long allPairsEdges(double[] lat, double[] lon) {
+        long edges = 0;
+        for (int i = 0; i < lat.length; i++) {
+            for (int j = i + 1; j < lat.length; j++) {
+                if (GeoUtils.haversineKm(lat[i], lon[i], lat[j], lon[j]) * 1000.0 <= CONNECTION_DIST_M) {
+                    edges++;
+                }
+            }
+        }
+        return edges;
+    }
+
+    private static int[] acres(int n) {
+        Random random = new Random(n);
+        int[] acres = new int[n];
+        for (int i = 0; i < n; i++) {
+            acres[i] = 50 + random.nextInt(450);
+        }
+        return acres;
+    }
+}
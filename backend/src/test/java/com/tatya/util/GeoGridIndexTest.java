@@ -0,0 +1,72 @@
+package com.tatya.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * The grid must find exactly the neighbours the old all-pairs loop found, in the same (ascending)
+ * order, so the clustering built on it stays unchanged.
+ */
+class GeoGridIndexTest {
+
+    private static final double CONNECTION_DIST_M = 10000.0;
+
+    @Test
+    void matchesAllPairsNeighboursInRegion() {
+        assertMatchesAllPairs(points(3000, 18.0, 73.0, 1.5, 1));
+    }
+
+    @Test
+    void matchesAllPairsNeighboursNearThePoleAndAntimeridian() {
+        assertMatchesAllPairs(points(1500, 88.5, 179.5, 1.0, 2));
+        assertMatchesAllPairs(points(1500, -0.5, -179.8, 1.0, 3));
+    }
+
+    private static void assertMatchesAllPairs(double[][] points) {
+        double[] lat = points[0];
+        double[] lon = points[1];
+        GeoGridIndex grid = new GeoGridIndex(lat, lon, CONNECTION_DIST_M);
+        for (int i = 0; i < lat.length; i++) {
+            assertArrayEquals(allPairsNeighbours(lat, lon, i), gridNeighbours(grid, lat, lon, i), "point " + i);
+        }
+    }
+
+    static int[] allPairsNeighbours(double[] lat, double[] lon, int i) {
+        int[] out = new int[lat.length];
+        int size = 0;
+        for (int j = 0; j < lat.length; j++) {
+            if (j != i && GeoUtils.haversineKm(lat[i], lon[i], lat[j], lon[j]) * 1000.0 <= CONNECTION_DIST_M) {
+                out[size++] = j;
+            }
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    static int[] gridNeighbours(GeoGridIndex grid, double[] lat, double[] lon, int i) {
+        int[] candidates = grid.candidates(i);
+        int size = 0;
+        for (int j : candidates) {
+            if (GeoUtils.haversineKm(lat[i], lon[i], lat[j], lon[j]) * 1000.0 <= CONNECTION_DIST_M) {
+                candidates[size++] = j;
+            }
+        }
+        return Arrays.copyOf(candidates, size);
+    }
+
+    /** Points spread uniformly over a square of {@code spanDeg} degrees centred on (lat, lon). */
+    static double[][] points(int n, double centerLat, double centerLon, double spanDeg, long seed) {
+        Random random = new Random(seed);
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = Math.max(-90.0, Math.min(90.0, centerLat + (random.nextDouble() - 0.5) * spanDeg));
+            double l = centerLon + (random.nextDouble() - 0.5) * spanDeg;
+            lon[i] = l > 180.0 ? l - 360.0 : (l < -180.0 ? l + 360.0 : l);
+        }
+        return new double[][] { lat, lon };
+    }
+}
@@ -0,0 +1,28 @@
+package com.tatya.util;
+
+import com.tatya.entity.Booking;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ListingParamsTest {
+
+    @Test
+    void pageSizeDefaultsAndCaps() {
+        assertEquals(20, ListingParams.pageSize(null, 20, 100));
+        assertEquals(5, ListingParams.pageSize(5, 20, 100));
+        assertEquals(100, ListingParams.pageSize(5000, 20, 100));
+        assertThrows(RuntimeException.class, () -> ListingParams.pageSize(0, 20, 100));
+    }
+
+    @Test
+    void parseEnumIgnoresCaseAndBlanks() {
+        assertEquals(Booking.BookingStatus.ACCEPTED, ListingParams.parseEnum(Booking.BookingStatus.class, " accepted ", "status"));
+        assertNull(ListingParams.parseEnum(Booking.BookingStatus.class, " ", "status"));
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> ListingParams.parseEnum(Booking.BookingStatus.class, "done", "status"));
+        assertEquals("Invalid status: done", e.getMessage());
+    }
+}
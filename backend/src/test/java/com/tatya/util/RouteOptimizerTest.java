@@ -0,0 +1,67 @@
+package com.tatya.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteOptimizerTest {
+
+    @Test
+    void visitsStopsAlongALineInOrder() {
+        double[] lat = { 18.0, 18.0, 18.0, 18.0 };
+        double[] lon = { 73.3, 73.1, 73.4, 73.2 };
+        assertArrayEquals(new int[] { 1, 3, 0, 2 }, RouteOptimizer.order(18.0, 73.0, lat, lon));
+    }
+
+    // Small enough to try every order; the heuristic should stay within 10% of the best path
+    @Test
+    void staysCloseToTheShortestPath() {
+        for (long seed = 1; seed <= 30; seed++) {
+            double[][] points = GeoGridIndexTest.points(7, 18.0, 73.0, 0.3, seed);
+            int[] order = RouteOptimizer.order(18.0, 73.0, points[0], points[1]);
+
+            int[] sorted = order.clone();
+            Arrays.sort(sorted);
+            assertArrayEquals(new int[] { 0, 1, 2, 3, 4, 5, 6 }, sorted, "every stop once");
+            double length = length(points, order);
+            double shortest = shortest(points, new int[] { 0, 1, 2, 3, 4, 5, 6 }, 0);
+            assertTrue(length <= shortest * 1.10, "seed " + seed + ": " + length + " km vs " + shortest + " km");
+        }
+    }
+
+    private static double length(double[][] points, int[] order) {
+        double km = 0.0;
+        double lat = 18.0;
+        double lon = 73.0;
+        for (int k : order) {
+            km += GeoUtils.haversineKm(lat, lon, points[0][k], points[1][k]);
+            lat = points[0][k];
+            lon = points[1][k];
+        }
+        return km;
+    }
+
+    // Shortest open path over all permutations of order[from..]
+    private static double shortest(double[][] points, int[] order, int from) {
+        if (from == order.length) {
+            return length(points, order);
+        }
+        double best = Double.MAX_VALUE;
+        for (int i = from; i < order.length; i++) {
+            swap(order, from, i);
+            best = Math.min(best, shortest(points, order, from + 1));
+            swap(order, from, i);
+        }
+        return best;
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+}
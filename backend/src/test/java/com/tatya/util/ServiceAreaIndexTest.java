@@ -0,0 +1,76 @@
+package com.tatya.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The index must return exactly the areas a check of every area finds, nearest first, including
+ * areas that cross the antimeridian, reach a pole or are large enough to skip the grid.
+ */
+class ServiceAreaIndexTest {
+
+    @Test
+    void matchesCheckOfEveryAreaInRegion() {
+        assertMatchesEveryArea(18.0, 73.0, 3.0, 60.0, 1);
+    }
+
+    @Test
+    void matchesCheckOfEveryAreaNearThePoleAndAntimeridian() {
+        assertMatchesEveryArea(89.0, 179.5, 2.0, 60.0, 2);
+        assertMatchesEveryArea(-89.5, -179.8, 2.0, 60.0, 3);
+        assertMatchesEveryArea(0.0, 180.0, 2.0, 60.0, 4);
+    }
+
+    @Test
+    void matchesCheckOfEveryAreaWithRadiiLargerThanTheGridLimit() {
+        assertMatchesEveryArea(45.0, 10.0, 20.0, 2500.0, 5);
+    }
+
+    private static void assertMatchesEveryArea(double centerLat, double centerLon, double spanDeg,
+                                               double maxRadiusKm, long seed) {
+        double[][] areas = GeoGridIndexTest.points(800, centerLat, centerLon, spanDeg, seed);
+        double[] lat = areas[0];
+        double[] lon = areas[1];
+        Random random = new Random(seed);
+        double[] radiusKm = new double[lat.length];
+        for (int i = 0; i < radiusKm.length; i++) {
+            radiusKm[i] = 1.0 + random.nextDouble() * maxRadiusKm;
+        }
+        ServiceAreaIndex index = new ServiceAreaIndex(lat, lon, radiusKm);
+
+        double[][] queries = GeoGridIndexTest.points(500, centerLat, centerLon, spanDeg * 1.5, seed + 100);
+        for (int q = 0; q < queries[0].length; q++) {
+            double pointLat = queries[0][q];
+            double pointLon = queries[1][q];
+            ServiceAreaIndex.Matches matches = index.containing(pointLat, pointLon);
+            int[] found = new int[matches.size()];
+            for (int k = 0; k < found.length; k++) {
+                found[k] = matches.index(k);
+                double expected = GeoUtils.haversineKm(pointLat, pointLon, lat[found[k]], lon[found[k]]);
+                assertEquals(expected, matches.distanceKm(k), 1e-9);
+                assertTrue(k == 0 || matches.distanceKm(k - 1) <= matches.distanceKm(k), "nearest first");
+            }
+            Arrays.sort(found);
+            assertArrayEquals(everyAreaContaining(lat, lon, radiusKm, pointLat, pointLon), found,
+                    "point " + pointLat + "," + pointLon);
+        }
+    }
+
+    private static int[] everyAreaContaining(double[] lat, double[] lon, double[] radiusKm,
+                                             double pointLat, double pointLon) {
+        int[] out = new int[lat.length];
+        int size = 0;
+        for (int i = 0; i < lat.length; i++) {
+            if (GeoUtils.haversineKm(pointLat, pointLon, lat[i], lon[i]) <= radiusKm[i]) {
+                out[size++] = i;
+            }
+        }
+        return Arrays.copyOf(out, size);
+    }
+}
@@ -0,0 +1,40 @@
+package com.tatya.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * A cluster is spread evenly over its window, so the same acres that overflow a vendor's day fit
+ * once the window spans a few days.
+ */
+class VendorAssignmentSolverTest {
+
+    private static final int HORIZON_DAYS = 60;
+
+    @Test
+    void singleDayWindowOverflowsDailyCapacity() {
+        assertArrayEquals(new int[] { -1 }, solve(0, 0, 0));
+    }
+
+    @Test
+    void widerWindowFitsDailyCapacity() {
+        assertArrayEquals(new int[] { 0 }, solve(0, 3, 0));
+    }
+
+    @Test
+    void vendorLeadTimeMustReachTheFirstDay() {
+        assertArrayEquals(new int[] { -1 }, solve(0, 3, 1));
+        assertArrayEquals(new int[] { 0 }, solve(1, 3, 1));
+    }
+
+    // 50 acres next to one vendor with 20 acres/day of capacity
+    private static int[] solve(int startDay, int endDay, int vendorFirstDay) {
+        VendorAssignmentSolver solver = new VendorAssignmentSolver(
+                new double[] { 18.50 }, new double[] { 73.80 }, new int[] { 5000 },
+                new int[] { startDay }, new int[] { endDay }, new int[] { 0 },
+                new double[] { 18.52 }, new double[] { 73.82 }, new int[] { 2000 }, new int[] { vendorFirstDay },
+                HORIZON_DAYS, 50.0);
+        return solver.solve();
+    }
+}